@@ -0,0 +1,182 @@
+package com.abovesky.calendar.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis value serializer writing registered types (and lists of them) with their {@link CacheCodec}.
+ * Layout: {@code MAGIC flags [rawLength] payload}, where payload is {@code typeId version (value | count values*)}
+ * and is deflated when larger than the compression threshold.
+ * Anything without a codec is handed to the fallback serializer; values not starting with {@code MAGIC} are read
+ * by the fallback too, so JSON entries written before the switch stay readable.
+ * Values written by a newer codec version than this node knows are treated as a cache miss.
+ */
+@Slf4j
+public class BinaryCacheSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xB1;
+    private static final int FLAG_LIST = 1;
+    private static final int FLAG_COMPRESSED = 2;
+
+    private final Map<Class<?>, CacheCodec<?>> codecsByType = new HashMap<>();
+    private final Map<Integer, CacheCodec<?>> codecsById = new HashMap<>();
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+
+    public BinaryCacheSerializer(List<CacheCodec<?>> codecs, RedisSerializer<Object> fallback,
+                                 int compressionThreshold) {
+        for (CacheCodec<?> codec : codecs) {
+            if (codecsById.put(codec.typeId(), codec) != null) {
+                throw new IllegalArgumentException("Duplicate cache codec type id " + codec.typeId());
+            }
+            codecsByType.put(codec.type(), codec);
+        }
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        List<?> list = value instanceof List<?> l ? l : null;
+        CacheCodec<?> codec = list != null ? codecForList(list) : codecsByType.get(value.getClass());
+        if (codec == null) {
+            return fallback.serialize(value);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            CodecSupport.writeVarLong(out, codec.typeId());
+            CodecSupport.writeVarLong(out, codec.version());
+            if (list != null) {
+                CodecSupport.writeVarLong(out, list.size());
+                for (Object element : list) {
+                    write(codec, out, element);
+                }
+            } else {
+                write(codec, out, value);
+            }
+            return frame(bytes.toByteArray(), list != null ? FLAG_LIST : 0);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + codec.type().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        try {
+            int flags = bytes[1];
+            ByteArrayInputStream payload = (flags & FLAG_COMPRESSED) != 0
+                    ? new ByteArrayInputStream(inflate(bytes))
+                    : new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+            DataInputStream in = new DataInputStream(payload);
+            int typeId = (int) CodecSupport.readVarLong(in);
+            int version = (int) CodecSupport.readVarLong(in);
+            CacheCodec<?> codec = codecsById.get(typeId);
+            if (codec == null || version > codec.version()) {
+                log.debug("No codec for cached type {} version {}, treating as a miss", typeId, version);
+                return null;
+            }
+            if ((flags & FLAG_LIST) == 0) {
+                return codec.read(in, version);
+            }
+            int size = (int) CodecSupport.readVarLong(in);
+            List<Object> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(codec.read(in, version));
+            }
+            return values;
+        } catch (IOException | DataFormatException | RuntimeException e) {
+            throw new SerializationException("Could not read binary cache value", e);
+        }
+    }
+
+    /**
+     * Codec shared by every element of a non-empty list, or null when the list is empty or mixed
+     */
+    private CacheCodec<?> codecForList(List<?> list) {
+        if (list.isEmpty() || list.get(0) == null) {
+            return null;
+        }
+        Class<?> type = list.get(0).getClass();
+        for (Object element : list) {
+            if (element == null || element.getClass() != type) {
+                return null;
+            }
+        }
+        return codecsByType.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void write(CacheCodec<T> codec, DataOutputStream out, Object value) throws IOException {
+        codec.write(out, (T) value);
+    }
+
+    private byte[] frame(byte[] payload, int flags) throws IOException {
+        ByteArrayOutputStream framed = new ByteArrayOutputStream(payload.length + 8);
+        framed.write(MAGIC);
+        if (payload.length <= compressionThreshold) {
+            framed.write(flags);
+            framed.write(payload);
+            return framed.toByteArray();
+        }
+        framed.write(flags | FLAG_COMPRESSED);
+        CodecSupport.writeVarLong(new DataOutputStream(framed), payload.length);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                framed.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        return framed.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) throws IOException, DataFormatException {
+        ByteArrayInputStream header = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+        int rawLength = (int) CodecSupport.readVarLong(new DataInputStream(header));
+        int offset = bytes.length - header.available();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] payload = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(payload, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed cache value");
+                }
+                read += n;
+            }
+            return payload;
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.abovesky.calendar.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Hand-written binary encoding of one cached type, used by {@link BinaryCacheSerializer}.
+ * The type id is stored with every value and must never be reused for another type. Bump the version whenever
+ * the field layout changes and keep {@link #read} able to decode every older version still present in Redis.
+ */
+public interface CacheCodec<T> {
+
+    int typeId();
+
+    int version();
+
+    Class<T> type();
+
+    void write(DataOutput out, T value) throws IOException;
+
+    /**
+     * @param version version the value was written with, never greater than {@link #version()}
+     */
+    T read(DataInput in, int version) throws IOException;
+}
@@ -0,0 +1,105 @@
+package com.abovesky.calendar.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Redis pub/sub channel keeping the L1 tiers of {@link TwoTierCache} coherent across nodes.
+ * Messages have the form {@code origin|cache|E|key} (evict) or {@code origin|cache|C|} (clear);
+ * messages sent by this node are ignored. Delivery is best effort: a lost message leaves a stale
+ * L1 entry until its (short) L1 TTL expires.
+ * Other per-node state can share the channel: evictions published under a name that is not a cache go to the
+ * listener {@link #subscribe subscribed} to that name.
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<String>> listeners = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    void register(TwoTierCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    /**
+     * Have keys published under {@code name} by the other nodes passed to {@code listener}
+     */
+    public void subscribe(String name, Consumer<String> listener) {
+        listeners.put(name, listener);
+    }
+
+    /**
+     * Tell the other nodes that the state they keep under {@code name} for {@code key} changed
+     */
+    public void publish(String name, String key) {
+        publishEvict(name, key);
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(nodeId + "|" + cacheName + "|" + EVICT + "|" + key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(nodeId + "|" + cacheName + "|" + CLEAR + "|");
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            Consumer<String> listener = listeners.get(parts[1]);
+            if (listener != null && EVICT.equals(parts[2])) {
+                notify(listener, parts[3]);
+            }
+            return;
+        }
+        if (CLEAR.equals(parts[2])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    private void notify(Consumer<String> listener, String key) {
+        try {
+            listener.accept(key);
+        } catch (RuntimeException e) {
+            log.warn("Failed to apply invalidation of {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish cache invalidation: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.abovesky.calendar.cache;
+
+import com.abovesky.calendar.dto.EventDto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.abovesky.calendar.cache.CodecSupport.*;
+
+public class EventDtoCodec implements CacheCodec<EventDto> {
+
+    @Override
+    public int typeId() {
+        return 1;
+    }
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    @Override
+    public Class<EventDto> type() {
+        return EventDto.class;
+    }
+
+    @Override
+    public void write(DataOutput out, EventDto event) throws IOException {
+        writeLong(out, event.getId());
+        writeString(out, event.getTitle());
+        writeString(out, event.getDescription());
+        writeDateTime(out, event.getStartDate());
+        writeDateTime(out, event.getEndDate());
+        writeLong(out, event.getUserId());
+        writeString(out, event.getCategory());
+        writeString(out, event.getColor());
+        writeBoolean(out, event.getIsAllDay());
+        writeString(out, event.getRecurrencePattern());
+        writeString(out, event.getAssignedMembers());
+        writeString(out, event.getReminderMinutes());
+        writeString(out, event.getIcon());
+        writeDateTime(out, event.getCreatedAt());
+        writeDateTime(out, event.getUpdatedAt());
+    }
+
+    @Override
+    public EventDto read(DataInput in, int version) throws IOException {
+        EventDto event = new EventDto();
+        event.setId(readLong(in));
+        event.setTitle(readString(in));
+        event.setDescription(readString(in));
+        event.setStartDate(readDateTime(in));
+        event.setEndDate(readDateTime(in));
+        event.setUserId(readLong(in));
+        event.setCategory(readString(in));
+        event.setColor(readString(in));
+        event.setIsAllDay(readBoolean(in));
+        event.setRecurrencePattern(readString(in));
+        event.setAssignedMembers(readString(in));
+        event.setReminderMinutes(readString(in));
+        event.setIcon(readString(in));
+        event.setCreatedAt(readDateTime(in));
+        event.setUpdatedAt(readDateTime(in));
+        return event;
+    }
+}
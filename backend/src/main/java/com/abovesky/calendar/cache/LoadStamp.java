@@ -0,0 +1,7 @@
+package com.abovesky.calendar.cache;
+
+/**
+ * How long a value took to compute and when its L2 copy expires, both on the {@link System#nanoTime()} clock
+ */
+public record LoadStamp(long loadNanos, long expiresAtNanos) {
+}
@@ -0,0 +1,71 @@
+package com.abovesky.calendar.cache;
+
+import com.abovesky.calendar.dto.TaskDto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.abovesky.calendar.cache.CodecSupport.*;
+
+public class TaskDtoCodec implements CacheCodec<TaskDto> {
+
+    @Override
+    public int typeId() {
+        return 2;
+    }
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    @Override
+    public Class<TaskDto> type() {
+        return TaskDto.class;
+    }
+
+    @Override
+    public void write(DataOutput out, TaskDto task) throws IOException {
+        writeLong(out, task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        writeDateTime(out, task.getDueDate());
+        writeLong(out, task.getAssignedUserId());
+        writeString(out, task.getPriority());
+        writeString(out, task.getStatus());
+        writeString(out, task.getCategory());
+        writeString(out, task.getRecurrencePattern());
+        writeInteger(out, task.getRewardPoints());
+        writeString(out, task.getSubtasks());
+        writeInteger(out, task.getOrderIndex());
+        writeString(out, task.getIcon());
+        writeDateTime(out, task.getCompletedAt());
+        writeLong(out, task.getCreatedBy());
+        writeDateTime(out, task.getCreatedAt());
+        writeDateTime(out, task.getUpdatedAt());
+    }
+
+    @Override
+    public TaskDto read(DataInput in, int version) throws IOException {
+        TaskDto task = new TaskDto();
+        task.setId(readLong(in));
+        task.setTitle(readString(in));
+        task.setDescription(readString(in));
+        task.setDueDate(readDateTime(in));
+        task.setAssignedUserId(readLong(in));
+        task.setPriority(readString(in));
+        task.setStatus(readString(in));
+        task.setCategory(readString(in));
+        task.setRecurrencePattern(readString(in));
+        task.setRewardPoints(readInteger(in));
+        task.setSubtasks(readString(in));
+        task.setOrderIndex(readInteger(in));
+        task.setIcon(readString(in));
+        task.setCompletedAt(readDateTime(in));
+        task.setCreatedBy(readLong(in));
+        task.setCreatedAt(readDateTime(in));
+        task.setUpdatedAt(readDateTime(in));
+        return task;
+    }
+}
@@ -0,0 +1,333 @@
+package com.abovesky.calendar.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache with a size-bounded in-process L1 (Caffeine) in front of a shared L2 (Redis).
+ * Reads are served from L1 when possible and populate it from L2 on a miss; writes go to both tiers and
+ * notify the other nodes through the {@link CacheInvalidationBus} so they drop their L1 copy.
+ * L1 keys are the string form of the cache key, which is also what is sent over the bus. L1 holds each value in
+ * its serialized L2 form and every read gets its own copy, so a caller mutating a cached DTO cannot change what
+ * other callers see.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} ({@code @Cacheable(sync = true)}) are coalesced per key: one caller
+ * reads L2 and runs the loader, concurrent callers on this node wait for its result. For values it computed itself,
+ * the node remembers how long the load took and refreshes the entry before its L2 TTL runs out, with a probability
+ * rising towards expiry (XFetch, scaled by {@code beta}). The refresh runs the caller's loader on the caller's own
+ * thread, inside its transaction and security context; the other callers keep being served the current value.
+ * <p>
+ * L2 is an optimisation: when reading it fails, the value is loaded as if it were missing. Writes change L1 first
+ * and always notify the other nodes, so a failed L2 write never leaves a node serving the old value from L1.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, byte[]> local;
+    private final Cache remote;
+    private final SerializationPair<Object> valueSerialization;
+    private final CacheInvalidationBus invalidationBus;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LoadStamp> loadStamps;
+    private final Duration remoteTtl;
+    private final double beta;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final LongAdder coalescedWaits = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder remoteErrors = new LongAdder();
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, byte[]> local,
+                        Cache remote, SerializationPair<Object> valueSerialization,
+                        CacheInvalidationBus invalidationBus,
+                        com.github.benmanes.caffeine.cache.Cache<String, LoadStamp> loadStamps, Duration remoteTtl,
+                        double beta) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.valueSerialization = valueSerialization;
+        this.invalidationBus = invalidationBus;
+        this.loadStamps = loadStamps;
+        this.remoteTtl = remoteTtl;
+        this.beta = beta;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    public com.github.benmanes.caffeine.cache.Cache<String, byte[]> getLocalCache() {
+        return local;
+    }
+
+    public Cache getRemoteCache() {
+        return remote;
+    }
+
+    /**
+     * Number of callers that waited for another caller's load of the same key instead of loading themselves
+     */
+    public long getCoalescedWaits() {
+        return coalescedWaits.sum();
+    }
+
+    /**
+     * Number of refreshes run ahead of expiry
+     */
+    public long getEarlyRefreshes() {
+        return earlyRefreshes.sum();
+    }
+
+    /**
+     * Number of L2 operations that failed: reads treated as misses, and writes that only reached L1
+     */
+    public long getRemoteErrors() {
+        return remoteErrors.sum();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = getLocal(localKey);
+        if (value != null) {
+            return value;
+        }
+        Object remoteValue = getRemote(key);
+        if (remoteValue == null) {
+            return null;
+        }
+        putLocal(localKey, remoteValue);
+        return remoteValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = getLocal(localKey);
+        if (value == null) {
+            value = loadOnce(key, localKey, valueLoader);
+        }
+        if (shouldRefreshEarly(localKey)) {
+            Object refreshed = refresh(key, localKey, valueLoader);
+            if (refreshed != null) {
+                value = refreshed;
+            }
+        }
+        return (T) value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        String localKey = localKey(key);
+        loadStamps.invalidate(localKey);
+        putLocal(localKey, value);
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            remoteFailed("put", key, e);
+        } finally {
+            invalidationBus.publishEvict(name, localKey);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        evictLocal(localKey);
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            remoteFailed("evict", key, e);
+        } finally {
+            invalidationBus.publishEvict(name, localKey);
+        }
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        try {
+            remote.clear();
+        } catch (RuntimeException e) {
+            remoteFailed("clear", "*", e);
+        } finally {
+            invalidationBus.publishClear(name);
+        }
+    }
+
+    /**
+     * Drop a key from L1 only, on behalf of another node
+     */
+    void evictLocal(String key) {
+        local.invalidate(key);
+        loadStamps.invalidate(key);
+    }
+
+    /**
+     * Drop all of L1 only, on behalf of another node
+     */
+    void clearLocal() {
+        local.invalidateAll();
+        loadStamps.invalidateAll();
+    }
+
+    /**
+     * Read L2 or run the loader, with at most one caller doing so per key on this node
+     */
+    private Object loadOnce(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey, future);
+        if (existing != null) {
+            coalescedWaits.increment();
+            return await(existing);
+        }
+        try {
+            Object value = getLocal(localKey);
+            if (value == null) {
+                value = getRemote(key);
+                if (value != null) {
+                    putLocal(localKey, value);
+                } else {
+                    value = load(key, localKey, valueLoader);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, future);
+        }
+    }
+
+    /**
+     * Run the loader and store its result in both tiers, remembering how long it took
+     */
+    private Object load(Object key, String localKey, Callable<?> valueLoader) {
+        long started = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value == null) {
+            return null;
+        }
+        long loadNanos = System.nanoTime() - started;
+        putLocal(localKey, value);
+        loadStamps.put(localKey, new LoadStamp(loadNanos, System.nanoTime() + remoteTtl.toNanos()));
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            log.warn("Cache put failed for {}::{}: {}", name, key, e.getMessage());
+        }
+        return value;
+    }
+
+    /**
+     * XFetch: refresh once {@code now + loadTime * beta * -ln(random)} passes the expiry
+     */
+    private boolean shouldRefreshEarly(String localKey) {
+        LoadStamp stamp = loadStamps.getIfPresent(localKey);
+        if (stamp == null || refreshing.contains(localKey)) {
+            return false;
+        }
+        double gap = stamp.loadNanos() * beta * -Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.nanoTime() + gap >= stamp.expiresAtNanos();
+    }
+
+    /**
+     * Recompute on the caller's thread, at most once per key at a time; a failed refresh keeps the current value
+     */
+    private Object refresh(Object key, String localKey, Callable<?> valueLoader) {
+        if (!refreshing.add(localKey)) {
+            return null;
+        }
+        earlyRefreshes.increment();
+        try {
+            Object value = load(key, localKey, valueLoader);
+            if (value != null) {
+                invalidationBus.publishEvict(name, localKey);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            log.warn("Early refresh failed for {}::{}: {}", name, key, e.getMessage());
+            return null;
+        } finally {
+            refreshing.remove(localKey);
+        }
+    }
+
+    /**
+     * The L2 value, or null if there is none or L2 cannot be read
+     */
+    private Object getRemote(Object key) {
+        try {
+            ValueWrapper wrapper = remote.get(key);
+            return wrapper != null ? wrapper.get() : null;
+        } catch (RuntimeException e) {
+            remoteFailed("get", key, e);
+            return null;
+        }
+    }
+
+    private void remoteFailed(String operation, Object key, RuntimeException e) {
+        remoteErrors.increment();
+        log.warn("Cache {} failed for {}::{}: {}", operation, name, key, e.getMessage());
+    }
+
+    /**
+     * A fresh copy of the L1 value, or null if there is none
+     */
+    private Object getLocal(String localKey) {
+        byte[] bytes = local.getIfPresent(localKey);
+        return bytes != null ? valueSerialization.read(ByteBuffer.wrap(bytes)) : null;
+    }
+
+    private void putLocal(String localKey, Object value) {
+        local.put(localKey, ByteUtils.getBytes(valueSerialization.write(value)));
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
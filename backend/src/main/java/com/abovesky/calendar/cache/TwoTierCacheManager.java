@@ -0,0 +1,79 @@
+package com.abovesky.calendar.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache manager composing a Caffeine L1 per cache name with the matching Redis cache as L2.
+ * Each L1 is bounded by size and expires entries after the shorter of the near-cache TTL and the cache's Redis TTL;
+ * it stores values with the Redis cache's own value serializer.
+ * Load timings used for early refresh are kept for the full Redis TTL, independently of L1 eviction.
+ */
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private final RedisCacheManager redisCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, Duration> remoteTtls;
+    private final Duration defaultRemoteTtl;
+    private final Duration localTtl;
+    private final long localMaximumSize;
+    private final double refreshBeta;
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager, CacheInvalidationBus invalidationBus,
+                               Map<String, Duration> remoteTtls, Duration defaultRemoteTtl,
+                               Duration localTtl, long localMaximumSize, double refreshBeta) {
+        this.redisCacheManager = redisCacheManager;
+        this.invalidationBus = invalidationBus;
+        this.remoteTtls = remoteTtls;
+        this.defaultRemoteTtl = defaultRemoteTtl;
+        this.localTtl = localTtl;
+        this.localMaximumSize = localMaximumSize;
+        this.refreshBeta = refreshBeta;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        for (String name : redisCacheManager.getCacheNames()) {
+            caches.add(createCache(name));
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private TwoTierCache createCache(String name) {
+        Duration remoteTtl = remoteTtls.getOrDefault(name, defaultRemoteTtl);
+        Duration ttl = remoteTtl.compareTo(localTtl) < 0 ? remoteTtl : localTtl;
+        RedisCache remote = (RedisCache) redisCacheManager.getCache(name);
+        TwoTierCache cache = new TwoTierCache(name,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaximumSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .build(),
+                remote,
+                remote.getCacheConfiguration().getValueSerializationPair(),
+                invalidationBus,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaximumSize)
+                        .expireAfterWrite(remoteTtl)
+                        .build(),
+                remoteTtl,
+                refreshBeta);
+        invalidationBus.register(cache);
+        return cache;
+    }
+}
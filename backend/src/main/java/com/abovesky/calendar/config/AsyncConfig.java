@@ -1,14 +1,131 @@
 package com.abovesky.calendar.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
- * Configuration for asynchronous task execution
+ * Configuration for asynchronous task execution.
+ * Each workload gets its own bounded pool, selected with {@code @Async(AsyncConfig.EMAIL_EXECUTOR)} and so on,
+ * instead of Spring's fallback {@code SimpleAsyncTaskExecutor} that starts a thread per task:
+ * <ul>
+ *     <li>email: delivery of transactional and marketing mail from the outbox.</li>
+ *     <li>notification: delivery of reminder mail, kept apart so bulk sends cannot hold up reminders.</li>
+ * </ul>
+ * When a pool is full the submitting thread runs the task itself, which slows the submitter down instead of
+ * losing work.
+ * Tasks carry the submitter's MDC, pools drain their queue on shutdown, and every pool reports
+ * {@code executor.*} metrics tagged with its name plus an {@code executor.rejected} counter.
+ * With {@code spring.threads.virtual.enabled} (Java 21, see the {@code virtual-threads} profile) the pools run
+ * their tasks on virtual threads: a task blocked on SMTP or HTTP releases its carrier thread, while the pool size
+ * still caps how many run at once.
  */
+@Slf4j
 @Configuration
 @EnableAsync
-public class AsyncConfig {
-    // Default async configuration is sufficient for email sending
-    // Spring Boot will create a SimpleAsyncTaskExecutor with default settings
+@RequiredArgsConstructor
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String EMAIL_EXECUTOR = "emailTaskExecutor";
+    public static final String NOTIFICATION_EXECUTOR = "notificationTaskExecutor";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${async.email.core-size:2}")
+    private int emailCoreSize;
+
+    @Value("${async.email.max-size:8}")
+    private int emailMaxSize;
+
+    @Value("${async.email.queue-capacity:500}")
+    private int emailQueueCapacity;
+
+    @Value("${async.notification.core-size:1}")
+    private int notificationCoreSize;
+
+    @Value("${async.notification.max-size:4}")
+    private int notificationMaxSize;
+
+    @Value("${async.notification.queue-capacity:1000}")
+    private int notificationQueueCapacity;
+
+    @Value("${async.shutdown-seconds:30}")
+    private int shutdownSeconds;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailTaskExecutor() {
+        return boundedExecutor("email", emailCoreSize, emailMaxSize, emailQueueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy(), shutdownSeconds, virtualThreads, meterRegistry);
+    }
+
+    @Bean(name = NOTIFICATION_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationTaskExecutor() {
+        return boundedExecutor("notification", notificationCoreSize, notificationMaxSize,
+                notificationQueueCapacity, new ThreadPoolExecutor.CallerRunsPolicy(), shutdownSeconds,
+                virtualThreads, meterRegistry);
+    }
+
+    /**
+     * Pool for {@code @Async} methods that do not name one
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return emailTaskExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (e, method, params) -> log.error("Async {}.{} failed", method.getDeclaringClass().getSimpleName(),
+                method.getName(), e);
+    }
+
+    /**
+     * Started pool with its metrics bound; beyond the core size, threads are only added once the queue is full
+     */
+    static ThreadPoolTaskExecutor boundedExecutor(String name, int coreSize, int maxSize, int queueCapacity,
+                                                  RejectedExecutionHandler rejection, int shutdownSeconds,
+                                                  boolean virtualThreads, MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .tag("name", name)
+                .register(meterRegistry);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory());
+        }
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(Math.max(coreSize, maxSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(60);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            rejection.rejectedExecution(task, pool);
+        });
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(shutdownSeconds);
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Collections.emptyList())
+                .bindTo(meterRegistry);
+        return executor;
+    }
 }
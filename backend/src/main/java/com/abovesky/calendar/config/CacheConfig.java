@@ -1,87 +1,274 @@
 package com.abovesky.calendar.config;
 
+import com.abovesky.calendar.cache.BinaryCacheSerializer;
+import com.abovesky.calendar.cache.CacheInvalidationBus;
+import com.abovesky.calendar.cache.EventDtoCodec;
+import com.abovesky.calendar.cache.TaskDtoCodec;
+import com.abovesky.calendar.cache.TwoTierCache;
+import com.abovesky.calendar.cache.TwoTierCacheManager;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Redis Cache Configuration for Above Sky Calendar
- * Configures caching with different TTL policies for different data types
+ * Configures caching with different TTL policies for different data types.
+ * Hot entries are additionally kept in a short-lived in-process near cache, invalidated across nodes over Redis pub/sub.
+ * The caching advisor runs outside the transaction advisor, so a cache hit on a {@code @Transactional @Cacheable}
+ * read never opens a transaction or borrows a connection.
  */
+@Slf4j
 @Configuration
-@EnableCaching
+@EnableCaching(order = CacheConfig.CACHING_ORDER)
+@EnableTransactionManagement(proxyTargetClass = true, order = CacheConfig.TRANSACTION_ORDER)
 public class CacheConfig extends CachingConfigurerSupport {
 
+    static final int CACHING_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+    static final int TRANSACTION_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    @Value("${cache.near.ttl-seconds:60}")
+    private long nearCacheTtlSeconds;
+
+    @Value("${cache.near.maximum-size:10000}")
+    private long nearCacheMaximumSize;
+
+    @Value("${cache.near.channel:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${cache.near.subscribe-retry-seconds:5}")
+    private long invalidationRetrySeconds;
+
+    @Value("${cache.binary.caches:events,tasks}")
+    private List<String> binaryCaches;
+
+    @Value("${cache.binary.compression-threshold-bytes:1024}")
+    private int compressionThresholdBytes;
+
+    @Value("${cache.refresh.beta:1.0}")
+    private double refreshBeta;
+
     /**
-     * Configure Redis Cache Manager with custom cache configurations
+     * Configure the two-tier cache manager: an in-process Caffeine L1 per cache in front of Redis (L2)
+     * with custom cache configurations
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, CacheInvalidationBus invalidationBus) {
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(cacheObjectMapper());
+
         // Default cache configuration (5 minutes TTL)
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(5))
+                .entryTtl(DEFAULT_TTL)
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(
-                                new GenericJackson2JsonRedisSerializer()))
+                        RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
                 .disableCachingNullValues();
 
-        // Specific cache configurations for different data types
-        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        // Caches holding DTOs with a binary codec; other values in them still fall back to JSON
+        RedisCacheConfiguration binaryConfig = defaultConfig.serializeValuesWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(new BinaryCacheSerializer(
+                        List.of(new EventDtoCodec(), new TaskDtoCodec()), jsonSerializer, compressionThresholdBytes)));
+
+        // Specific TTLs for different data types
+        Map<String, Duration> cacheTtls = new HashMap<>();
 
         // User data - cache for 15 minutes
-        cacheConfigurations.put("users",
-                defaultConfig.entryTtl(Duration.ofMinutes(15)));
+        cacheTtls.put("users", Duration.ofMinutes(15));
 
         // Events - cache for 10 minutes (frequently changing)
-        cacheConfigurations.put("events",
-                defaultConfig.entryTtl(Duration.ofMinutes(10)));
+        cacheTtls.put("events", Duration.ofMinutes(10));
 
         // Tasks - cache for 10 minutes
-        cacheConfigurations.put("tasks",
-                defaultConfig.entryTtl(Duration.ofMinutes(10)));
+        cacheTtls.put("tasks", Duration.ofMinutes(10));
 
         // Rewards - cache for 30 minutes (less frequently changing)
-        cacheConfigurations.put("rewards",
-                defaultConfig.entryTtl(Duration.ofMinutes(30)));
+        cacheTtls.put("rewards", Duration.ofMinutes(30));
 
         // Meals - cache for 20 minutes
-        cacheConfigurations.put("meals",
-                defaultConfig.entryTtl(Duration.ofMinutes(20)));
+        cacheTtls.put("meals", Duration.ofMinutes(20));
 
         // Photos - cache for 60 minutes (rarely changing once uploaded)
-        cacheConfigurations.put("photos",
-                defaultConfig.entryTtl(Duration.ofMinutes(60)));
+        cacheTtls.put("photos", Duration.ofMinutes(60));
 
         // Lists - cache for 10 minutes
-        cacheConfigurations.put("lists",
-                defaultConfig.entryTtl(Duration.ofMinutes(10)));
+        cacheTtls.put("lists", Duration.ofMinutes(10));
 
         // Dashboard data - cache for 5 minutes (aggregated data)
-        cacheConfigurations.put("dashboard",
-                defaultConfig.entryTtl(Duration.ofMinutes(5)));
+        cacheTtls.put("dashboard", Duration.ofMinutes(5));
 
         // Metrics - cache for 2 minutes (real-time data)
-        cacheConfigurations.put("metrics",
-                defaultConfig.entryTtl(Duration.ofMinutes(2)));
+        cacheTtls.put("metrics", Duration.ofMinutes(2));
+
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        cacheTtls.forEach((name, ttl) -> cacheConfigurations.put(name,
+                (binaryCaches.contains(name) ? binaryConfig : defaultConfig).entryTtl(ttl)));
 
-        return RedisCacheManager.builder(connectionFactory)
+        // SCAN instead of KEYS when a whole cache is cleared, so Redis is never blocked
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+                connectionFactory, BatchStrategies.scan(1000));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
-                .transactionAware()
+                .enableStatistics()
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, invalidationBus,
+                cacheTtls, DEFAULT_TTL, Duration.ofSeconds(nearCacheTtlSeconds), nearCacheMaximumSize,
+                refreshBeta);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        return new CacheInvalidationBus(redisTemplate, invalidationChannel);
+    }
+
+    /**
+     * Subscribes to cache invalidations published by the other nodes. Starts without Redis and subscribes once it is
+     * reachable; until then, writes on other nodes reach this node's L1 only through its TTL
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationBus invalidationBus) {
+        RedisMessageListenerContainer container = new RetryingListenerContainer(
+                Duration.ofSeconds(invalidationRetrySeconds));
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(invalidationBus, new ChannelTopic(invalidationBus.getChannel()));
+        return container;
+    }
+
+    /**
+     * Hit and miss gauges per cache: cache.near.* for the in-process L1, cache.* for Redis;
+     * plus counters for coalesced loads, early refreshes and failed Redis reads
+     */
+    @Bean
+    public MeterBinder cacheStatisticsMetrics(CacheManager cacheManager) {
+        return registry -> {
+            for (String name : cacheManager.getCacheNames()) {
+                TwoTierCache cache = unwrap(cacheManager.getCache(name));
+                if (cache == null) {
+                    continue;
+                }
+                com.github.benmanes.caffeine.cache.Cache<String, byte[]> local = cache.getLocalCache();
+                Gauge.builder("cache.near.hits", local, c -> c.stats().hitCount())
+                        .tag("cache", name)
+                        .register(registry);
+                Gauge.builder("cache.near.misses", local, c -> c.stats().missCount())
+                        .tag("cache", name)
+                        .register(registry);
+                FunctionCounter.builder("cache.load.coalesced", cache, TwoTierCache::getCoalescedWaits)
+                        .tag("cache", name)
+                        .register(registry);
+                FunctionCounter.builder("cache.refresh.early", cache, TwoTierCache::getEarlyRefreshes)
+                        .tag("cache", name)
+                        .register(registry);
+                FunctionCounter.builder("cache.remote.errors", cache, TwoTierCache::getRemoteErrors)
+                        .tag("cache", name)
+                        .register(registry);
+                if (cache.getRemoteCache() instanceof RedisCache remote) {
+                    registerGauge(registry, "cache.hits", name, remote, CacheStatistics::getHits);
+                    registerGauge(registry, "cache.misses", name, remote, CacheStatistics::getMisses);
+                }
+            }
+        };
+    }
+
+    /**
+     * Treat Redis failures as cache misses so the application keeps working from the database
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new CacheErrorHandler() {
+            @Override
+            public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+                log.warn("Cache get failed for {}::{}: {}", cache.getName(), key, exception.getMessage());
+            }
+
+            @Override
+            public void handleCachePutError(RuntimeException exception, Cache cache, Object key, Object value) {
+                log.warn("Cache put failed for {}::{}: {}", cache.getName(), key, exception.getMessage());
+            }
+
+            @Override
+            public void handleCacheEvictError(RuntimeException exception, Cache cache, Object key) {
+                log.error("Cache evict failed for {}::{}: {}", cache.getName(), key, exception.getMessage());
+            }
+
+            @Override
+            public void handleCacheClearError(RuntimeException exception, Cache cache) {
+                log.error("Cache clear failed for {}: {}", cache.getName(), exception.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Jackson mapper for cached values: Java time support plus type information, so cached DTOs
+     * and lists deserialize back to their original classes
+     */
+    public static ObjectMapper cacheObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.activateDefaultTyping(
+                BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+                ObjectMapper.DefaultTyping.EVERYTHING,
+                JsonTypeInfo.As.PROPERTY);
+        return mapper;
+    }
+
+    private static void registerGauge(MeterRegistry registry, String metric,
+                                      String cacheName, RedisCache cache, ToDoubleFunction<CacheStatistics> value) {
+        Gauge.builder(metric, cache, c -> value.applyAsDouble(c.getStatistics()))
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+
+    private static TwoTierCache unwrap(Cache cache) {
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        return cache instanceof TwoTierCache twoTierCache ? twoTierCache : null;
     }
 }
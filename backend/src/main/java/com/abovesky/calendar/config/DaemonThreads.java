@@ -0,0 +1,46 @@
+package com.abovesky.calendar.config;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named daemon threads for the background work components run on their own (pollers, sweepers, the reminder
+ * wheel). Daemon threads never hold up JVM exit; each component still stops its executor on shutdown.
+ */
+public final class DaemonThreads {
+
+    private DaemonThreads() {
+    }
+
+    /**
+     * Single-threaded scheduler whose thread is named {@code name}
+     */
+    public static ScheduledExecutorService singleThreadScheduler(String name) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, name));
+    }
+
+    /**
+     * Factory naming its threads {@code prefix-1}, {@code prefix-2}, ...
+     */
+    public static ThreadFactory numbered(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> daemon(runnable, prefix + "-" + counter.incrementAndGet());
+    }
+
+    /**
+     * Run a one-off task on a thread of its own
+     */
+    public static Thread start(String name, Runnable task) {
+        Thread thread = daemon(task, name);
+        thread.start();
+        return thread;
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -1,7 +1,12 @@
 package com.abovesky.calendar.config;
 
+import com.abovesky.calendar.security.TokenRevocationList;
+import com.abovesky.calendar.service.AuthenticatedUser;
 import com.abovesky.calendar.service.JwtService;
+import com.abovesky.calendar.service.TokenAuthenticationCache;
 import com.abovesky.calendar.service.UserService;
+import com.abovesky.calendar.service.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +28,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserService userService;
+    private final TokenAuthenticationCache tokenAuthenticationCache;
+    private final TokenRevocationList revocationList;
 
     @Override
     protected void doFilterInternal(
@@ -32,31 +39,68 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
 
         jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userService.loadUserByUsername(username);
-
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        // Steady state: a token seen before resolves without a signature check
+        UserDetails userDetails = tokenAuthenticationCache.get(jwt);
+        if (userDetails == null) {
+            userDetails = verifyAndResolve(jwt);
+        }
+        // Checked on cache hits too: the revocation may have come from another node
+        if (userDetails instanceof AuthenticatedUser principal && revocationList.isRevoked(principal.tokenId())) {
+            tokenAuthenticationCache.invalidate(jwt);
+            userDetails = null;
+        }
+
+        if (userDetails != null) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    null,
+                    userDetails.getAuthorities()
+            );
+            authToken.setDetails(
+                    new WebAuthenticationDetailsSource().buildDetails(request)
+            );
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Verify a token not seen before and build its principal from the claims; returns null when the token is not
+     * acceptable
+     */
+    private UserDetails verifyAndResolve(String jwt) {
+        // Parse and verify once; the result is reused for every check below
+        final VerifiedToken token;
+        try {
+            token = jwtService.verify(jwt);
+        } catch (JwtException e) {
+            // Invalid or expired: continue unauthenticated and let the security rules reject the request
+            return null;
+        }
+        if (token.subject() == null) {
+            return null;
+        }
+        UserDetails principal = jwtService.principalOf(token);
+        if (principal == null) {
+            // Issued before tokens carried the user claims: resolve the user once, the cache covers later requests
+            try {
+                principal = AuthenticatedUser.of(userService.findByUsername(token.subject()), token.claims().getId());
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        if (!jwtService.isTokenValid(token, principal)) {
+            return null;
+        }
+        tokenAuthenticationCache.put(jwt, principal, token.expiresAt());
+        return principal;
+    }
 }
@@ -45,6 +45,9 @@ public class LocaleConfig {
         messageSource.setBasename("i18n/messages");
         messageSource.setDefaultEncoding("UTF-8");
         messageSource.setUseCodeAsDefaultMessage(true);
+        // English lives in the base bundle; without this a server whose default locale is, say, German would answer
+        // "en" from messages_de
+        messageSource.setFallbackToSystemLocale(false);
         messageSource.setCacheSeconds(3600); // Cache for 1 hour
         return messageSource;
     }
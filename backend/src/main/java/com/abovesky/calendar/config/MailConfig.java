@@ -0,0 +1,43 @@
+package com.abovesky.calendar.config;
+
+import com.abovesky.calendar.mail.FakeMailTransport;
+import com.abovesky.calendar.mail.MailTransport;
+import com.abovesky.calendar.mail.SendGridMailTransport;
+import com.abovesky.calendar.mail.SmtpMailTransport;
+import com.sendgrid.SendGrid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.javamail.JavaMailSender;
+
+/**
+ * Transport the email outbox delivers through, chosen by {@code mail.transport}:
+ * {@code smtp} (spring.mail settings), {@code sendgrid} (sendgrid.* settings) or {@code fake} (kept in memory)
+ */
+@Slf4j
+@Configuration
+public class MailConfig {
+
+    @Value("${mail.transport:smtp}")
+    private String transport;
+
+    @Value("${spring.mail.username:noreply@aboveskycalendar.com}")
+    private String fromEmail;
+
+    @Bean
+    public MailTransport mailTransport(ObjectProvider<JavaMailSender> mailSender, Environment environment) {
+        log.info("Delivering email through {}", transport);
+        return switch (transport) {
+            case "sendgrid" -> new SendGridMailTransport(
+                    new SendGrid(environment.getRequiredProperty("sendgrid.api-key")),
+                    environment.getRequiredProperty("sendgrid.from-email"),
+                    environment.getProperty("sendgrid.from-name", "Above Sky Calendar"));
+            case "fake" -> new FakeMailTransport();
+            case "smtp" -> new SmtpMailTransport(mailSender.getObject(), fromEmail);
+            default -> throw new IllegalStateException("Unknown mail.transport: " + transport);
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.abovesky.calendar.config;
+
+import com.abovesky.calendar.security.InMemoryOneTimeTokenStore;
+import com.abovesky.calendar.security.OneTimeTokenStore;
+import com.abovesky.calendar.security.RedisOneTimeTokenStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Store for email OTPs and reset tokens, chosen by {@code auth.one-time-tokens.store}: {@code redis} (shared by
+ * all nodes) or {@code memory} (this node only)
+ */
+@Slf4j
+@Configuration
+public class OneTimeTokenConfig {
+
+    @Value("${auth.one-time-tokens.store:memory}")
+    private String store;
+
+    @Value("${auth.one-time-tokens.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${auth.one-time-tokens.key-prefix:auth:one-time:}")
+    private String keyPrefix;
+
+    @Value("${auth.one-time-tokens.maximum-size:100000}")
+    private long maximumSize;
+
+    @Bean
+    public OneTimeTokenStore oneTimeTokenStore(ObjectProvider<StringRedisTemplate> redisTemplate) {
+        log.info("Keeping one-time tokens in {}", store);
+        return switch (store) {
+            case "redis" -> new RedisOneTimeTokenStore(redisTemplate.getObject(), keyPrefix, maxAttempts);
+            case "memory" -> new InMemoryOneTimeTokenStore(maximumSize, maxAttempts);
+            default -> throw new IllegalStateException("Unknown auth.one-time-tokens.store: " + store);
+        };
+    }
+}
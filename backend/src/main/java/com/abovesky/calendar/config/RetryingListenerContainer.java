@@ -0,0 +1,75 @@
+package com.abovesky.calendar.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener container that does not fail startup when Redis is unreachable.
+ * The plain container gives up after a failed first subscription; this one keeps retrying in the background.
+ */
+@Slf4j
+public class RetryingListenerContainer extends RedisMessageListenerContainer {
+
+    private final Duration retryInterval;
+    private ScheduledExecutorService retries;
+
+    public RetryingListenerContainer(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public void start() {
+        try {
+            super.start();
+        } catch (RuntimeException e) {
+            log.warn("Redis subscription failed, retrying every {}s: {}",
+                    retryInterval.toSeconds(), e.getMessage());
+            scheduleRetries();
+        }
+    }
+
+    @Override
+    public void stop() {
+        cancelRetries();
+        super.stop();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        cancelRetries();
+        super.destroy();
+    }
+
+    private synchronized void scheduleRetries() {
+        if (retries != null) {
+            return;
+        }
+        retries = DaemonThreads.singleThreadScheduler("redis-subscription-retry");
+        long millis = retryInterval.toMillis();
+        retries.scheduleWithFixedDelay(this::retry, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancelRetries() {
+        if (retries != null) {
+            retries.shutdownNow();
+            retries = null;
+        }
+    }
+
+    private void retry() {
+        try {
+            super.stop();
+            super.start();
+        } catch (RuntimeException e) {
+            log.debug("Redis subscription retry failed: {}", e.getMessage());
+        }
+        if (isListening()) {
+            log.info("Redis subscription established");
+            cancelRetries();
+        }
+    }
+}
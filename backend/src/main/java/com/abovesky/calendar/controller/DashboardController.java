@@ -1,6 +1,9 @@
 package com.abovesky.calendar.controller;
 
-import com.abovesky.calendar.repository.*;
+import com.abovesky.calendar.counter.DashboardCounters;
+import com.abovesky.calendar.projection.UserDashboardMetrics;
+import com.abovesky.calendar.repository.DashboardCounterRepository;
+import com.abovesky.calendar.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,29 +16,15 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class DashboardController {
 
-    private final EventRepository eventRepository;
-    private final TaskRepository taskRepository;
-    private final RewardRepository rewardRepository;
-    private final RewardRedemptionRepository redemptionRepository;
-    private final MealRepository mealRepository;
-    private final PhotoRepository photoRepository;
-    private final FamilyListRepository listRepository;
+    private final DashboardCounters dashboardCounters;
+    private final DashboardCounterRepository counterRepository;
     private final UserRepository userRepository;
 
     @GetMapping("/metrics")
     public ResponseEntity<Map<String, Object>> getDashboardMetrics() {
-        Map<String, Object> metrics = new HashMap<>();
+        Map<String, Object> metrics = new HashMap<>(dashboardCounters.familyMetrics());
         
-        metrics.put("totalEvents", eventRepository.count());
-        metrics.put("totalTasks", taskRepository.count());
-        metrics.put("pendingTasks", taskRepository.findByStatus("pending").size());
-        metrics.put("completedTasks", taskRepository.findByStatus("completed").size());
-        metrics.put("totalRewards", rewardRepository.count());
-        metrics.put("activeRewards", rewardRepository.findByIsActive(true).size());
-        metrics.put("totalMeals", mealRepository.count());
-        metrics.put("totalPhotos", photoRepository.count());
-        metrics.put("totalLists", listRepository.count());
-        metrics.put("activeLists", listRepository.findByIsArchivedFalse().size());
+        // A household has a handful of members, so a plain count is as cheap as a counter
         metrics.put("totalUsers", userRepository.count());
         
         return ResponseEntity.ok(metrics);
@@ -45,15 +34,16 @@ public class DashboardController {
     public ResponseEntity<Map<String, Object>> getUserMetrics(@PathVariable Long userId) {
         Map<String, Object> metrics = new HashMap<>();
         
-        var user = userRepository.findById(userId)
+        // Polled by every kiosk tablet: a single statement, no entity hydration
+        UserDashboardMetrics userMetrics = counterRepository.findUserMetrics(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        metrics.put("rewardPoints", user.getRewardPoints());
-        metrics.put("assignedTasks", taskRepository.findByAssignedUserId(userId).size());
-        metrics.put("completedTasks", taskRepository.findByAssignedUserIdAndStatus(userId, "completed").size());
-        metrics.put("pendingTasks", taskRepository.findByAssignedUserIdAndStatus(userId, "pending").size());
-        metrics.put("redemptions", redemptionRepository.findByUserId(userId).size());
-        metrics.put("uploadedPhotos", photoRepository.findByUploadedBy(userId).size());
+        metrics.put("rewardPoints", userMetrics.getRewardPoints());
+        metrics.put("assignedTasks", userMetrics.getAssignedTasks());
+        metrics.put("completedTasks", userMetrics.getCompletedTasks());
+        metrics.put("pendingTasks", userMetrics.getPendingTasks());
+        metrics.put("redemptions", userMetrics.getRedemptions());
+        metrics.put("uploadedPhotos", userMetrics.getUploadedPhotos());
         
         return ResponseEntity.ok(metrics);
     }
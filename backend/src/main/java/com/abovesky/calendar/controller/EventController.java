@@ -1,14 +1,16 @@
 package com.abovesky.calendar.controller;
 
 import com.abovesky.calendar.dto.EventDto;
-import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.dto.FreeBusyDto;
 import com.abovesky.calendar.service.EventService;
 import com.abovesky.calendar.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -20,17 +22,75 @@ public class EventController {
     private final UserService userService;
 
     @GetMapping
-    public ResponseEntity<List<EventDto>> getAllEvents(Authentication authentication) {
+    public ResponseEntity<List<EventDto>> getAllEvents(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Authentication authentication
+    ) {
         try {
-            String username = authentication.getName();
-            User user = userService.findByUsername(username);
-            List<EventDto> events = eventService.getAllEventsByUserId(user.getId());
+            Long userId = userService.currentUserId(authentication);
+            List<EventDto> events = from != null && to != null
+                    ? eventService.getEventsInWindow(userId, from, to)
+                    : eventService.getAllEventsByUserId(userId);
             return ResponseEntity.ok(events);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @GetMapping("/recurring")
+    public ResponseEntity<List<EventDto>> getRecurringEvents(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Authentication authentication
+    ) {
+        try {
+            Long userId = userService.currentUserId(authentication);
+            if (from == null || to == null) {
+                // Without a window, return the recurring series definitions themselves
+                return ResponseEntity.ok(eventService.getRecurringEventsByUserId(userId));
+            }
+            return ResponseEntity.ok(eventService.getRecurringOccurrences(userId, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/conflicts")
+    public ResponseEntity<List<EventDto>> getConflicts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<Long> members,
+            @RequestParam(required = false) Long excludeEventId,
+            Authentication authentication
+    ) {
+        try {
+            List<Long> memberIds = members != null && !members.isEmpty()
+                    ? members
+                    : List.of(userService.currentUserId(authentication));
+            return ResponseEntity.ok(eventService.findConflicts(memberIds, from, to, excludeEventId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/free-busy")
+    public ResponseEntity<List<FreeBusyDto>> getFreeBusy(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<Long> members,
+            Authentication authentication
+    ) {
+        try {
+            List<Long> memberIds = members != null && !members.isEmpty()
+                    ? members
+                    : List.of(userService.currentUserId(authentication));
+            return ResponseEntity.ok(eventService.getFreeBusy(memberIds, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<EventDto> getEventById(@PathVariable Long id) {
         try {
@@ -47,9 +107,7 @@ public class EventController {
             Authentication authentication
     ) {
         try {
-            String username = authentication.getName();
-            User user = userService.findByUsername(username);
-            eventDto.setUserId(user.getId());
+            eventDto.setUserId(userService.currentUserId(authentication));
             EventDto createdEvent = eventService.createEvent(eventDto);
             return ResponseEntity.ok(createdEvent);
         } catch (RuntimeException e) {
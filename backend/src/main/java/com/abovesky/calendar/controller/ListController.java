@@ -2,6 +2,7 @@ package com.abovesky.calendar.controller;
 
 import com.abovesky.calendar.dto.FamilyListDto;
 import com.abovesky.calendar.dto.ListItemDto;
+import com.abovesky.calendar.pagination.CursorPage;
 import com.abovesky.calendar.service.ListService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -18,8 +19,19 @@ public class ListController {
     private final ListService listService;
 
     // List endpoints
+    /**
+     * Everything, or one keyset page when {@code cursor} or {@code limit} is given (next cursor in the
+     * {@value CursorPage#NEXT_CURSOR_HEADER} header)
+     */
     @GetMapping
-    public ResponseEntity<List<FamilyListDto>> getAllLists() {
+    public ResponseEntity<List<FamilyListDto>> getAllLists(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        if (cursor != null || limit != null) {
+            return listService.getListsPage(sort, direction, cursor, limit).toResponse();
+        }
         return ResponseEntity.ok(listService.getAllLists());
     }
 
@@ -1,6 +1,7 @@
 package com.abovesky.calendar.controller;
 
 import com.abovesky.calendar.dto.PhotoDto;
+import com.abovesky.calendar.pagination.CursorPage;
 import com.abovesky.calendar.service.PhotoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -16,8 +17,19 @@ public class PhotoController {
 
     private final PhotoService photoService;
 
+    /**
+     * Everything, or one keyset page when {@code cursor} or {@code limit} is given (next cursor in the
+     * {@value CursorPage#NEXT_CURSOR_HEADER} header)
+     */
     @GetMapping
-    public ResponseEntity<List<PhotoDto>> getAllPhotos() {
+    public ResponseEntity<List<PhotoDto>> getAllPhotos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        if (cursor != null || limit != null) {
+            return photoService.getPhotosPage(sort, direction, cursor, limit).toResponse();
+        }
         return ResponseEntity.ok(photoService.getAllPhotos());
     }
 
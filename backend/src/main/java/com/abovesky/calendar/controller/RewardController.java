@@ -2,6 +2,7 @@ package com.abovesky.calendar.controller;
 
 import com.abovesky.calendar.dto.RewardDto;
 import com.abovesky.calendar.dto.RewardRedemptionDto;
+import com.abovesky.calendar.pagination.CursorPage;
 import com.abovesky.calendar.service.RewardService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -18,8 +19,19 @@ public class RewardController {
 
     private final RewardService rewardService;
 
+    /**
+     * Everything, or one keyset page when {@code cursor} or {@code limit} is given (next cursor in the
+     * {@value CursorPage#NEXT_CURSOR_HEADER} header)
+     */
     @GetMapping
-    public ResponseEntity<List<RewardDto>> getAllRewards() {
+    public ResponseEntity<List<RewardDto>> getAllRewards(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        if (cursor != null || limit != null) {
+            return rewardService.getRewardsPage(sort, direction, cursor, limit).toResponse();
+        }
         return ResponseEntity.ok(rewardService.getAllRewards());
     }
 
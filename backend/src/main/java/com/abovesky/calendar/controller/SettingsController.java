@@ -3,10 +3,12 @@ package com.abovesky.calendar.controller;
 import com.abovesky.calendar.api.SettingsApi;
 import com.abovesky.calendar.api.model.*;
 import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.exception.HashingCapacityException;
 import com.abovesky.calendar.repository.UserRepository;
-import com.abovesky.calendar.service.EmailService;
 import com.abovesky.calendar.service.ModeService;
 import com.abovesky.calendar.service.PinService;
+import com.abovesky.calendar.service.RefreshTokenService;
+import com.abovesky.calendar.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,8 +27,9 @@ public class SettingsController implements SettingsApi {
 
     private final ModeService modeService;
     private final PinService pinService;
-    private final EmailService emailService;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
 
     @Value("${app.base-url:http://localhost:4200}")
     private String baseUrl;
@@ -83,7 +86,7 @@ public class SettingsController implements SettingsApi {
             response.setHasPinSet(modeService.hasPinSet());
             return ResponseEntity.ok(response);
             
-        } catch (ResponseStatusException e) {
+        } catch (ResponseStatusException | HashingCapacityException e) {
             throw e;
         } catch (Exception e) {
             log.error("Error switching mode", e);
@@ -116,7 +119,7 @@ public class SettingsController implements SettingsApi {
             response.setMessage("PIN set successfully");
             return ResponseEntity.ok(response);
             
-        } catch (ResponseStatusException e) {
+        } catch (ResponseStatusException | HashingCapacityException e) {
             throw e;
         } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
@@ -129,8 +132,6 @@ public class SettingsController implements SettingsApi {
     @Override
     public ResponseEntity<RequestPinReset200Response> requestPinReset() {
         try {
-            User user = modeService.getCurrentUserEntity();
-            
             if (!modeService.hasPinSet()) {
                 throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, 
@@ -138,17 +139,8 @@ public class SettingsController implements SettingsApi {
                 );
             }
             
-            // Generate and save reset token
-            pinService.setResetToken(user);
-            userRepository.save(user);
-            
-            // Send reset email
-            emailService.sendPinResetEmail(
-                user.getEmail(), 
-                user.getDisplayName() != null ? user.getDisplayName() : user.getUsername(),
-                user.getPinResetToken(),
-                baseUrl
-            );
+            // Generate and save reset token, queueing the reset email with it
+            modeService.requestPinReset(baseUrl);
             
             RequestPinReset200Response response = new RequestPinReset200Response();
             response.setMessage("Reset email sent successfully");
@@ -186,6 +178,7 @@ public class SettingsController implements SettingsApi {
             if (!pinService.isResetTokenValid(user)) {
                 pinService.clearResetToken(user);
                 userRepository.save(user);
+                userService.evictUser(user);
                 throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, 
                     "Reset token has expired"
@@ -196,12 +189,15 @@ public class SettingsController implements SettingsApi {
             user.setParentModePin(pinService.hashPin(newPin));
             pinService.clearResetToken(user);
             userRepository.save(user);
+            userService.evictUser(user);
+            // End every session too: a PIN is usually reset because a device or the PIN fell into the wrong hands
+            refreshTokenService.revokeAll(user.getId());
             
             ResetPin200Response response = new ResetPin200Response();
             response.setMessage("PIN reset successfully");
             return ResponseEntity.ok(response);
             
-        } catch (ResponseStatusException e) {
+        } catch (ResponseStatusException | HashingCapacityException e) {
             throw e;
         } catch (Exception e) {
             log.error("Error resetting PIN", e);
@@ -1,6 +1,7 @@
 package com.abovesky.calendar.controller;
 
 import com.abovesky.calendar.dto.TaskDto;
+import com.abovesky.calendar.pagination.CursorPage;
 import com.abovesky.calendar.service.TaskService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -16,8 +17,19 @@ public class TaskController {
 
     private final TaskService taskService;
 
+    /**
+     * Everything, or one keyset page when {@code cursor} or {@code limit} is given (next cursor in the
+     * {@value CursorPage#NEXT_CURSOR_HEADER} header)
+     */
     @GetMapping
-    public ResponseEntity<List<TaskDto>> getAllTasks() {
+    public ResponseEntity<List<TaskDto>> getAllTasks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        if (cursor != null || limit != null) {
+            return taskService.getTasksPage(sort, direction, cursor, limit).toResponse();
+        }
         return ResponseEntity.ok(taskService.getAllTasks());
     }
 
@@ -1,5 +1,6 @@
 package com.abovesky.calendar.controller;
 
+import com.abovesky.calendar.dto.UserDto;
 import com.abovesky.calendar.entity.User;
 import com.abovesky.calendar.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -15,30 +16,21 @@ public class UserController {
     private final UserService userService;
 
     @GetMapping("/me")
-    public ResponseEntity<User> getCurrentUser(Authentication authentication) {
+    public ResponseEntity<UserDto> getCurrentUser(Authentication authentication) {
         try {
-            String username = authentication.getName();
-            User user = userService.findByUsername(username);
-            // Remove password from response
-            user.setPassword(null);
-            return ResponseEntity.ok(user);
+            return ResponseEntity.ok(userService.findById(userService.currentUserId(authentication)));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PutMapping("/me")
-    public ResponseEntity<User> updateCurrentUser(
+    public ResponseEntity<UserDto> updateCurrentUser(
             @RequestBody User userDetails,
             Authentication authentication
     ) {
         try {
-            String username = authentication.getName();
-            User currentUser = userService.findByUsername(username);
-            User updatedUser = userService.updateUser(currentUser.getId(), userDetails);
-            // Remove password from response
-            updatedUser.setPassword(null);
-            return ResponseEntity.ok(updatedUser);
+            return ResponseEntity.ok(userService.updateUser(userService.currentUserId(authentication), userDetails));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -0,0 +1,17 @@
+package com.abovesky.calendar.counter;
+
+/**
+ * One counter: a metric for the whole family (owner 0) or for one user
+ */
+public record CounterKey(DashboardMetric metric, long ownerId) {
+
+    public static final long FAMILY_OWNER = 0;
+
+    public static CounterKey family(DashboardMetric metric) {
+        return new CounterKey(metric, FAMILY_OWNER);
+    }
+
+    public static CounterKey user(DashboardMetric metric, long userId) {
+        return new CounterKey(metric, userId);
+    }
+}
@@ -0,0 +1,57 @@
+package com.abovesky.calendar.counter;
+
+import com.abovesky.calendar.config.DaemonThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically recounts the dashboard counters, starting right after startup so missing rows are seeded
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CounterReconciler {
+
+    private final DashboardCounters dashboardCounters;
+
+    @Value("${counters.reconcile-enabled:true}")
+    private boolean enabled;
+
+    @Value("${counters.reconcile-minutes:60}")
+    private long reconcileMinutes;
+
+    private ScheduledExecutorService executor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+        executor = DaemonThreads.singleThreadScheduler("counter-reconciler");
+        executor.scheduleWithFixedDelay(this::reconcile, 0, reconcileMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void reconcile() {
+        try {
+            dashboardCounters.reconcile();
+        } catch (RuntimeException e) {
+            // e.g. another node seeding the same rows concurrently; the next run catches up
+            log.warn("Dashboard counter reconciliation failed: {}", e.getMessage());
+        }
+    }
+}
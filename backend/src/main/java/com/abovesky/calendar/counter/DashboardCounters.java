@@ -0,0 +1,230 @@
+package com.abovesky.calendar.counter;
+
+import com.abovesky.calendar.counter.DashboardMetric.Scope;
+import com.abovesky.calendar.entity.DashboardCounter;
+import com.abovesky.calendar.entity.Event;
+import com.abovesky.calendar.entity.FamilyList;
+import com.abovesky.calendar.entity.Meal;
+import com.abovesky.calendar.entity.Photo;
+import com.abovesky.calendar.entity.Reward;
+import com.abovesky.calendar.entity.RewardRedemption;
+import com.abovesky.calendar.entity.Task;
+import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.repository.DashboardCounterRepository;
+import com.abovesky.calendar.repository.EventRepository;
+import com.abovesky.calendar.repository.FamilyListRepository;
+import com.abovesky.calendar.repository.MealRepository;
+import com.abovesky.calendar.repository.PhotoRepository;
+import com.abovesky.calendar.repository.RewardRedemptionRepository;
+import com.abovesky.calendar.repository.RewardRepository;
+import com.abovesky.calendar.repository.TaskRepository;
+import com.abovesky.calendar.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materialized dashboard counters.
+ * Service mutations report the counters an entity contributes to before and after the change (see the
+ * {@code keysOf} methods); the differences are applied in the caller's transaction, so a rolled back mutation
+ * leaves the counters untouched. Counter rows are created by {@link #reconcile()}, which also corrects any drift;
+ * until a row exists, increments to it are skipped and reads fall back to a count query.
+ * Per-user figures are read in one statement by {@link DashboardCounterRepository#findUserMetrics}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardCounters {
+
+    private static final String PENDING = "pending";
+    private static final String COMPLETED = "completed";
+
+    private final DashboardCounterRepository counterRepository;
+    private final EventRepository eventRepository;
+    private final TaskRepository taskRepository;
+    private final RewardRepository rewardRepository;
+    private final RewardRedemptionRepository redemptionRepository;
+    private final MealRepository mealRepository;
+    private final PhotoRepository photoRepository;
+    private final FamilyListRepository listRepository;
+    private final UserRepository userRepository;
+
+    public static List<CounterKey> keysOf(Event event) {
+        return List.of(CounterKey.family(DashboardMetric.TOTAL_EVENTS));
+    }
+
+    public static List<CounterKey> keysOf(Task task) {
+        List<CounterKey> keys = new ArrayList<>();
+        keys.add(CounterKey.family(DashboardMetric.TOTAL_TASKS));
+        if (PENDING.equals(task.getStatus())) {
+            keys.add(CounterKey.family(DashboardMetric.PENDING_TASKS));
+        } else if (COMPLETED.equals(task.getStatus())) {
+            keys.add(CounterKey.family(DashboardMetric.COMPLETED_TASKS));
+        }
+        Long userId = task.getAssignedUserId();
+        if (userId != null) {
+            keys.add(CounterKey.user(DashboardMetric.USER_ASSIGNED_TASKS, userId));
+            if (PENDING.equals(task.getStatus())) {
+                keys.add(CounterKey.user(DashboardMetric.USER_PENDING_TASKS, userId));
+            } else if (COMPLETED.equals(task.getStatus())) {
+                keys.add(CounterKey.user(DashboardMetric.USER_COMPLETED_TASKS, userId));
+            }
+        }
+        return keys;
+    }
+
+    public static List<CounterKey> keysOf(Reward reward) {
+        return Boolean.TRUE.equals(reward.getIsActive())
+                ? List.of(CounterKey.family(DashboardMetric.TOTAL_REWARDS),
+                          CounterKey.family(DashboardMetric.ACTIVE_REWARDS))
+                : List.of(CounterKey.family(DashboardMetric.TOTAL_REWARDS));
+    }
+
+    public static List<CounterKey> keysOf(RewardRedemption redemption) {
+        return List.of(CounterKey.user(DashboardMetric.USER_REDEMPTIONS, redemption.getUserId()));
+    }
+
+    public static List<CounterKey> keysOf(Meal meal) {
+        return List.of(CounterKey.family(DashboardMetric.TOTAL_MEALS));
+    }
+
+    public static List<CounterKey> keysOf(Photo photo) {
+        return photo.getUploadedBy() != null
+                ? List.of(CounterKey.family(DashboardMetric.TOTAL_PHOTOS),
+                          CounterKey.user(DashboardMetric.USER_UPLOADED_PHOTOS, photo.getUploadedBy()))
+                : List.of(CounterKey.family(DashboardMetric.TOTAL_PHOTOS));
+    }
+
+    public static List<CounterKey> keysOf(FamilyList list) {
+        // Mirrors findByIsArchivedFalse: lists with a null flag are not active
+        return Boolean.FALSE.equals(list.getIsArchived())
+                ? List.of(CounterKey.family(DashboardMetric.TOTAL_LISTS),
+                          CounterKey.family(DashboardMetric.ACTIVE_LISTS))
+                : List.of(CounterKey.family(DashboardMetric.TOTAL_LISTS));
+    }
+
+    @Transactional
+    public void added(List<CounterKey> keys) {
+        changed(List.of(), keys);
+    }
+
+    @Transactional
+    public void removed(List<CounterKey> keys) {
+        changed(keys, List.of());
+    }
+
+    /**
+     * Apply the difference between the counters an entity contributed to before and after a mutation
+     */
+    @Transactional
+    public void changed(List<CounterKey> before, List<CounterKey> after) {
+        Map<CounterKey, Long> deltas = new HashMap<>();
+        before.forEach(key -> deltas.merge(key, -1L, Long::sum));
+        after.forEach(key -> deltas.merge(key, 1L, Long::sum));
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                counterRepository.increment(key.metric().getScope().getKey(), key.ownerId(),
+                        key.metric().getKey(), delta, now);
+            }
+        });
+    }
+
+    /**
+     * Family-wide metrics, keyed by metric name
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> familyMetrics() {
+        return read(Scope.FAMILY, CounterKey.FAMILY_OWNER);
+    }
+
+    /**
+     * Recount every counter from the entity tables, creating missing rows and correcting drifted ones.
+     * A mutation committing between a recount and its write is lost until the next run.
+     */
+    @Transactional
+    public void reconcile() {
+        int corrected = 0;
+        for (DashboardMetric metric : DashboardMetric.values()) {
+            if (metric.getScope() == Scope.FAMILY) {
+                corrected += store(CounterKey.family(metric));
+            }
+        }
+        for (User user : userRepository.findAll()) {
+            for (DashboardMetric metric : DashboardMetric.values()) {
+                if (metric.getScope() == Scope.USER) {
+                    corrected += store(CounterKey.user(metric, user.getId()));
+                }
+            }
+        }
+        if (corrected > 0) {
+            log.info("Reconciled {} dashboard counters", corrected);
+        }
+    }
+
+    private Map<String, Long> read(Scope scope, long ownerId) {
+        Map<String, Long> stored = new HashMap<>();
+        for (DashboardCounter counter : counterRepository.findByScopeAndOwnerId(scope.getKey(), ownerId)) {
+            stored.put(counter.getName(), counter.getValue());
+        }
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        for (DashboardMetric metric : DashboardMetric.values()) {
+            if (metric.getScope() == scope) {
+                Long value = stored.get(metric.getKey());
+                metrics.put(metric.getKey(), value != null ? value : count(new CounterKey(metric, ownerId)));
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Write the recounted value of a counter; returns 1 if the stored value was missing or different
+     */
+    private int store(CounterKey key) {
+        long actual = count(key);
+        DashboardCounter.Key id = new DashboardCounter.Key(
+                key.metric().getScope().getKey(), key.ownerId(), key.metric().getKey());
+        DashboardCounter counter = counterRepository.findById(id).orElse(null);
+        if (counter != null && counter.getValue() == actual) {
+            return 0;
+        }
+        if (counter == null) {
+            counter = new DashboardCounter(id.getScope(), id.getOwnerId(), id.getName(), actual, null);
+        } else {
+            log.debug("Dashboard counter {}/{} drifted: {} != {}", key.metric(), key.ownerId(),
+                    counter.getValue(), actual);
+            counter.setValue(actual);
+        }
+        counterRepository.save(counter);
+        return 1;
+    }
+
+    private long count(CounterKey key) {
+        long userId = key.ownerId();
+        return switch (key.metric()) {
+            case TOTAL_EVENTS -> eventRepository.count();
+            case TOTAL_TASKS -> taskRepository.count();
+            case PENDING_TASKS -> taskRepository.countByStatus(PENDING);
+            case COMPLETED_TASKS -> taskRepository.countByStatus(COMPLETED);
+            case TOTAL_REWARDS -> rewardRepository.count();
+            case ACTIVE_REWARDS -> rewardRepository.countByIsActive(true);
+            case TOTAL_MEALS -> mealRepository.count();
+            case TOTAL_PHOTOS -> photoRepository.count();
+            case TOTAL_LISTS -> listRepository.count();
+            case ACTIVE_LISTS -> listRepository.countByIsArchivedFalse();
+            case USER_ASSIGNED_TASKS -> taskRepository.countByAssignedUserId(userId);
+            case USER_COMPLETED_TASKS -> taskRepository.countByAssignedUserIdAndStatus(userId, COMPLETED);
+            case USER_PENDING_TASKS -> taskRepository.countByAssignedUserIdAndStatus(userId, PENDING);
+            case USER_REDEMPTIONS -> redemptionRepository.countByUserId(userId);
+            case USER_UPLOADED_PHOTOS -> photoRepository.countByUploadedBy(userId);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.abovesky.calendar.counter;
+
+/**
+ * Dashboard figures kept as materialized counters, by scope
+ */
+public enum DashboardMetric {
+    TOTAL_EVENTS(Scope.FAMILY, "totalEvents"),
+    TOTAL_TASKS(Scope.FAMILY, "totalTasks"),
+    PENDING_TASKS(Scope.FAMILY, "pendingTasks"),
+    COMPLETED_TASKS(Scope.FAMILY, "completedTasks"),
+    TOTAL_REWARDS(Scope.FAMILY, "totalRewards"),
+    ACTIVE_REWARDS(Scope.FAMILY, "activeRewards"),
+    TOTAL_MEALS(Scope.FAMILY, "totalMeals"),
+    TOTAL_PHOTOS(Scope.FAMILY, "totalPhotos"),
+    TOTAL_LISTS(Scope.FAMILY, "totalLists"),
+    ACTIVE_LISTS(Scope.FAMILY, "activeLists"),
+
+    USER_ASSIGNED_TASKS(Scope.USER, "assignedTasks"),
+    USER_COMPLETED_TASKS(Scope.USER, "completedTasks"),
+    USER_PENDING_TASKS(Scope.USER, "pendingTasks"),
+    USER_REDEMPTIONS(Scope.USER, "redemptions"),
+    USER_UPLOADED_PHOTOS(Scope.USER, "uploadedPhotos");
+
+    public enum Scope {
+        FAMILY("family"),
+        USER("user");
+
+        private final String key;
+
+        Scope(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Scope scope;
+    private final String key;
+
+    DashboardMetric(Scope scope, String key) {
+        this.scope = scope;
+        this.key = key;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Name of the metric in the dashboard response and in the counter table
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -13,6 +13,7 @@ public class AuthResponse {
     private Long id;
     private String username;
     private String email;
+    private String refreshToken;
 
     public AuthResponse(String token, Long id, String username, String email) {
         this.token = token;
@@ -0,0 +1,16 @@
+package com.abovesky.calendar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeBusyDto {
+    private Long memberId;
+    private List<TimeSlotDto> busy;
+    private List<TimeSlotDto> free;
+}
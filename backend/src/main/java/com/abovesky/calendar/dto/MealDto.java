@@ -26,4 +26,14 @@ public class MealDto {
     private Long createdBy;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    /**
+     * A meal as listed, without its recipe (see {@link com.abovesky.calendar.repository.MealRepository#LIST_ITEM})
+     */
+    public MealDto(Long id, String name, String category, String ingredients, LocalDate assignedDate,
+                   MealType mealType, String dietaryTags, String imageUrl, Boolean isFavorite, String icon,
+                   Long createdBy, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, category, null, ingredients, assignedDate, mealType, dietaryTags, imageUrl, isFavorite, icon,
+                createdBy, createdAt, updatedAt);
+    }
 }
@@ -0,0 +1,37 @@
+package com.abovesky.calendar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a user, the form it is cached and returned in; carries no password, PIN or reset token, only
+ * whether a PIN is set
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDto {
+    private Long id;
+    private String username;
+    private String email;
+    private String roles;
+    private String displayName;
+    private String color;
+    private Integer age;
+    private Boolean isParent;
+    private Integer rewardPoints;
+    private String preferredLocale;
+    private String photo;
+    private LocalDate dateOfBirth;
+    private String role;
+    private String phone;
+    private String gender;
+    private Boolean isParentMode;
+    private Boolean pinSet;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
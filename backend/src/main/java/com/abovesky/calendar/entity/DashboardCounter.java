@@ -0,0 +1,45 @@
+package com.abovesky.calendar.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "dashboard_counters")
+@IdClass(DashboardCounter.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardCounter {
+
+    @Id
+    @Column(length = 20)
+    private String scope; // "family" or "user"
+
+    @Id
+    private Long ownerId; // 0 for the family scope, the user id for the user scope
+
+    @Id
+    @Column(length = 50)
+    private String name; // Metric name as exposed by the dashboard, e.g. "pendingTasks"
+
+    @Column(name = "counter_value", nullable = false)
+    private Long value;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String scope;
+        private Long ownerId;
+        private String name;
+    }
+}
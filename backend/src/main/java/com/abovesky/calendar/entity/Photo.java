@@ -35,8 +35,8 @@ public class Photo {
     @Column
     private Long eventId; // Optional association with calendar event
 
-    @Column
-    private LocalDateTime photoDate; // When photo was taken
+    @Column(nullable = false)
+    private LocalDateTime photoDate; // When photo was taken; the upload time when unknown
 
     @Column
     private Long uploadedBy;
@@ -0,0 +1,27 @@
+package com.abovesky.calendar.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "scheduler_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerState {
+
+    @Id
+    @Column(length = 100)
+    private String name; // Scheduler identifier, e.g. "event-reminders"
+
+    @Column(nullable = false)
+    private LocalDateTime highWaterMark; // Everything due up to this instant has been dispatched
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
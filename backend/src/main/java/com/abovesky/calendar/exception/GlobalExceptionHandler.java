@@ -3,6 +3,7 @@ package com.abovesky.calendar.exception;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -169,6 +170,25 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    /**
+     * Handle a saturated password hashing pool: shed the request quickly and ask the client to retry
+     */
+    @ExceptionHandler(HashingCapacityException.class)
+    public ResponseEntity<Map<String, Object>> handleHashingCapacity(
+            HashingCapacityException ex,
+            WebRequest request) {
+        Map<String, Object> errorResponse = buildErrorResponse(
+                getMessage("error.503"),
+                HttpStatus.SERVICE_UNAVAILABLE,
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        log.warn("Hashing capacity exceeded: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     /**
      * Handle all other exceptions
      */
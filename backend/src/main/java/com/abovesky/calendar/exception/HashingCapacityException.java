@@ -0,0 +1,11 @@
+package com.abovesky.calendar.exception;
+
+/**
+ * Exception thrown when the password hashing pool is saturated and the request is shed instead of queued.
+ */
+public class HashingCapacityException extends RuntimeException {
+
+    public HashingCapacityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.abovesky.calendar.exception;
+
+/**
+ * Exception thrown when a refresh or password reset token is unknown, expired, revoked or reused.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,173 @@
+package com.abovesky.calendar.mail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An email template reduced to its invariant text and the variable slots between it, so rendering is a sequence of
+ * appends with no parsing, expression evaluation or message lookup. Slots are either HTML-escaped (what
+ * {@code th:text} and attribute values do) or raw ({@code th:utext}); a missing variable renders as nothing.
+ * Immutable and safe to share between threads.
+ */
+public final class CompiledTemplate {
+
+    static final char SLOT_START = '\u0002';
+    static final char SLOT_END = '\u0003';
+
+    private static final String ESCAPED_MARK = "&lt;";
+    private static final String RAW_MARK = "<";
+
+    private final String[] literals;
+    private final String[] names;
+    private final boolean[] escaped;
+    private final int literalLength;
+
+    private CompiledTemplate(List<String> literals, List<String> names, List<Boolean> escaped) {
+        this.literals = literals.toArray(String[]::new);
+        this.names = names.toArray(String[]::new);
+        this.escaped = new boolean[names.size()];
+        for (int i = 0; i < this.escaped.length; i++) {
+            this.escaped[i] = escaped.get(i);
+        }
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Marker standing in for a variable while a template is rendered by Thymeleaf to be compiled. The trailing
+     * {@code <} tells the slot kinds apart: it comes out as {@code &lt;} where the engine escapes.
+     */
+    static String marker(String name) {
+        return SLOT_START + name + RAW_MARK + SLOT_END;
+    }
+
+    /**
+     * Compile the output of a template rendered with a {@link #marker} for every variable
+     *
+     * @throws IllegalArgumentException when a marker did not come through intact (e.g. the variable was
+     *                                  transformed rather than printed)
+     */
+    static CompiledTemplate fromMarkedOutput(String output) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = output.indexOf(SLOT_START, position)) >= 0) {
+            int end = output.indexOf(SLOT_END, start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated variable marker at " + start);
+            }
+            String slot = output.substring(start + 1, end);
+            if (slot.endsWith(ESCAPED_MARK)) {
+                names.add(slot.substring(0, slot.length() - ESCAPED_MARK.length()));
+                escaped.add(true);
+            } else if (slot.endsWith(RAW_MARK)) {
+                names.add(slot.substring(0, slot.length() - RAW_MARK.length()));
+                escaped.add(false);
+            } else {
+                throw new IllegalArgumentException("Variable marker altered by the template: " + slot);
+            }
+            literals.add(output.substring(position, start));
+            position = end + 1;
+        }
+        literals.add(output.substring(position));
+        return new CompiledTemplate(literals, names, escaped);
+    }
+
+    /**
+     * Compile an inline template where {@code {{name}}} is an escaped slot and {@code {{{name}}}} a raw one
+     */
+    public static CompiledTemplate of(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = source.indexOf("{{", position)) >= 0) {
+            boolean raw = source.startsWith("{{{", start);
+            String close = raw ? "}}}" : "}}";
+            int nameStart = start + close.length();
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated variable at " + start);
+            }
+            literals.add(source.substring(position, start));
+            names.add(source.substring(nameStart, end).trim());
+            escaped.add(!raw);
+            position = end + close.length();
+        }
+        literals.add(source.substring(position));
+        return new CompiledTemplate(literals, names, escaped);
+    }
+
+    /**
+     * Variables from name/value pairs; unlike {@link Map#of} values may be null, and then render as nothing
+     */
+    public static Map<String, Object> variables(Object... namesAndValues) {
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            variables.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return variables;
+    }
+
+    /**
+     * Names of the variables the template prints, in order of appearance (a name may repeat)
+     */
+    public List<String> slotNames() {
+        return List.of(names);
+    }
+
+    /**
+     * Length of the invariant text, a lower bound for the rendered size
+     */
+    public int literalLength() {
+        return literalLength;
+    }
+
+    public String render(Map<String, ?> variables) {
+        StringBuilder out = new StringBuilder(literalLength + 64 * names.length);
+        renderTo(out, variables);
+        return out.toString();
+    }
+
+    public void renderTo(StringBuilder out, Map<String, ?> variables) {
+        out.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            Object value = variables.get(names[i]);
+            if (value != null) {
+                if (escaped[i]) {
+                    appendEscaped(out, value.toString());
+                } else {
+                    out.append(value);
+                }
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * Escapes the characters that are significant in HTML text and attribute values, as Thymeleaf does
+     */
+    static void appendEscaped(StringBuilder out, String value) {
+        int length = value.length();
+        int from = 0;
+        for (int i = 0; i < length; i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(value, from, i).append(replacement);
+                from = i + 1;
+            }
+        }
+        out.append(value, from, length);
+    }
+}
@@ -0,0 +1,278 @@
+package com.abovesky.calendar.mail;
+
+import com.abovesky.calendar.entity.OutboxEmail;
+import com.abovesky.calendar.repository.OutboxEmailRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Transactional outbox for outgoing email. Emails are queued in the transaction of the change that triggers them,
+ * so a rolled back change sends nothing and a committed one is delivered even if the mail provider is down at the
+ * time; {@link EmailOutboxDispatcher} delivers them afterwards.
+ * Delivery is at least once: a dispatcher claims due emails by pushing their due time past a lease, and a
+ * dispatcher that dies mid-batch leaves them to be claimed again once the lease runs out. Failed attempts are
+ * retried with exponential backoff until {@code mail.outbox.max-attempts} is reached.
+ * Duplicates are caught by the unique idempotency key, not by looking first, so concurrent enqueues of one email
+ * cannot both insert it.
+ */
+@Slf4j
+@Service
+public class EmailOutbox {
+
+    public static final String TRANSACTIONAL = "transactional";
+    public static final String NOTIFICATION = "notification";
+    public static final String MARKETING = "marketing";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> SUBSTITUTIONS = new TypeReference<>() {
+    };
+
+    private final OutboxEmailRepository outboxRepository;
+    private final TransactionTemplate separateTransaction;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${mail.outbox.max-backoff-minutes:60}")
+    private long maxBackoffMinutes;
+
+    @Value("${mail.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    public EmailOutbox(OutboxEmailRepository outboxRepository, PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * How long a claim keeps other dispatchers away from an email
+     */
+    public Duration lease() {
+        return Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Idempotency key derived from the parts identifying one logical email (fixed length, whatever the parts)
+     */
+    public static String key(String... parts) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Queue an email in the caller's transaction, or in a new one when there is none. A failure, including a
+     * duplicate key, fails the caller's transaction: it cannot commit after a failed insert.
+     *
+     * @param idempotencyKey see {@link #key}; null for an email that is unique anyway
+     * @return false when an email with the same key was already queued (only outside a transaction)
+     */
+    public boolean enqueue(String idempotencyKey, String category, String to, String subject, String htmlBody) {
+        return enqueue(idempotencyKey, category, to, subject, htmlBody, Map.of());
+    }
+
+    /**
+     * Queue an email whose body is shared with other recipients, with this recipient's values for its placeholders.
+     * Transports that batch (SendGrid) send emails with the same subject and body in one request and let the
+     * provider substitute; the others substitute before sending.
+     *
+     * @param substitutions placeholder -> value, already HTML-escaped
+     */
+    public boolean enqueue(String idempotencyKey, String category, String to, String subject, String htmlBody,
+                           Map<String, String> substitutions) {
+        String key = idempotencyKey != null ? idempotencyKey : key(UUID.randomUUID().toString());
+        OutboxEmail email = email(key, category, to, subject, htmlBody, substitutions);
+        try {
+            outboxRepository.saveAndFlush(email);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // The failed insert has doomed the caller's transaction; returning would only defer that to its commit
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            return alreadyQueued(key, e);
+        }
+    }
+
+    /**
+     * Queue an email in a transaction of its own, for best-effort emails: a failure here leaves the caller's
+     * transaction untouched, so the caller may catch it and carry on. The email is queued even if the caller's
+     * transaction later rolls back.
+     *
+     * @return false when an email with the same key was already queued
+     */
+    public boolean enqueueSeparately(String idempotencyKey, String category, String to, String subject,
+                                     String htmlBody, Map<String, String> substitutions) {
+        String key = idempotencyKey != null ? idempotencyKey : key(UUID.randomUUID().toString());
+        OutboxEmail email = email(key, category, to, subject, htmlBody, substitutions);
+        try {
+            separateTransaction.executeWithoutResult(status -> outboxRepository.saveAndFlush(email));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return alreadyQueued(key, e);
+        }
+    }
+
+    private boolean alreadyQueued(String key, DataIntegrityViolationException e) {
+        if (!outboxRepository.existsByIdempotencyKey(key)) {
+            throw e;
+        }
+        log.debug("Email {} already queued", key);
+        return false;
+    }
+
+    private static OutboxEmail email(String key, String category, String to, String subject, String htmlBody,
+                                     Map<String, String> substitutions) {
+        OutboxEmail email = new OutboxEmail();
+        email.setIdempotencyKey(key);
+        email.setCategory(category);
+        email.setRecipient(to);
+        email.setSubject(subject);
+        email.setHtmlBody(htmlBody);
+        email.setSubstitutions(substitutions.isEmpty() ? null : toJson(substitutions));
+        email.setNextAttemptAt(LocalDateTime.now());
+        return email;
+    }
+
+    /**
+     * Claim up to {@code limit} due emails for delivery by this node, oldest first
+     */
+    @Transactional
+    public List<OutgoingEmail> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEmail> due = outboxRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+        LocalDateTime leaseEnd = now.plusSeconds(leaseSeconds);
+        List<OutgoingEmail> claimed = new ArrayList<>(due.size());
+        for (OutboxEmail email : due) {
+            email.setNextAttemptAt(leaseEnd);
+            claimed.add(new OutgoingEmail(email.getId(), email.getIdempotencyKey(), email.getCategory(),
+                    email.getRecipient(), email.getSubject(), email.getHtmlBody(),
+                    fromJson(email.getSubstitutions()), email.getCreatedAt()));
+        }
+        return claimed;
+    }
+
+    @Transactional
+    public void markSent(Collection<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEmail email : outboxRepository.findAllById(ids)) {
+            email.setStatus(OutboxEmail.SENT);
+            email.setSentAt(now);
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(null);
+        }
+    }
+
+    /**
+     * Record failed attempts and schedule retries; returns how many emails ran out of attempts
+     */
+    @Transactional
+    public int markFailed(Map<Long, String> errors) {
+        LocalDateTime now = LocalDateTime.now();
+        Duration base = Duration.ofSeconds(backoffSeconds);
+        Duration max = Duration.ofMinutes(maxBackoffMinutes);
+        int givenUp = 0;
+        for (OutboxEmail email : outboxRepository.findAllById(errors.keySet())) {
+            int attempts = email.getAttempts() + 1;
+            String error = errors.get(email.getId());
+            email.setAttempts(attempts);
+            email.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+                    ? error.substring(0, MAX_ERROR_LENGTH)
+                    : error);
+            if (attempts >= maxAttempts) {
+                email.setStatus(OutboxEmail.FAILED);
+                givenUp++;
+                log.error("Giving up on email {} to {} after {} attempts: {}", email.getId(), email.getRecipient(),
+                        attempts, error);
+            } else {
+                // Up to 20% jitter, so emails that failed together do not all retry together
+                long delayMillis = backoff(attempts, base, max).toMillis();
+                delayMillis += (long) (delayMillis * 0.2 * ThreadLocalRandom.current().nextDouble());
+                email.setNextAttemptAt(now.plus(Duration.ofMillis(delayMillis)));
+            }
+        }
+        return givenUp;
+    }
+
+    private static String toJson(Map<String, String> substitutions) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(substitutions);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Substitutions cannot be serialized", e);
+        }
+    }
+
+    private static Map<String, String> fromJson(String substitutions) {
+        if (substitutions == null) {
+            return Map.of();
+        }
+        try {
+            return OBJECT_MAPPER.readValue(substitutions, SUBSTITUTIONS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable email substitutions: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Delay before the retry following the given number of attempts: base, 2 x base, 4 x base, ... up to max
+     */
+    static Duration backoff(int attempts, Duration base, Duration max) {
+        int doublings = Math.min(Math.max(0, attempts - 1), 30);
+        Duration delay = base.multipliedBy(1L << doublings);
+        return delay.compareTo(max) > 0 ? max : delay;
+    }
+
+    @Transactional(readOnly = true)
+    public long pendingCount() {
+        return outboxRepository.countByStatus(OutboxEmail.PENDING);
+    }
+
+    /**
+     * Queue time of the oldest undelivered email, or null when the outbox is drained
+     */
+    @Transactional(readOnly = true)
+    public LocalDateTime oldestPending() {
+        return outboxRepository.findOldestPendingCreatedAt();
+    }
+
+    /**
+     * Delete sent and abandoned emails queued before the retention period
+     */
+    @Transactional
+    public int purge(Duration retention) {
+        return outboxRepository.deleteFinishedBefore(LocalDateTime.now().minus(retention));
+    }
+}
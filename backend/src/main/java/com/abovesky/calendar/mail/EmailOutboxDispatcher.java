@@ -0,0 +1,200 @@
+package com.abovesky.calendar.mail;
+
+import com.abovesky.calendar.config.AsyncConfig;
+import com.abovesky.calendar.config.DaemonThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the {@link EmailOutbox}: polls for due emails, claims them in batches and hands each batch to the
+ * {@link MailTransport}, reminder mail on the notification pool and the rest on the email pool so a bulk send
+ * cannot hold up reminders. Reports {@code mail.outbox.sent}, {@code mail.outbox.failures} (failed attempts),
+ * {@code mail.outbox.abandoned}, {@code mail.outbox.lag} (queue to delivery), and the backlog as
+ * {@code mail.outbox.pending} and {@code mail.outbox.oldest.age.seconds}.
+ */
+@Slf4j
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final EmailOutbox outbox;
+    private final MailTransport transport;
+    private final Executor emailExecutor;
+    private final Executor notificationExecutor;
+
+    private final Counter sent;
+    private final Counter failures;
+    private final Counter abandoned;
+    private final Timer lag;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    @Value("${mail.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mail.outbox.poll-millis:1000}")
+    private long pollMillis;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.retention-days:7}")
+    private long retentionDays;
+
+    private ScheduledExecutorService poller;
+    private long lastPurgeMillis;
+
+    public EmailOutboxDispatcher(EmailOutbox outbox,
+                                 MailTransport transport,
+                                 @Qualifier(AsyncConfig.EMAIL_EXECUTOR) Executor emailExecutor,
+                                 @Qualifier(AsyncConfig.NOTIFICATION_EXECUTOR) Executor notificationExecutor,
+                                 MeterRegistry meterRegistry) {
+        this.outbox = outbox;
+        this.transport = transport;
+        this.emailExecutor = emailExecutor;
+        this.notificationExecutor = notificationExecutor;
+        this.sent = meterRegistry.counter("mail.outbox.sent");
+        this.failures = meterRegistry.counter("mail.outbox.failures");
+        this.abandoned = meterRegistry.counter("mail.outbox.abandoned");
+        this.lag = Timer.builder("mail.outbox.lag")
+                .description("Time from queueing an email to its delivery")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("mail.outbox.oldest.age.seconds", oldestAgeSeconds, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || poller != null) {
+            return;
+        }
+        poller = DaemonThreads.singleThreadScheduler("email-outbox");
+        lastPurgeMillis = System.currentTimeMillis();
+        poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            // Emails claimed by an interrupted batch are delivered again once their lease runs out
+            poller.shutdownNow();
+        }
+    }
+
+    private void poll() {
+        try {
+            drain();
+            pending.set(outbox.pendingCount());
+            LocalDateTime oldest = outbox.oldestPending();
+            oldestAgeSeconds.set(oldest != null
+                    ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds())
+                    : 0);
+            long now = System.currentTimeMillis();
+            if (now - lastPurgeMillis >= PURGE_INTERVAL_MILLIS) {
+                lastPurgeMillis = now;
+                int purged = outbox.purge(Duration.ofDays(retentionDays));
+                if (purged > 0) {
+                    log.info("Purged {} delivered or abandoned emails", purged);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the periodic poll
+            log.warn("Email outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deliver due emails batch by batch until less than a full batch is due; returns the number delivered
+     */
+    public int drain() {
+        int delivered = 0;
+        List<OutgoingEmail> batch;
+        do {
+            batch = outbox.claim(batchSize);
+            if (!batch.isEmpty()) {
+                delivered += deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+        return delivered;
+    }
+
+    private int deliver(List<OutgoingEmail> batch) {
+        List<OutgoingEmail> notifications = new ArrayList<>();
+        List<OutgoingEmail> others = new ArrayList<>();
+        for (OutgoingEmail email : batch) {
+            (EmailOutbox.NOTIFICATION.equals(email.category()) ? notifications : others).add(email);
+        }
+        List<CompletableFuture<Map<Long, String>>> results = new ArrayList<>(2);
+        if (!notifications.isEmpty()) {
+            results.add(send(notifications, notificationExecutor));
+        }
+        if (!others.isEmpty()) {
+            results.add(send(others, emailExecutor));
+        }
+        Map<Long, String> errors = new HashMap<>();
+        results.forEach(result -> errors.putAll(result.join()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (OutgoingEmail email : batch) {
+            if (!errors.containsKey(email.id())) {
+                sentIds.add(email.id());
+                if (email.createdAt() != null) {
+                    lag.record(Duration.between(email.createdAt(), now));
+                }
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            outbox.markSent(sentIds);
+            sent.increment(sentIds.size());
+        }
+        if (!errors.isEmpty()) {
+            log.warn("{} of {} emails failed, will retry: {}", errors.size(), batch.size(),
+                    errors.values().iterator().next());
+            failures.increment(errors.size());
+            abandoned.increment(outbox.markFailed(errors));
+        }
+        return sentIds.size();
+    }
+
+    /**
+     * A batch still unconfirmed after this long is retried later. It is a tenth shorter than the claim lease, so
+     * the batch is marked before another poll can claim it again and send it a second time.
+     */
+    private long sendTimeoutMillis() {
+        long leaseMillis = outbox.lease().toMillis();
+        return Math.max(1, leaseMillis - leaseMillis / 10);
+    }
+
+    private CompletableFuture<Map<Long, String>> send(List<OutgoingEmail> emails, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> transport.send(emails), executor)
+                .orTimeout(sendTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Map<Long, String> errors = new HashMap<>();
+                    emails.forEach(email -> errors.put(email.id(), String.valueOf(e.getMessage())));
+                    return errors;
+                });
+    }
+}
@@ -0,0 +1,194 @@
+package com.abovesky.calendar.mail;
+
+import com.abovesky.calendar.config.AsyncConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the Thymeleaf email templates. At startup every template is rendered once per supported language with
+ * markers in place of its variables and compiled into a {@link CompiledTemplate}: the markup, styles and localized
+ * messages become fixed text, and sending an email only appends the escaped values in between. Each compiled
+ * template is checked against the engine with sample values; one that does not reproduce the engine's output
+ * (a variable used in a condition or a formatting expression, say) keeps being rendered by the engine.
+ * Output is built in pooled buffers sized for the largest template, and {@link #renderAll} spreads large batches
+ * over the email executor.
+ */
+@Slf4j
+@Component
+public class EmailRenderer {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{\\s*(\\w+)\\s*}");
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private final ITemplateEngine templateEngine;
+    private final Executor executor;
+    private final String templatePrefix;
+    private final Locale defaultLocale;
+    private final Set<String> languages = new LinkedHashSet<>();
+    private final Map<String, CompiledTemplate> compiled = new ConcurrentHashMap<>();
+    private final BlockingQueue<StringBuilder> buffers;
+    private final int bulkChunkSize;
+
+    public EmailRenderer(ITemplateEngine templateEngine,
+                         @Qualifier(AsyncConfig.EMAIL_EXECUTOR) Executor executor,
+                         @Value("${mail.templates.names:otp-email,password-reset-email,pin-reset-email,welcome-email,"
+                                 + "event-reminder-email,marketing-email}") List<String> templates,
+                         @Value("${mail.templates.locales:en,de,tr,fr,az}") List<String> locales,
+                         @Value("${mail.templates.prefix:templates/}") String templatePrefix,
+                         @Value("${mail.templates.buffer-pool-size:16}") int bufferPoolSize,
+                         @Value("${mail.templates.bulk-chunk-size:64}") int bulkChunkSize) {
+        this.templateEngine = templateEngine;
+        this.executor = executor;
+        this.templatePrefix = templatePrefix;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, bufferPoolSize));
+        this.bulkChunkSize = Math.max(1, bulkChunkSize);
+        for (String locale : locales) {
+            languages.add(Locale.forLanguageTag(locale.trim()).getLanguage());
+        }
+        this.defaultLocale = Locale.forLanguageTag(languages.iterator().next());
+
+        long started = System.nanoTime();
+        for (String template : templates) {
+            for (String language : languages) {
+                compile(template.trim(), Locale.forLanguageTag(language));
+            }
+        }
+        log.info("Compiled {} of {} email templates in {} ms", compiled.size(), templates.size() * languages.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Supported locale closest to a user's preference (its language), or the default one
+     */
+    public Locale resolveLocale(String preferredLocale) {
+        if (preferredLocale == null || preferredLocale.isBlank()) {
+            return defaultLocale;
+        }
+        String language = Locale.forLanguageTag(preferredLocale.trim().replace('_', '-')).getLanguage();
+        return languages.contains(language) ? Locale.forLanguageTag(language) : defaultLocale;
+    }
+
+    public String render(String template, Locale locale, Map<String, ?> variables) {
+        Locale resolved = locale != null && languages.contains(locale.getLanguage())
+                ? Locale.forLanguageTag(locale.getLanguage()) : defaultLocale;
+        CompiledTemplate compiledTemplate = compiled.get(key(template, resolved));
+        if (compiledTemplate == null) {
+            return process(template, resolved, variables);
+        }
+        StringBuilder buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new StringBuilder(compiledTemplate.literalLength() + 1024);
+        }
+        try {
+            compiledTemplate.renderTo(buffer, variables);
+            return buffer.toString();
+        } finally {
+            buffer.setLength(0);
+            if (buffer.capacity() <= MAX_POOLED_CAPACITY) {
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Render one template for many recipients, results in the order of {@code variables}. Batches larger than
+     * {@code mail.templates.bulk-chunk-size} are split into chunks rendered in parallel on the email executor.
+     */
+    public List<String> renderAll(String template, Locale locale, List<? extends Map<String, ?>> variables) {
+        if (variables.size() <= bulkChunkSize) {
+            return renderChunk(template, locale, variables);
+        }
+        List<CompletableFuture<List<String>>> chunks = new ArrayList<>();
+        for (int from = 0; from < variables.size(); from += bulkChunkSize) {
+            List<? extends Map<String, ?>> chunk = variables.subList(from,
+                    Math.min(from + bulkChunkSize, variables.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> renderChunk(template, locale, chunk), executor));
+        }
+        List<String> rendered = new ArrayList<>(variables.size());
+        for (CompletableFuture<List<String>> chunk : chunks) {
+            rendered.addAll(chunk.join());
+        }
+        return rendered;
+    }
+
+    /**
+     * Whether a template is served from its compiled form in the given locale
+     */
+    public boolean isCompiled(String template, Locale locale) {
+        return compiled.containsKey(key(template, locale));
+    }
+
+    private List<String> renderChunk(String template, Locale locale, List<? extends Map<String, ?>> variables) {
+        List<String> rendered = new ArrayList<>(variables.size());
+        for (Map<String, ?> values : variables) {
+            rendered.add(render(template, locale, values));
+        }
+        return rendered;
+    }
+
+    private void compile(String template, Locale locale) {
+        try {
+            Set<String> names = variableNames(template);
+            Map<String, Object> markers = new HashMap<>();
+            Map<String, Object> samples = new HashMap<>();
+            for (String name : names) {
+                markers.put(name, CompiledTemplate.marker(name));
+                samples.put(name, "<" + name + "> & 'x' \"y\"");
+            }
+            CompiledTemplate compiledTemplate = CompiledTemplate.fromMarkedOutput(process(template, locale, markers));
+            if (!compiledTemplate.render(samples).equals(process(template, locale, samples))) {
+                log.warn("Email template {} ({}) cannot be compiled, rendering it with the engine", template,
+                        locale);
+                return;
+            }
+            compiled.put(key(template, locale), compiledTemplate);
+        } catch (RuntimeException | IOException e) {
+            log.warn("Email template {} ({}) cannot be compiled, rendering it with the engine: {}", template,
+                    locale, e.getMessage());
+        }
+    }
+
+    private Set<String> variableNames(String template) throws IOException {
+        try (InputStream in = new ClassPathResource(templatePrefix + template + ".html").getInputStream()) {
+            Matcher matcher = VARIABLE.matcher(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            Set<String> names = new LinkedHashSet<>();
+            while (matcher.find()) {
+                names.add(matcher.group(1));
+            }
+            return names;
+        }
+    }
+
+    private String process(String template, Locale locale, Map<String, ?> variables) {
+        Context context = new Context(locale);
+        variables.forEach(context::setVariable);
+        return templateEngine.process(template, context);
+    }
+
+    private static String key(String template, Locale locale) {
+        return template + '|' + locale.getLanguage();
+    }
+}
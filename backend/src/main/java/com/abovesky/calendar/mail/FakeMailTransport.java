@@ -0,0 +1,57 @@
+package com.abovesky.calendar.mail;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps delivered emails in memory instead of sending them ({@code mail.transport: fake}), for tests and offline
+ * development. Failures can be injected to exercise retries.
+ */
+@Slf4j
+public class FakeMailTransport implements MailTransport {
+
+    private final List<OutgoingEmail> sent = new CopyOnWriteArrayList<>();
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Override
+    public Map<Long, String> send(List<OutgoingEmail> emails) {
+        batches.incrementAndGet();
+        Map<Long, String> errors = new HashMap<>();
+        for (OutgoingEmail email : emails) {
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                errors.put(email.id(), "Simulated failure");
+            } else {
+                sent.add(email);
+                log.info("Fake delivery to {}: {}", email.recipient(), email.subject());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Fail the next {@code count} emails
+     */
+    public void failNext(int count) {
+        failures.set(count);
+    }
+
+    public List<OutgoingEmail> getSent() {
+        return List.copyOf(sent);
+    }
+
+    public int getBatches() {
+        return batches.get();
+    }
+
+    public void clear() {
+        sent.clear();
+        batches.set(0);
+        failures.set(0);
+    }
+}
@@ -0,0 +1,16 @@
+package com.abovesky.calendar.mail;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers batches of outbox emails to a mail provider
+ */
+public interface MailTransport {
+
+    /**
+     * Deliver a batch of emails; returns the error of every email that was not accepted, keyed by email id.
+     * Emails missing from the result were delivered.
+     */
+    Map<Long, String> send(List<OutgoingEmail> emails);
+}
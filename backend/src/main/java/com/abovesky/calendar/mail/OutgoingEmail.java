@@ -0,0 +1,37 @@
+package com.abovesky.calendar.mail;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * An email claimed from the outbox for delivery
+ *
+ * @param idempotencyKey passed to the provider with the email, so a redelivery after a lost acknowledgement can be
+ *                       recognised
+ * @param htmlBody       body shared by all recipients of a bulk email, with a placeholder for each of the
+ *                       {@code substitutions}
+ * @param substitutions  this recipient's values by placeholder, already HTML-escaped; empty when the body is
+ *                       complete
+ */
+public record OutgoingEmail(
+        Long id,
+        String idempotencyKey,
+        String category,
+        String recipient,
+        String subject,
+        String htmlBody,
+        Map<String, String> substitutions,
+        LocalDateTime createdAt
+) {
+
+    /**
+     * The body this recipient receives, for transports that cannot substitute on the provider's side
+     */
+    public String resolvedBody() {
+        String body = htmlBody;
+        for (Map.Entry<String, String> substitution : substitutions.entrySet()) {
+            body = body.replace(substitution.getKey(), substitution.getValue());
+        }
+        return body;
+    }
+}
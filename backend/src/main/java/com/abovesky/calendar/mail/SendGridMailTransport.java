@@ -0,0 +1,119 @@
+package com.abovesky.calendar.mail;
+
+import com.sendgrid.Method;
+import com.sendgrid.Request;
+import com.sendgrid.Response;
+import com.sendgrid.SendGrid;
+import com.sendgrid.helpers.mail.Mail;
+import com.sendgrid.helpers.mail.objects.Content;
+import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends through the SendGrid API with one reusable client. Emails of a batch that share subject and body (bulk
+ * sends) go out as one request with a personalization per recipient, so recipients do not see each other. What
+ * differs per recipient (e.g. the unsubscribe link) is left in the shared body as a placeholder and travels as the
+ * personalization's substitutions, which SendGrid fills in; the idempotency key travels as a custom arg. Requests
+ * are paced to at most 10 per second.
+ */
+@Slf4j
+public class SendGridMailTransport implements MailTransport {
+
+    static final int MAX_PERSONALIZATIONS = 1000;
+
+    private static final int MAX_REQUESTS_PER_SECOND = 10;
+    private static final long REQUEST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / MAX_REQUESTS_PER_SECOND;
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1) - REQUEST_INTERVAL_NANOS;
+
+    private final SendGrid client;
+    private final Email from;
+    private final AtomicLong nextRequestAt = new AtomicLong(System.nanoTime());
+
+    public SendGridMailTransport(SendGrid client, String fromEmail, String fromName) {
+        this.client = client;
+        this.from = new Email(fromEmail, fromName);
+    }
+
+    private record Body(String subject, String html) {
+    }
+
+    @Override
+    public Map<Long, String> send(List<OutgoingEmail> emails) {
+        Map<Body, List<OutgoingEmail>> byBody = new LinkedHashMap<>();
+        for (OutgoingEmail email : emails) {
+            byBody.computeIfAbsent(new Body(email.subject(), email.htmlBody()), body -> new ArrayList<>()).add(email);
+        }
+        Map<Long, String> errors = new HashMap<>();
+        byBody.forEach((body, recipients) -> {
+            for (int start = 0; start < recipients.size(); start += MAX_PERSONALIZATIONS) {
+                List<OutgoingEmail> chunk = recipients.subList(start,
+                        Math.min(start + MAX_PERSONALIZATIONS, recipients.size()));
+                String error = sendRequest(body, chunk);
+                if (error != null) {
+                    chunk.forEach(email -> errors.put(email.id(), error));
+                }
+            }
+        });
+        return errors;
+    }
+
+    /**
+     * One API request for emails sharing a body; returns null on success, otherwise the error
+     */
+    private String sendRequest(Body body, List<OutgoingEmail> emails) {
+        Mail mail = new Mail();
+        mail.setFrom(from);
+        mail.setSubject(body.subject());
+        mail.addContent(new Content("text/html", body.html()));
+        for (OutgoingEmail email : emails) {
+            Personalization personalization = new Personalization();
+            personalization.addTo(new Email(email.recipient()));
+            personalization.addCustomArg("idempotency_key", email.idempotencyKey());
+            email.substitutions().forEach(personalization::addSubstitution);
+            mail.addPersonalization(personalization);
+        }
+        try {
+            Request request = new Request();
+            request.setMethod(Method.POST);
+            request.setEndpoint("mail/send");
+            request.setBody(mail.build());
+            pace();
+            Response response = client.api(request);
+            if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
+                log.debug("SendGrid accepted {} emails, subject: {}", emails.size(), body.subject());
+                return null;
+            }
+            return "SendGrid status " + response.getStatusCode() + ": " + response.getBody();
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Reserve the next request slot without a lock and sleep until it outside any monitor, so a waiting virtual
+     * thread releases its carrier
+     */
+    private void pace() {
+        long now = System.nanoTime();
+        long reserved = nextRequestAt.getAndAccumulate(now,
+                (next, time) -> Math.max(next, time - BURST_NANOS) + REQUEST_INTERVAL_NANOS);
+        long waitNanos = Math.max(reserved, now - BURST_NANOS) - now;
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
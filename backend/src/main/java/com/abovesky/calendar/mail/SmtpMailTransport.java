@@ -0,0 +1,76 @@
+package com.abovesky.calendar.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends a batch over one SMTP connection ({@link JavaMailSender#send(MimeMessage...)}) instead of one per email
+ */
+@Slf4j
+public class SmtpMailTransport implements MailTransport {
+
+    static final String IDEMPOTENCY_HEADER = "X-Idempotency-Key";
+
+    private final JavaMailSender mailSender;
+    private final String fromEmail;
+
+    public SmtpMailTransport(JavaMailSender mailSender, String fromEmail) {
+        this.mailSender = mailSender;
+        this.fromEmail = fromEmail;
+    }
+
+    @Override
+    public Map<Long, String> send(List<OutgoingEmail> emails) {
+        Map<Long, String> errors = new HashMap<>();
+        Map<MimeMessage, Long> ids = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+        for (OutgoingEmail email : emails) {
+            try {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+                helper.setFrom(fromEmail);
+                helper.setTo(email.recipient());
+                helper.setSubject(email.subject());
+                helper.setText(email.resolvedBody(), true);
+                message.setHeader(IDEMPOTENCY_HEADER, email.idempotencyKey());
+                ids.put(message, email.id());
+                messages.add(message);
+            } catch (MessagingException e) {
+                errors.put(email.id(), e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return errors;
+        }
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                messages.forEach(message -> errors.put(ids.get(message), e.getMessage()));
+            } else {
+                failed.forEach((message, failure) -> {
+                    Long id = ids.get(message);
+                    if (id != null) {
+                        errors.put(id, String.valueOf(failure.getMessage()));
+                    }
+                });
+            }
+        } catch (MailException e) {
+            messages.forEach(message -> errors.put(ids.get(message), e.getMessage()));
+        }
+        log.debug("Sent {} of {} emails over SMTP", emails.size() - errors.size(), emails.size());
+        return errors;
+    }
+}
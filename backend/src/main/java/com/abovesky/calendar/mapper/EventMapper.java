@@ -2,6 +2,7 @@ package com.abovesky.calendar.mapper;
 
 import com.abovesky.calendar.api.model.Event;
 import com.abovesky.calendar.api.model.EventInput;
+import com.abovesky.calendar.dto.EventDto;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -62,6 +63,29 @@ public class EventMapper {
         return apiModel;
     }
 
+    /**
+     * Convert JPA entity to the DTO used by the REST controllers
+     */
+    public EventDto toDto(com.abovesky.calendar.entity.Event entity) {
+        return new EventDto(
+                entity.getId(),
+                entity.getTitle(),
+                entity.getDescription(),
+                entity.getStartDate(),
+                entity.getEndDate(),
+                entity.getUserId(),
+                entity.getCategory(),
+                entity.getColor(),
+                entity.getIsAllDay(),
+                entity.getRecurrencePattern(),
+                entity.getAssignedMembers(),
+                entity.getReminderMinutes(),
+                entity.getIcon(),
+                entity.getCreatedAt(),
+                entity.getUpdatedAt()
+        );
+    }
+
     /**
      * Convert API input model to JPA entity for creation
      */
@@ -0,0 +1,28 @@
+package com.abovesky.calendar.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. Endpoints return the items as the body, as their unpaged form does, and
+ * the next cursor in the {@value #NEXT_CURSOR_HEADER} header.
+ *
+ * @param nextCursor opaque token for the following page, null on the last page
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(items);
+    }
+}
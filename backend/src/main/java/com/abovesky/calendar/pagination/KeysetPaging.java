@@ -0,0 +1,125 @@
+package com.abovesky.calendar.pagination;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset (cursor) pagination for a listing: each page continues after the sort key and id of the previous page's
+ * last row instead of skipping an offset, so page N costs the same as page 1 and rows inserted meanwhile neither
+ * repeat nor go missing. Pages come from Spring Data scrolling ({@link Window}); the position is handed to clients
+ * as an opaque cursor carrying the sort, its direction and the last row's key. A cursor fixes its own sort, so the
+ * {@code sort} and {@code direction} parameters only apply to the first page.
+ * Each field of a cursor is Base64 encoded on its own and the fields are joined with dots, which Base64 never
+ * produces, so a sort key may contain any character.
+ */
+public class KeysetPaging {
+
+    static final String ID = "id";
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final String VERSION = "2";
+    private static final String SEPARATOR = ".";
+
+    private final Map<String, KeysetSort> sorts = new LinkedHashMap<>();
+    private final KeysetSort defaultSort;
+
+    /**
+     * @param sorts sorts the listing supports; the first one is the default
+     */
+    public KeysetPaging(KeysetSort... sorts) {
+        for (KeysetSort sort : sorts) {
+            this.sorts.put(sort.name(), sort);
+        }
+        this.defaultSort = sorts[0];
+    }
+
+    /**
+     * Where the requested page starts
+     *
+     * @throws IllegalArgumentException for an unknown sort or direction, or a malformed cursor
+     */
+    public Request request(String sort, String direction, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (cursor != null && !cursor.isBlank()) {
+            return decode(cursor, pageSize);
+        }
+        KeysetSort keysetSort = sort == null || sort.isBlank() ? defaultSort : sorts.get(sort);
+        if (keysetSort == null) {
+            throw new IllegalArgumentException("Unknown sort '" + sort + "', expected one of " + sorts.keySet());
+        }
+        Sort.Direction sortDirection = direction == null || direction.isBlank()
+                ? keysetSort.defaultDirection()
+                : Sort.Direction.fromString(direction);
+        return new Request(keysetSort, sortDirection, ScrollPosition.keyset(), pageSize);
+    }
+
+    /**
+     * The page a scroll query returned for a request, mapped to DTOs
+     */
+    public <E, D> CursorPage<D> page(Request request, Window<E> window, Function<? super E, ? extends D> mapper) {
+        List<D> items = window.getContent().stream().<D>map(mapper).toList();
+        if (!window.hasNext() || window.isEmpty()) {
+            return new CursorPage<>(items, null);
+        }
+        Map<String, ?> keys = ((KeysetScrollPosition) window.positionAt(window.size() - 1)).getKeys();
+        return new CursorPage<>(items, encode(request, keys));
+    }
+
+    private String encode(Request request, Map<String, ?> keys) {
+        return String.join(SEPARATOR, VERSION, field(request.sort().name()), field(request.direction().name()),
+                field(String.valueOf(keys.get(request.sort().property()))), field(String.valueOf(keys.get(ID))));
+    }
+
+    private static String field(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unfield(String field) {
+        return new String(Base64.getUrlDecoder().decode(field), StandardCharsets.UTF_8);
+    }
+
+    private Request decode(String cursor, int pageSize) {
+        try {
+            String[] parts = cursor.split(Pattern.quote(SEPARATOR), -1);
+            KeysetSort keysetSort = parts.length == 5 && VERSION.equals(parts[0]) ? sorts.get(unfield(parts[1])) : null;
+            if (keysetSort == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(keysetSort.property(), keysetSort.parser().apply(unfield(parts[3])));
+            keys.put(ID, Long.valueOf(unfield(parts[4])));
+            return new Request(keysetSort, Sort.Direction.valueOf(unfield(parts[2])), ScrollPosition.forward(keys),
+                    pageSize);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * A resolved page request, ready for a repository scroll query
+     */
+    public record Request(KeysetSort sort, Sort.Direction direction, ScrollPosition position, int pageSize) {
+
+        public Sort toSort() {
+            return sort.toSort(direction);
+        }
+
+        public Limit limit() {
+            return Limit.of(pageSize);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.abovesky.calendar.pagination;
+
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * A sort order a listing can be paged by: a non-null entity property, with the id as tie-breaker so the order is
+ * total and stable. Each one is backed by an index on (column, id), so any page is one index range scan.
+ *
+ * @param name   name clients pass as {@code sort}
+ * @param parser reads the property value back from its {@code toString} form in a cursor
+ */
+public record KeysetSort(String name, String property, Sort.Direction defaultDirection,
+                         Function<String, Object> parser) {
+
+    public static KeysetSort timestamp(String name, String property, Sort.Direction defaultDirection) {
+        return new KeysetSort(name, property, defaultDirection, LocalDateTime::parse);
+    }
+
+    public static KeysetSort integer(String name, String property, Sort.Direction defaultDirection) {
+        return new KeysetSort(name, property, defaultDirection, Integer::valueOf);
+    }
+
+    public static KeysetSort text(String name, String property, Sort.Direction defaultDirection) {
+        return new KeysetSort(name, property, defaultDirection, value -> value);
+    }
+
+    public Sort toSort(Sort.Direction direction) {
+        return Sort.by(direction, property).and(Sort.by(direction, KeysetPaging.ID));
+    }
+}
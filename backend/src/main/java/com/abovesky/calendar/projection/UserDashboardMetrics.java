@@ -0,0 +1,18 @@
+package com.abovesky.calendar.projection;
+
+/**
+ * Per-user dashboard figures, read in one statement by {@code DashboardCounterRepository.findUserMetrics}
+ */
+public interface UserDashboardMetrics {
+    Integer getRewardPoints();
+
+    Long getAssignedTasks();
+
+    Long getCompletedTasks();
+
+    Long getPendingTasks();
+
+    Long getRedemptions();
+
+    Long getUploadedPhotos();
+}
@@ -0,0 +1,310 @@
+package com.abovesky.calendar.recurrence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, pre-parsed form of an event recurrence pattern.
+ * Parses the JSON stored in Event.recurrencePattern once, e.g.
+ * {"type":"weekly","interval":2,"endDate":"2024-12-31","daysOfWeek":["MO","WE"],"count":10},
+ * and lazily yields the occurrence start times that fall inside a requested window.
+ */
+public final class RecurrenceRule {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDate until;
+    private final Integer count;
+    private final List<DayOfWeek> daysOfWeek; // sorted Monday..Sunday, weekly rules only
+
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY,
+        YEARLY
+    }
+
+    private RecurrenceRule(Frequency frequency, int interval, LocalDate until, Integer count, List<DayOfWeek> daysOfWeek) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.until = until;
+        this.count = count;
+        this.daysOfWeek = daysOfWeek;
+    }
+
+    /**
+     * Parse a recurrence pattern. Accepts the JSON object form or a bare frequency name ("weekly").
+     *
+     * @throws IllegalArgumentException if the pattern cannot be understood
+     */
+    public static RecurrenceRule parse(String pattern) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("Recurrence pattern is empty");
+        }
+        String trimmed = pattern.trim();
+        if (!trimmed.startsWith("{")) {
+            return new RecurrenceRule(parseFrequency(trimmed), 1, null, null, Collections.emptyList());
+        }
+
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(trimmed);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid recurrence pattern: " + pattern, e);
+        }
+
+        Frequency frequency = parseFrequency(node.path("type").asText(null));
+
+        int interval = node.path("interval").asInt(1);
+        if (interval < 1) {
+            throw new IllegalArgumentException("Recurrence interval must be positive: " + interval);
+        }
+
+        LocalDate until = null;
+        String endDate = node.path("endDate").asText(null);
+        if (endDate != null && !endDate.isBlank()) {
+            try {
+                // Accept both "2024-12-31" and "2024-12-31T00:00:00"
+                until = LocalDate.parse(endDate.length() > 10 ? endDate.substring(0, 10) : endDate);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Invalid recurrence endDate: " + endDate, e);
+            }
+        }
+
+        Integer count = null;
+        if (node.hasNonNull("count")) {
+            count = node.get("count").asInt();
+            if (count < 1) {
+                throw new IllegalArgumentException("Recurrence count must be positive: " + count);
+            }
+        }
+
+        List<DayOfWeek> daysOfWeek = Collections.emptyList();
+        JsonNode days = node.path("daysOfWeek");
+        if (frequency == Frequency.WEEKLY && days.isArray() && days.size() > 0) {
+            EnumSet<DayOfWeek> set = EnumSet.noneOf(DayOfWeek.class);
+            for (JsonNode day : days) {
+                set.add(parseDayOfWeek(day.asText()));
+            }
+            daysOfWeek = List.copyOf(set);
+        }
+
+        return new RecurrenceRule(frequency, interval, until, count, daysOfWeek);
+    }
+
+    private static Frequency parseFrequency(String type) {
+        if (type == null || type.isBlank()) {
+            throw new IllegalArgumentException("Recurrence type is missing");
+        }
+        try {
+            return Frequency.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported recurrence type: " + type, e);
+        }
+    }
+
+    private static DayOfWeek parseDayOfWeek(String value) {
+        String day = value == null ? "" : value.trim().toUpperCase(Locale.ROOT);
+        if (day.length() >= 2) {
+            for (DayOfWeek candidate : DayOfWeek.values()) {
+                if (candidate.name().startsWith(day)) {
+                    return candidate;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid day of week in recurrence pattern: " + value);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public List<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+
+    /**
+     * Lazily iterate the start times of occurrences whose [start, start + duration) span overlaps [from, to).
+     * The iterator seeks straight to the first candidate period instead of walking the series from its start,
+     * so the cost depends on the number of occurrences in the window, not on the age of the series.
+     *
+     * @param seriesStart start of the first occurrence
+     * @param duration    length of every occurrence (end - start of the master event)
+     */
+    public Iterable<LocalDateTime> occurrences(LocalDateTime seriesStart, Duration duration,
+                                               LocalDateTime from, LocalDateTime to) {
+        Duration span = duration == null || duration.isNegative() ? Duration.ZERO : duration;
+        return () -> new OccurrenceIterator(seriesStart, span, from, to);
+    }
+
+    /**
+     * Materialise the occurrences inside [from, to) into a list
+     */
+    public List<LocalDateTime> occurrencesBetween(LocalDateTime seriesStart, Duration duration,
+                                                  LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> result = new ArrayList<>();
+        for (LocalDateTime occurrence : occurrences(seriesStart, duration, from, to)) {
+            result.add(occurrence);
+        }
+        return result;
+    }
+
+    /**
+     * Start of the period (day, week, month, year) with the given index, anchored on the series start
+     */
+    private LocalDateTime periodStart(LocalDateTime seriesStart, long period) {
+        long steps = period * interval;
+        return switch (frequency) {
+            case DAILY -> seriesStart.plusDays(steps);
+            case WEEKLY -> seriesStart.plusWeeks(steps);
+            // Always offset from the series start so that e.g. the 31st clamps per month instead of drifting
+            case MONTHLY -> seriesStart.plusMonths(steps);
+            case YEARLY -> seriesStart.plusYears(steps);
+        };
+    }
+
+    /**
+     * Index of a period starting no later than the given instant (a safe lower bound for seeking)
+     */
+    private long periodFloor(LocalDateTime seriesStart, LocalDateTime instant) {
+        if (!instant.isAfter(seriesStart)) {
+            return 0;
+        }
+        long units = switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS.between(seriesStart, instant);
+            case WEEKLY -> ChronoUnit.WEEKS.between(weekAnchor(seriesStart), instant);
+            case MONTHLY -> ChronoUnit.MONTHS.between(seriesStart, instant);
+            case YEARLY -> ChronoUnit.YEARS.between(seriesStart, instant);
+        };
+        // Step back one period to stay on the safe side of month/year clamping
+        return Math.max(0, units / interval - 1);
+    }
+
+    private static LocalDateTime weekAnchor(LocalDateTime seriesStart) {
+        return seriesStart.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDateTime> {
+
+        private final LocalDateTime seriesStart;
+        private final Duration duration;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final LocalDateTime weekAnchor;
+        private final int skippedInFirstWeek;
+
+        private long period;
+        private int dayIndex;
+        private LocalDateTime next;
+        private boolean done;
+
+        OccurrenceIterator(LocalDateTime seriesStart, Duration duration, LocalDateTime from, LocalDateTime to) {
+            this.seriesStart = seriesStart;
+            this.duration = duration;
+            this.from = from;
+            this.to = to;
+            this.weekAnchor = weekAnchor(seriesStart);
+            this.skippedInFirstWeek = countDaysBeforeStart();
+            this.done = seriesStart == null || from == null || to == null || !from.isBefore(to);
+            if (!done) {
+                this.period = periodFloor(seriesStart, from.minus(duration));
+                advance();
+            }
+        }
+
+        private int countDaysBeforeStart() {
+            int skipped = 0;
+            for (DayOfWeek day : daysOfWeek) {
+                if (day.compareTo(seriesStart.getDayOfWeek()) < 0) {
+                    skipped++;
+                }
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !done;
+        }
+
+        @Override
+        public LocalDateTime next() {
+            if (done) {
+                throw new NoSuchElementException();
+            }
+            LocalDateTime current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            while (true) {
+                LocalDateTime candidate;
+                long ordinal;
+                if (daysOfWeek.isEmpty()) {
+                    candidate = periodStart(seriesStart, period);
+                    ordinal = period;
+                    period++;
+                } else {
+                    if (dayIndex >= daysOfWeek.size()) {
+                        dayIndex = 0;
+                        period++;
+                    }
+                    DayOfWeek day = daysOfWeek.get(dayIndex);
+                    LocalDateTime week = weekAnchor.plusWeeks(period * interval);
+                    candidate = week.plusDays(day.getValue() - 1L)
+                            .withHour(seriesStart.getHour())
+                            .withMinute(seriesStart.getMinute())
+                            .withSecond(seriesStart.getSecond())
+                            .withNano(seriesStart.getNano());
+                    ordinal = period * daysOfWeek.size() + dayIndex - skippedInFirstWeek;
+                    dayIndex++;
+                    if (candidate.isBefore(seriesStart)) {
+                        continue;
+                    }
+                }
+
+                if (!candidate.isBefore(to)
+                        || (until != null && candidate.toLocalDate().isAfter(until))
+                        || (count != null && ordinal >= count)) {
+                    done = true;
+                    next = null;
+                    return;
+                }
+                // Occurrence must end after the window start to overlap it
+                if (candidate.plus(duration).isAfter(from) || (duration.isZero() && !candidate.isBefore(from))) {
+                    next = candidate;
+                    return;
+                }
+            }
+        }
+    }
+}
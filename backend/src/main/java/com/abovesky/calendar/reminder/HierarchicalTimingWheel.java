@@ -0,0 +1,162 @@
+package com.abovesky.calendar.reminder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding large numbers of timers in a few arrays of buckets.
+ * Level 0 has {@code wheelSize} buckets of {@code tickMillis} each; every higher level has buckets
+ * {@code wheelSize} times wider. Timers far in the future sit in coarse buckets and cascade down as
+ * time advances, so scheduling is O(1) and each timer is touched at most once per level.
+ * Deadlines beyond the top level are parked in an overflow list.
+ *
+ * @param <T> timer payload
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final long[] tickMillis;
+    private final int wheelSize;
+    private final List<List<Entry<T>>> buckets; // level * wheelSize + slot
+    private final List<Entry<T>> overflow = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long currentTime;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.wheelSize = wheelSize;
+        this.tickMillis = new long[levels];
+        long tick = tickMillis;
+        for (int level = 0; level < levels; level++) {
+            this.tickMillis[level] = tick;
+            tick = Math.multiplyExact(tick, wheelSize);
+        }
+        this.buckets = new ArrayList<>(levels * wheelSize);
+        for (int i = 0; i < levels * wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedule a timer
+     *
+     * @return false if the deadline is already due; the caller should fire the payload itself
+     */
+    public boolean schedule(long deadlineMillis, T payload) {
+        lock.lock();
+        try {
+            boolean scheduled = place(new Entry<>(deadlineMillis, payload));
+            if (scheduled) {
+                size++;
+            }
+            return scheduled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Advance the wheel to the given time, handing every due payload to the consumer in deadline-bucket order
+     */
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        List<T> due = new ArrayList<>();
+        lock.lock();
+        try {
+            while (currentTime + tickMillis[0] <= nowMillis) {
+                currentTime += tickMillis[0];
+                tick(due);
+            }
+            size -= due.size();
+        } finally {
+            lock.unlock();
+        }
+        // Hand out payloads outside the lock so slow consumers don't block scheduling
+        due.forEach(expired);
+    }
+
+    /**
+     * Number of pending timers
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCurrentTime() {
+        lock.lock();
+        try {
+            return currentTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void tick(List<T> due) {
+        int levels = tickMillis.length;
+        if (!overflow.isEmpty() && currentTime % tickMillis[levels - 1] == 0) {
+            List<Entry<T>> parked = new ArrayList<>(overflow);
+            overflow.clear();
+            cascade(parked, due);
+        }
+        // Cascade from the coarsest level down, so entries can fall through several levels in one tick
+        for (int level = levels - 1; level >= 1; level--) {
+            if (currentTime % tickMillis[level] == 0) {
+                List<Entry<T>> bucket = bucket(level, currentTime);
+                if (!bucket.isEmpty()) {
+                    List<Entry<T>> moved = new ArrayList<>(bucket);
+                    bucket.clear();
+                    cascade(moved, due);
+                }
+            }
+        }
+        List<Entry<T>> current = bucket(0, currentTime);
+        if (!current.isEmpty()) {
+            for (Entry<T> entry : current) {
+                due.add(entry.payload);
+            }
+            current.clear();
+        }
+    }
+
+    private void cascade(List<Entry<T>> entries, List<T> due) {
+        for (Entry<T> entry : entries) {
+            if (!place(entry)) {
+                due.add(entry.payload);
+            }
+        }
+    }
+
+    private boolean place(Entry<T> entry) {
+        long deadline = entry.deadline;
+        if (Math.floorDiv(deadline, tickMillis[0]) - Math.floorDiv(currentTime, tickMillis[0]) <= 0) {
+            return false;
+        }
+        for (int level = 0; level < tickMillis.length; level++) {
+            long ticks = Math.floorDiv(deadline, tickMillis[level]) - Math.floorDiv(currentTime, tickMillis[level]);
+            if (ticks < wheelSize) {
+                bucket(level, deadline).add(entry);
+                return true;
+            }
+        }
+        overflow.add(entry);
+        return true;
+    }
+
+    private List<Entry<T>> bucket(int level, long time) {
+        int slot = (int) Math.floorMod(Math.floorDiv(time, tickMillis[level]), (long) wheelSize);
+        return buckets.get(level * wheelSize + slot);
+    }
+
+    private record Entry<T>(long deadline, T payload) {
+    }
+}
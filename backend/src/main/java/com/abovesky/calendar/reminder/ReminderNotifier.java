@@ -0,0 +1,71 @@
+package com.abovesky.calendar.reminder;
+
+import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.mail.EmailOutbox;
+import com.abovesky.calendar.repository.UserRepository;
+import com.abovesky.calendar.service.EmailService;
+import com.abovesky.calendar.service.SendGridEmailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Delivers fired reminders by email to the event owner and its assigned members.
+ * Uses the SendGrid templates when they are configured (prod profile) and the Thymeleaf ones otherwise.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReminderNotifier {
+
+    private static final DateTimeFormatter START_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final ObjectProvider<SendGridEmailService> sendGridEmailService;
+
+    public void notify(ReminderTask task) {
+        String startTime = task.occurrenceStart().format(START_FORMAT);
+        SendGridEmailService sendGrid = sendGridEmailService.getIfAvailable();
+        for (User user : userRepository.findAllById(recipients(task))) {
+            if (user.getEmail() == null) {
+                continue;
+            }
+            // One email per occurrence, offset and recipient, even if the reminder fires again after a restart
+            String idempotencyKey = EmailOutbox.key("event-reminder", String.valueOf(task.eventId()),
+                    task.occurrenceStart().toString(), String.valueOf(task.minutesBefore()),
+                    String.valueOf(user.getId()));
+            if (sendGrid != null) {
+                sendGrid.sendTaskReminderEmail(user.getEmail(), task.title(), startTime, idempotencyKey);
+            } else {
+                String name = user.getDisplayName() != null ? user.getDisplayName() : user.getUsername();
+                emailService.sendEventReminderEmail(user.getEmail(), name, task.title(), startTime,
+                        user.getPreferredLocale(), idempotencyKey);
+            }
+        }
+        log.debug("Reminder for event {} ({} minutes before {}) dispatched",
+                task.eventId(), task.minutesBefore(), task.occurrenceStart());
+    }
+
+    private static Set<Long> recipients(ReminderTask task) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (task.ownerId() != null) {
+            ids.add(task.ownerId());
+        }
+        if (task.assignedMembers() != null && !task.assignedMembers().isBlank()) {
+            for (String member : task.assignedMembers().split(",")) {
+                try {
+                    ids.add(Long.parseLong(member.trim()));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring invalid member id '{}' on event {}", member, task.eventId());
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,383 @@
+package com.abovesky.calendar.reminder;
+
+import com.abovesky.calendar.config.DaemonThreads;
+import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.entity.SchedulerState;
+import com.abovesky.calendar.mapper.EventMapper;
+import com.abovesky.calendar.repository.EventRepository;
+import com.abovesky.calendar.repository.SchedulerStateRepository;
+import com.abovesky.calendar.service.RecurrenceService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fires event reminders (Event.reminderMinutes) from a {@link HierarchicalTimingWheel} driven by a single
+ * ticker thread, instead of scheduling one timer per reminder.
+ * Only reminders due within the loading horizon are kept in memory; the horizon is extended periodically.
+ * Edited or deleted events bump a per-event version so already queued reminders are skipped lazily; the version
+ * is only kept while the event has reminders queued.
+ * The time up to which reminders have been delivered is persisted, so reminders missed during a restart
+ * are sent on startup if they are not older than the catch-up grace period. A reminder holds that high-water mark
+ * back until it is delivered: when the dispatch queue is full the ticker delivers it itself, and a failed delivery
+ * is retried until it is older than the catch-up grace period.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReminderScheduler {
+
+    static final String STATE_NAME = "event-reminders";
+    private static final long HIGH_WATER_MARK_PERSIST_MILLIS = 10_000;
+    private static final long RETRY_DELAY_MILLIS = 60_000;
+
+    private final EventRepository eventRepository;
+    private final EventMapper eventMapper;
+    private final RecurrenceService recurrenceService;
+    private final SchedulerStateRepository schedulerStateRepository;
+    private final ReminderNotifier reminderNotifier;
+
+    @Value("${reminders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reminders.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${reminders.horizon-minutes:360}")
+    private long horizonMinutes;
+
+    @Value("${reminders.refresh-minutes:5}")
+    private long refreshMinutes;
+
+    @Value("${reminders.max-lead-minutes:10080}")
+    private int maxLeadMinutes;
+
+    @Value("${reminders.catch-up-minutes:60}")
+    private long catchUpMinutes;
+
+    private final Clock clock = Clock.systemDefaultZone();
+    private final Map<Long, QueuedReminders> queued = new ConcurrentHashMap<>();
+    // Fire times (epoch millis) of reminders handed to the dispatcher and not yet delivered, with their count
+    private final ConcurrentSkipListMap<Long, Integer> undelivered = new ConcurrentSkipListMap<>();
+    private final ReentrantLock horizonLock = new ReentrantLock();
+
+    private HierarchicalTimingWheel<ReminderTask> wheel;
+    private ScheduledExecutorService ticker;
+    private ThreadPoolExecutor dispatcher;
+    private volatile boolean running;
+    private LocalDateTime loadedUntil;
+    private long lastRefreshMillis;
+    private long persistedHighWaterMark;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime catchUpFrom = now.minusMinutes(catchUpMinutes);
+        LocalDateTime highWaterMark = schedulerStateRepository.findById(STATE_NAME)
+                .map(SchedulerState::getHighWaterMark)
+                .orElse(now);
+        LocalDateTime from = highWaterMark.isAfter(catchUpFrom) ? highWaterMark : catchUpFrom;
+
+        wheel = new HierarchicalTimingWheel<>(tickMillis, 64, 4, clock.millis());
+        dispatcher = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(10_000),
+                DaemonThreads.numbered("reminder-dispatch"), new ThreadPoolExecutor.CallerRunsPolicy());
+        ticker = DaemonThreads.singleThreadScheduler("reminder-wheel");
+        running = true;
+
+        persistedHighWaterMark = toMillis(now);
+        lastRefreshMillis = clock.millis();
+        loadWindow(from, now.plusMinutes(horizonMinutes));
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("Reminder scheduler started with {} pending reminders (catching up from {})", wheel.size(), from);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        ticker.shutdownNow();
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+                dispatcher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        persistHighWaterMark(deliveredUntil());
+    }
+
+    /**
+     * (Re)compute the pending reminders of a created or updated event; earlier ones are invalidated
+     */
+    public void reschedule(EventDto event) {
+        if (!running || event.getId() == null) {
+            return;
+        }
+        horizonLock.lock();
+        try {
+            QueuedReminders current = queued.computeIfPresent(event.getId(), (id, reminders) -> {
+                reminders.version++;
+                return reminders;
+            });
+            int version = current != null ? current.version : 0;
+            LocalDateTime now = LocalDateTime.now(clock);
+            for (ReminderTask task : reminderTasks(event, version, now, loadedUntil)) {
+                enqueue(task);
+            }
+        } finally {
+            horizonLock.unlock();
+        }
+    }
+
+    /**
+     * Invalidate the pending reminders of a deleted event. Called once the delete has committed: it waits for a
+     * window being loaded, which may have read the event before the delete, and invalidates what that queued;
+     * windows loaded afterwards no longer see the event.
+     */
+    public void cancel(Long eventId) {
+        if (!running || eventId == null) {
+            return;
+        }
+        horizonLock.lock();
+        try {
+            // Nothing to invalidate when no reminder of the event is queued
+            queued.computeIfPresent(eventId, (id, reminders) -> {
+                reminders.version++;
+                return reminders;
+            });
+        } finally {
+            horizonLock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return running ? wheel.size() : 0;
+    }
+
+    private void tick() {
+        try {
+            long now = clock.millis();
+            wheel.advanceTo(now, this::dispatch);
+            if (now - lastRefreshMillis >= TimeUnit.MINUTES.toMillis(refreshMinutes)) {
+                lastRefreshMillis = now;
+                loadWindow(loadedUntil, LocalDateTime.now(clock).plusMinutes(horizonMinutes));
+            }
+            long deliveredUntil = deliveredUntil();
+            if (deliveredUntil - persistedHighWaterMark >= HIGH_WATER_MARK_PERSIST_MILLIS) {
+                persistHighWaterMark(deliveredUntil);
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the periodic tick
+            log.error("Reminder scheduler tick failed", e);
+        }
+    }
+
+    /**
+     * Queue every reminder firing in [from, to) and mark the horizon as loaded up to {@code to}
+     */
+    private void loadWindow(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        horizonLock.lock();
+        try {
+            // A reminder firing before 'to' belongs to an occurrence starting at most maxLeadMinutes later
+            List<EventDto> events = eventRepository.findWithRemindersStartingBetween(from, to.plusMinutes(maxLeadMinutes))
+                    .stream()
+                    .map(eventMapper::toDto)
+                    .toList();
+            int count = 0;
+            for (EventDto event : events) {
+                QueuedReminders current = queued.get(event.getId());
+                int version = current != null ? current.version : 0;
+                for (ReminderTask task : reminderTasks(event, version, from, to)) {
+                    enqueue(task);
+                    count++;
+                }
+            }
+            loadedUntil = to;
+            log.debug("Queued {} reminders firing between {} and {}", count, from, to);
+        } finally {
+            horizonLock.unlock();
+        }
+    }
+
+    private List<ReminderTask> reminderTasks(EventDto event, int version, LocalDateTime from, LocalDateTime to) {
+        List<Integer> offsets = parseOffsets(event);
+        if (offsets.isEmpty() || event.getStartDate() == null) {
+            return List.of();
+        }
+        LocalDateTime occurrencesTo = to.plusMinutes(maxLeadMinutes);
+        List<LocalDateTime> starts = new ArrayList<>();
+        if (recurrenceService.getRule(event) != null) {
+            for (EventDto occurrence : recurrenceService.expand(List.of(event), from, occurrencesTo)) {
+                if (!occurrence.getStartDate().isBefore(from)) {
+                    starts.add(occurrence.getStartDate());
+                }
+            }
+        } else {
+            starts.add(event.getStartDate());
+        }
+
+        List<ReminderTask> tasks = new ArrayList<>();
+        for (LocalDateTime start : starts) {
+            for (int minutes : offsets) {
+                LocalDateTime fireAt = start.minusMinutes(minutes);
+                if (!fireAt.isBefore(from) && fireAt.isBefore(to)) {
+                    tasks.add(new ReminderTask(event.getId(), version, event.getTitle(), start, minutes, fireAt,
+                            event.getUserId(), event.getAssignedMembers()));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private List<Integer> parseOffsets(EventDto event) {
+        String reminderMinutes = event.getReminderMinutes();
+        if (reminderMinutes == null || reminderMinutes.isBlank()) {
+            return List.of();
+        }
+        List<Integer> offsets = new ArrayList<>();
+        for (String value : reminderMinutes.split(",")) {
+            try {
+                int minutes = Integer.parseInt(value.trim());
+                if (minutes >= 0 && minutes <= maxLeadMinutes && !offsets.contains(minutes)) {
+                    offsets.add(minutes);
+                } else if (minutes > maxLeadMinutes) {
+                    log.debug("Ignoring reminder {} minutes before event {}: exceeds max lead time", minutes, event.getId());
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring invalid reminder minutes '{}' on event {}", value, event.getId());
+            }
+        }
+        return offsets;
+    }
+
+    private void enqueue(ReminderTask task) {
+        queued.compute(task.eventId(), (id, reminders) -> {
+            if (reminders == null) {
+                reminders = new QueuedReminders(task.version());
+            }
+            reminders.count++;
+            return reminders;
+        });
+        if (!wheel.schedule(toMillis(task.fireAt()), task)) {
+            dispatch(task);
+        }
+    }
+
+    private void dispatch(ReminderTask task) {
+        boolean[] current = new boolean[1];
+        queued.computeIfPresent(task.eventId(), (id, reminders) -> {
+            current[0] = reminders.version == task.version();
+            return --reminders.count == 0 ? null : reminders;
+        });
+        if (!current[0]) {
+            // The event was edited or deleted after this reminder was queued
+            return;
+        }
+        long fireAt = toMillis(task.fireAt());
+        undelivered.merge(fireAt, 1, Integer::sum);
+        dispatcher.execute(() -> deliver(task, fireAt));
+    }
+
+    private void deliver(ReminderTask task, long fireAt) {
+        try {
+            reminderNotifier.notify(task);
+        } catch (Exception e) {
+            if (clock.millis() - fireAt >= TimeUnit.MINUTES.toMillis(catchUpMinutes)) {
+                log.error("Failed to send reminder for event {}, giving up", task.eventId(), e);
+            } else if (retry(task, fireAt)) {
+                log.warn("Failed to send reminder for event {}, retrying in {} s: {}", task.eventId(),
+                        TimeUnit.MILLISECONDS.toSeconds(RETRY_DELAY_MILLIS), e.getMessage());
+                return;
+            } else {
+                // Stopping: left undelivered, so the high-water mark persisted on stop has the next start fire it
+                log.warn("Failed to send reminder for event {} while stopping, leaving it to the next start: {}",
+                        task.eventId(), e.getMessage());
+                return;
+            }
+        }
+        undelivered.computeIfPresent(fireAt, (time, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Deliver again after a delay, keeping the high-water mark held back in the meantime; false when stopping
+     */
+    private boolean retry(ReminderTask task, long fireAt) {
+        if (!running) {
+            return false;
+        }
+        try {
+            ticker.schedule(() -> dispatcher.execute(() -> deliver(task, fireAt)),
+                    RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Time up to which every fired reminder has been delivered: the wheel's time, or the fire time of the oldest
+     * reminder still in the dispatch queue or waiting to be retried
+     */
+    private long deliveredUntil() {
+        long until = wheel.getCurrentTime();
+        Map.Entry<Long, Integer> oldest = undelivered.firstEntry();
+        return oldest != null ? Math.min(until, oldest.getKey()) : until;
+    }
+
+    private void persistHighWaterMark(long millis) {
+        try {
+            LocalDateTime highWaterMark = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+            schedulerStateRepository.save(new SchedulerState(STATE_NAME, highWaterMark, null));
+            persistedHighWaterMark = millis;
+        } catch (Exception e) {
+            log.warn("Failed to persist reminder high-water mark: {}", e.getMessage());
+        }
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        ZoneId zone = clock.getZone();
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Version of an event's reminders and how many of them are queued; dropped when the count reaches zero
+     */
+    private static final class QueuedReminders {
+        int version;
+        int count;
+
+        QueuedReminders(int version) {
+            this.version = version;
+        }
+    }
+}
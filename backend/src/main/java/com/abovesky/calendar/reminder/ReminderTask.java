@@ -0,0 +1,20 @@
+package com.abovesky.calendar.reminder;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single pending reminder: one reminder offset of one event occurrence.
+ *
+ * @param version event version the reminder was computed from; stale versions are skipped when fired
+ */
+public record ReminderTask(
+        Long eventId,
+        int version,
+        String title,
+        LocalDateTime occurrenceStart,
+        int minutesBefore,
+        LocalDateTime fireAt,
+        Long ownerId,
+        String assignedMembers
+) {
+}
@@ -0,0 +1,55 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.entity.DashboardCounter;
+import com.abovesky.calendar.projection.UserDashboardMetrics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DashboardCounterRepository extends JpaRepository<DashboardCounter, DashboardCounter.Key> {
+    List<DashboardCounter> findByScopeAndOwnerId(String scope, Long ownerId);
+
+    /**
+     * Atomically add delta to a counter; returns 0 when the counter row does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE DashboardCounter c SET c.value = c.value + :delta, c.updatedAt = :now " +
+            "WHERE c.scope = :scope AND c.ownerId = :ownerId AND c.name = :name")
+    int increment(@Param("scope") String scope,
+                  @Param("ownerId") Long ownerId,
+                  @Param("name") String name,
+                  @Param("delta") long delta,
+                  @Param("now") LocalDateTime now);
+
+    /**
+     * Reward points and all per-user counters in one round trip, pivoted by conditional aggregation.
+     * A counter without a row yet (user created since the last reconciliation) is counted from its source table;
+     * COALESCE only evaluates that subquery when the counter is missing. Empty when the user does not exist.
+     */
+    @Query(value = "SELECT u.reward_points AS \"rewardPoints\", " +
+            "COALESCE(MAX(CASE WHEN c.name = 'assignedTasks' THEN c.counter_value END), " +
+            "  (SELECT COUNT(*) FROM tasks t WHERE t.assigned_user_id = u.id)) AS \"assignedTasks\", " +
+            "COALESCE(MAX(CASE WHEN c.name = 'completedTasks' THEN c.counter_value END), " +
+            "  (SELECT COUNT(*) FROM tasks t WHERE t.assigned_user_id = u.id AND t.status = 'completed')) " +
+            "  AS \"completedTasks\", " +
+            "COALESCE(MAX(CASE WHEN c.name = 'pendingTasks' THEN c.counter_value END), " +
+            "  (SELECT COUNT(*) FROM tasks t WHERE t.assigned_user_id = u.id AND t.status = 'pending')) " +
+            "  AS \"pendingTasks\", " +
+            "COALESCE(MAX(CASE WHEN c.name = 'redemptions' THEN c.counter_value END), " +
+            "  (SELECT COUNT(*) FROM reward_redemptions r WHERE r.user_id = u.id)) AS \"redemptions\", " +
+            "COALESCE(MAX(CASE WHEN c.name = 'uploadedPhotos' THEN c.counter_value END), " +
+            "  (SELECT COUNT(*) FROM photos p WHERE p.uploaded_by = u.id)) AS \"uploadedPhotos\" " +
+            "FROM users u " +
+            "LEFT JOIN dashboard_counters c ON c.scope = 'user' AND c.owner_id = u.id " +
+            "WHERE u.id = :userId " +
+            "GROUP BY u.id, u.reward_points",
+            nativeQuery = true)
+    Optional<UserDashboardMetrics> findUserMetrics(@Param("userId") Long userId);
+}
@@ -1,12 +1,62 @@
 package com.abovesky.calendar.repository;
 
+import com.abovesky.calendar.dto.EventDto;
 import com.abovesky.calendar.entity.Event;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
+
+    /**
+     * Constructor expression selecting an {@link EventDto} straight from the row, without a managed entity
+     */
+    String DTO = "new com.abovesky.calendar.dto.EventDto(e.id, e.title, e.description, e.startDate, e.endDate, "
+            + "e.userId, e.category, e.color, e.isAllDay, e.recurrencePattern, e.assignedMembers, e.reminderMinutes, "
+            + "e.icon, e.createdAt, e.updatedAt)";
+
     List<Event> findByUserId(Long userId);
+
+    @Query("SELECT " + DTO + " FROM Event e WHERE e.userId = :userId")
+    List<EventDto> findAsDtoByUserId(@Param("userId") Long userId);
+
+    /**
+     * A page of all events in id order, starting after the given id; for reading the whole table page by page
+     */
+    @Query("SELECT " + DTO + " FROM Event e WHERE e.id > :afterId ORDER BY e.id")
+    List<EventDto> findAsDtoAfterId(@Param("afterId") Long afterId, Pageable page);
+
+    @Query("SELECT " + DTO + " FROM Event e WHERE e.userId = :userId AND e.recurrencePattern IS NOT NULL")
+    List<EventDto> findRecurringAsDtoByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT " + DTO + " FROM Event e WHERE e.userId = :userId AND e.recurrencePattern IS NOT NULL " +
+            "AND e.startDate < :to")
+    List<EventDto> findRecurringAsDtoByUserIdStartingBefore(@Param("userId") Long userId,
+                                                            @Param("to") LocalDateTime to);
+
+    /**
+     * Non-recurring events of a user overlapping [from, to); served by idx_events_user_start_end
+     */
+    @Query("SELECT " + DTO + " FROM Event e WHERE e.userId = :userId AND e.recurrencePattern IS NULL " +
+            "AND e.startDate < :to AND (e.endDate > :from OR e.startDate >= :from) " +
+            "ORDER BY e.startDate")
+    List<EventDto> findSingleEventsInWindow(@Param("userId") Long userId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    /**
+     * Events with reminders whose (first) occurrence may start in [from, to): single events starting in the
+     * window plus every recurring series that started before its end
+     */
+    @Query("SELECT e FROM Event e WHERE e.reminderMinutes IS NOT NULL AND (" +
+            "(e.recurrencePattern IS NULL AND e.startDate >= :from AND e.startDate < :to) " +
+            "OR (e.recurrencePattern IS NOT NULL AND e.startDate < :to))")
+    List<Event> findWithRemindersStartingBetween(@Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
 }
@@ -1,15 +1,38 @@
 package com.abovesky.calendar.repository;
 
+import com.abovesky.calendar.dto.FamilyListDto;
 import com.abovesky.calendar.entity.FamilyList;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface FamilyListRepository extends JpaRepository<FamilyList, Long> {
+
+    /**
+     * Constructor expression selecting a {@link FamilyListDto} straight from the row, without a managed entity
+     */
+    String DTO = "new com.abovesky.calendar.dto.FamilyListDto(l.id, l.name, l.type, l.description, l.isShared, "
+            + "l.createdBy, l.isArchived, l.archivedAt, l.icon, l.createdAt, l.updatedAt)";
+
     List<FamilyList> findByCreatedBy(Long userId);
     List<FamilyList> findByIsArchivedFalse();
+    Window<FamilyList> findByIsArchivedFalse(ScrollPosition position, Sort sort, Limit limit);
     List<FamilyList> findByIsSharedTrue();
+
+    @Query("SELECT " + DTO + " FROM FamilyList l WHERE l.isArchived = false")
+    List<FamilyListDto> findAsDtoByIsArchivedFalse();
+
+    @Query("SELECT " + DTO + " FROM FamilyList l WHERE l.isShared = true AND l.isArchived = false")
+    List<FamilyListDto> findAsDtoByIsSharedTrueAndIsArchivedFalse();
+
     List<FamilyList> findByType(String type);
+    long countByIsArchivedFalse();
 }
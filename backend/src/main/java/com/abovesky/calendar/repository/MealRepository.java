@@ -1,7 +1,12 @@
 package com.abovesky.calendar.repository;
 
+import com.abovesky.calendar.dto.MealDto;
 import com.abovesky.calendar.entity.Meal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -9,10 +14,38 @@ import java.util.List;
 
 @Repository
 public interface MealRepository extends JpaRepository<Meal, Long> {
+
+    /**
+     * Constructor expression selecting a meal as listed: a {@link MealDto} without the recipe, which can run to
+     * thousands of characters and is only returned for a single meal
+     */
+    String LIST_ITEM = "new com.abovesky.calendar.dto.MealDto(m.id, m.name, m.category, m.ingredients, "
+            + "m.assignedDate, m.mealType, m.dietaryTags, m.imageUrl, m.isFavorite, m.icon, m.createdBy, "
+            + "m.createdAt, m.updatedAt)";
+
     List<Meal> findByAssignedDate(LocalDate date);
     List<Meal> findByAssignedDateBetween(LocalDate startDate, LocalDate endDate);
     List<Meal> findByCategory(String category);
     List<Meal> findByIsFavorite(Boolean isFavorite);
     List<Meal> findByCreatedBy(Long userId);
     List<Meal> findByNameContainingIgnoreCase(String name);
+
+    @Query("SELECT " + LIST_ITEM + " FROM Meal m")
+    List<MealDto> findAllListItems();
+
+    @Query(value = "SELECT " + LIST_ITEM + " FROM Meal m", countQuery = "SELECT count(m) FROM Meal m")
+    Page<MealDto> findAllListItems(Pageable pageable);
+
+    @Query("SELECT " + LIST_ITEM + " FROM Meal m WHERE m.assignedDate BETWEEN :startDate AND :endDate")
+    List<MealDto> findListItemsByAssignedDateBetween(@Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT " + LIST_ITEM + " FROM Meal m WHERE m.category = :category")
+    List<MealDto> findListItemsByCategory(@Param("category") String category);
+
+    @Query("SELECT " + LIST_ITEM + " FROM Meal m WHERE m.isFavorite = :isFavorite")
+    List<MealDto> findListItemsByIsFavorite(@Param("isFavorite") Boolean isFavorite);
+
+    @Query("SELECT " + LIST_ITEM + " FROM Meal m WHERE lower(m.name) LIKE lower(concat('%', :name, '%'))")
+    List<MealDto> findListItemsByNameContainingIgnoreCase(@Param("name") String name);
 }
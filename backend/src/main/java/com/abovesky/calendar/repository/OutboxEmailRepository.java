@@ -0,0 +1,40 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.entity.OutboxEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Oldest due pending emails, locked; rows already locked by another dispatcher are skipped instead of waited on
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxEmail o WHERE o.status = 'pending' AND o.nextAttemptAt <= :now "
+            + "ORDER BY o.nextAttemptAt")
+    List<OutboxEmail> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(String status);
+
+    @Query("SELECT MIN(o.createdAt) FROM OutboxEmail o WHERE o.status = 'pending'")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEmail o WHERE o.status <> 'pending' AND o.createdAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,7 +1,14 @@
 package com.abovesky.calendar.repository;
 
+import com.abovesky.calendar.dto.PhotoDto;
 import com.abovesky.calendar.entity.Photo;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -9,9 +16,26 @@ import java.util.List;
 
 @Repository
 public interface PhotoRepository extends JpaRepository<Photo, Long> {
+
+    /**
+     * Constructor expression selecting a {@link PhotoDto} straight from the row, without a managed entity
+     */
+    String DTO = "new com.abovesky.calendar.dto.PhotoDto(p.id, p.fileName, p.filePath, p.caption, p.comments, "
+            + "p.eventId, p.photoDate, p.uploadedBy, p.tags, p.uploadedAt, p.updatedAt)";
+
     List<Photo> findByUploadedBy(Long userId);
     List<Photo> findByEventId(Long eventId);
     List<Photo> findByPhotoDateBetween(LocalDateTime startDate, LocalDateTime endDate);
-    List<Photo> findAllByOrderByPhotoDateDesc();
-    List<Photo> findAllByOrderByUploadedAtDesc();
+    Window<Photo> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("SELECT " + DTO + " FROM Photo p ORDER BY p.photoDate DESC")
+    List<PhotoDto> findAllAsDtoOrderByPhotoDateDesc();
+
+    @Query("SELECT " + DTO + " FROM Photo p WHERE p.uploadedBy = :userId")
+    List<PhotoDto> findAsDtoByUploadedBy(@Param("userId") Long userId);
+
+    @Query("SELECT " + DTO + " FROM Photo p WHERE p.eventId = :eventId")
+    List<PhotoDto> findAsDtoByEventId(@Param("eventId") Long eventId);
+
+    long countByUploadedBy(Long userId);
 }
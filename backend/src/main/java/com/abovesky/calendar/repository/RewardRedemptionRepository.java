@@ -11,4 +11,5 @@ public interface RewardRedemptionRepository extends JpaRepository<RewardRedempti
     List<RewardRedemption> findByUserId(Long userId);
     List<RewardRedemption> findByUserIdOrderByRedeemedAtDesc(Long userId);
     List<RewardRedemption> findByStatus(String status);
+    long countByUserId(Long userId);
 }
@@ -1,14 +1,41 @@
 package com.abovesky.calendar.repository;
 
+import com.abovesky.calendar.dto.RewardDto;
 import com.abovesky.calendar.entity.Reward;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface RewardRepository extends JpaRepository<Reward, Long> {
+
+    /**
+     * Constructor expression selecting a {@link RewardDto} straight from the row, without a managed entity
+     */
+    String DTO = "new com.abovesky.calendar.dto.RewardDto(r.id, r.name, r.description, r.pointsCost, r.category, "
+            + "r.imageUrl, r.isActive, r.stockQuantity, r.icon, r.createdAt, r.updatedAt)";
+
     List<Reward> findByIsActive(Boolean isActive);
     List<Reward> findByCategory(String category);
     List<Reward> findByIsActiveAndPointsCostLessThanEqual(Boolean isActive, Integer points);
+    Window<Reward> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("SELECT " + DTO + " FROM Reward r")
+    List<RewardDto> findAllAsDto();
+
+    @Query("SELECT " + DTO + " FROM Reward r WHERE r.isActive = :isActive")
+    List<RewardDto> findAsDtoByIsActive(@Param("isActive") Boolean isActive);
+
+    @Query("SELECT " + DTO + " FROM Reward r WHERE r.isActive = :isActive AND r.pointsCost <= :points")
+    List<RewardDto> findAsDtoByIsActiveAndPointsCostLessThanEqual(@Param("isActive") Boolean isActive,
+                                                                  @Param("points") Integer points);
+
+    long countByIsActive(Boolean isActive);
 }
@@ -0,0 +1,9 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.entity.SchedulerState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchedulerStateRepository extends JpaRepository<SchedulerState, String> {
+}
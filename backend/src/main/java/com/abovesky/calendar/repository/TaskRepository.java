@@ -1,16 +1,45 @@
 package com.abovesky.calendar.repository;
 
+import com.abovesky.calendar.dto.TaskDto;
 import com.abovesky.calendar.entity.Task;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
+
+    /**
+     * Constructor expression selecting a {@link TaskDto} straight from the row, without a managed entity
+     */
+    String DTO = "new com.abovesky.calendar.dto.TaskDto(t.id, t.title, t.description, t.dueDate, t.assignedUserId, "
+            + "t.priority, t.status, t.category, t.recurrencePattern, t.rewardPoints, t.subtasks, t.orderIndex, "
+            + "t.icon, t.completedAt, t.createdBy, t.createdAt, t.updatedAt)";
+
     List<Task> findByAssignedUserId(Long userId);
     List<Task> findByCreatedBy(Long userId);
     List<Task> findByStatus(String status);
     List<Task> findByAssignedUserIdAndStatus(Long userId, String status);
     List<Task> findByAssignedUserIdOrderByOrderIndexAsc(Long userId);
+    Window<Task> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("SELECT " + DTO + " FROM Task t")
+    List<TaskDto> findAllAsDto();
+
+    @Query("SELECT " + DTO + " FROM Task t WHERE t.assignedUserId = :userId")
+    List<TaskDto> findAsDtoByAssignedUserId(@Param("userId") Long userId);
+
+    @Query("SELECT " + DTO + " FROM Task t WHERE t.status = :status")
+    List<TaskDto> findAsDtoByStatus(@Param("status") String status);
+
+    long countByStatus(String status);
+    long countByAssignedUserId(Long userId);
+    long countByAssignedUserIdAndStatus(Long userId, String status);
 }
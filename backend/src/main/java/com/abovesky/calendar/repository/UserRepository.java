@@ -1,16 +1,59 @@
 package com.abovesky.calendar.repository;
 
+import com.abovesky.calendar.dto.UserDto;
 import com.abovesky.calendar.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    /**
+     * Constructor expression selecting a {@link UserDto} straight from the row; the secret columns are never read
+     */
+    String DTO = "new com.abovesky.calendar.dto.UserDto(u.id, u.username, u.email, u.roles, u.displayName, "
+            + "u.color, u.age, u.isParent, u.rewardPoints, u.preferredLocale, u.photo, u.dateOfBirth, u.role, "
+            + "u.phone, u.gender, u.isParentMode, "
+            + "CASE WHEN u.parentModePin IS NOT NULL AND u.parentModePin <> '' THEN true ELSE false END, "
+            + "u.createdAt, u.updatedAt)";
+
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Optional<User> findByPinResetToken(String pinResetToken);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    @Query("SELECT " + DTO + " FROM User u WHERE u.id = :id")
+    Optional<UserDto> findAsDtoById(@Param("id") Long id);
+
+    @Query("SELECT " + DTO + " FROM User u WHERE u.username = :username")
+    Optional<UserDto> findAsDtoByUsername(@Param("username") String username);
+
+    /**
+     * Write a new password hash in a short transaction of its own; callers hash first, so waiting for the hashing
+     * pool and running BCrypt never holds a connection
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password, u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    /**
+     * Write a new PIN hash, like {@link #updatePassword}
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.parentModePin = :pin, u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int updateParentModePin(@Param("id") Long id, @Param("pin") String pin);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.isParentMode = :parentMode, u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int updateParentMode(@Param("id") Long id, @Param("parentMode") Boolean parentMode);
 }
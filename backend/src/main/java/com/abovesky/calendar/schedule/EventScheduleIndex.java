@@ -0,0 +1,308 @@
+package com.abovesky.calendar.schedule;
+
+import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.dto.FreeBusyDto;
+import com.abovesky.calendar.dto.TimeSlotDto;
+import com.abovesky.calendar.service.RecurrenceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * In-memory schedule index used for conflict detection and free/busy lookups.
+ * Every event is indexed under its owner and under each id in assignedMembers: single events live in a
+ * per-participant {@link IntervalTree}, recurring series are kept aside and expanded only for the queried window.
+ * The index is hydrated once, in the background at startup (or by the first query if that failed), and then kept
+ * up to date by EventService, which applies its own changes once they are committed and those of other nodes as
+ * they arrive over the cache invalidation bus.
+ * Hydration reads the events without holding the lock, so writes never wait for it: one landing while the index
+ * loads is recorded and applied on top of the snapshot, one landing before is left to the load, which reads the
+ * committed change from the database. Queries wait for hydration to finish.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventScheduleIndex {
+
+    private final RecurrenceService recurrenceService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, EventDto> events = new HashMap<>();
+    private final Map<Long, IntervalTree<EventDto>> singleEvents = new HashMap<>();
+    private final Map<Long, Map<Long, EventDto>> recurringEvents = new HashMap<>();
+    // Latest version of each event written during hydration, null when deleted
+    private final Map<Long, EventDto> writtenWhileLoading = new HashMap<>();
+    private final Object loadMonitor = new Object();
+    private boolean loading;
+    private volatile boolean loaded;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Hydrate the index once from the given loader, waiting for a hydration already running; later calls are
+     * no-ops. A failed hydration leaves the index empty for the next call to retry.
+     */
+    public void load(Supplier<Stream<EventDto>> loader) {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadMonitor) {
+            if (loaded) {
+                return;
+            }
+            setLoading(true);
+            // Nothing reads the maps until loaded is set, and writes are recorded aside meanwhile
+            long count = 0;
+            try (Stream<EventDto> all = loader.get()) {
+                for (EventDto event : (Iterable<EventDto>) all::iterator) {
+                    add(event);
+                    count++;
+                }
+            } catch (RuntimeException e) {
+                setLoading(false);
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                writtenWhileLoading.forEach((eventId, event) -> {
+                    remove(eventId);
+                    if (event != null) {
+                        add(event);
+                    }
+                });
+                writtenWhileLoading.clear();
+                loading = false;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Schedule index loaded with {} events", count);
+        }
+    }
+
+    private void setLoading(boolean loading) {
+        lock.writeLock().lock();
+        try {
+            this.loading = loading;
+            writtenWhileLoading.clear();
+            events.clear();
+            singleEvents.clear();
+            recurringEvents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index a created or updated event, replacing any previous version
+     */
+    public void put(EventDto event) {
+        if (event.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                // Not hydrated yet: the load either reads the committed event or applies it afterwards
+                if (loading) {
+                    writtenWhileLoading.put(event.getId(), event);
+                }
+                return;
+            }
+            remove(event.getId());
+            add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a deleted event from the index
+     */
+    public void evict(Long eventId) {
+        if (eventId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                if (loading) {
+                    writtenWhileLoading.put(eventId, null);
+                }
+                return;
+            }
+            remove(eventId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find events (or occurrences of recurring events) of the given participants overlapping [from, to)
+     *
+     * @param excludeEventId event to ignore, e.g. the one being rescheduled (may be null)
+     */
+    public List<EventDto> findConflicts(Collection<Long> participantIds, LocalDateTime from, LocalDateTime to,
+                                        Long excludeEventId) {
+        Map<String, EventDto> conflicts = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long participantId : participantIds) {
+                for (EventDto event : overlapping(participantId, from, to)) {
+                    if (!event.getId().equals(excludeEventId)) {
+                        // The same event can be reached through several participants
+                        conflicts.putIfAbsent(event.getId() + "@" + event.getStartDate(), event);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<EventDto> result = new ArrayList<>(conflicts.values());
+        result.sort(Comparator.comparing(EventDto::getStartDate));
+        return result;
+    }
+
+    /**
+     * Compute merged busy slots and the free gaps between them for each member over [from, to)
+     */
+    public List<FreeBusyDto> getFreeBusy(Collection<Long> memberIds, LocalDateTime from, LocalDateTime to) {
+        List<FreeBusyDto> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long memberId : memberIds) {
+                List<EventDto> busyEvents = overlapping(memberId, from, to);
+                busyEvents.sort(Comparator.comparing(EventDto::getStartDate));
+                List<TimeSlotDto> busy = mergeBusy(busyEvents, from, to);
+                result.add(new FreeBusyDto(memberId, busy, freeGaps(busy, from, to)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private List<EventDto> overlapping(Long participantId, LocalDateTime from, LocalDateTime to) {
+        List<EventDto> result = new ArrayList<>();
+        IntervalTree<EventDto> tree = singleEvents.get(participantId);
+        if (tree != null) {
+            result.addAll(tree.overlapping(toEpoch(from), toEpoch(to)));
+        }
+        Map<Long, EventDto> series = recurringEvents.get(participantId);
+        if (series != null && !series.isEmpty()) {
+            result.addAll(recurrenceService.expand(new ArrayList<>(series.values()), from, to));
+        }
+        return result;
+    }
+
+    private static List<TimeSlotDto> mergeBusy(List<EventDto> sortedEvents, LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDto> busy = new ArrayList<>();
+        TimeSlotDto current = null;
+        for (EventDto event : sortedEvents) {
+            LocalDateTime start = event.getStartDate().isBefore(from) ? from : event.getStartDate();
+            LocalDateTime end = event.getEndDate().isAfter(to) ? to : event.getEndDate();
+            if (current != null && !start.isAfter(current.getEnd())) {
+                if (end.isAfter(current.getEnd())) {
+                    current.setEnd(end);
+                }
+            } else {
+                current = new TimeSlotDto(start, end);
+                busy.add(current);
+            }
+        }
+        return busy;
+    }
+
+    private static List<TimeSlotDto> freeGaps(List<TimeSlotDto> busy, LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (TimeSlotDto slot : busy) {
+            if (slot.getStart().isAfter(cursor)) {
+                free.add(new TimeSlotDto(cursor, slot.getStart()));
+            }
+            if (slot.getEnd().isAfter(cursor)) {
+                cursor = slot.getEnd();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new TimeSlotDto(cursor, to));
+        }
+        return free;
+    }
+
+    private void add(EventDto event) {
+        if (event.getId() == null || event.getStartDate() == null || event.getEndDate() == null) {
+            return;
+        }
+        events.put(event.getId(), event);
+        boolean recurring = recurrenceService.getRule(event) != null;
+        for (Long participantId : participants(event)) {
+            if (recurring) {
+                recurringEvents.computeIfAbsent(participantId, k -> new HashMap<>()).put(event.getId(), event);
+            } else {
+                singleEvents.computeIfAbsent(participantId, k -> new IntervalTree<>())
+                        .insert(toEpoch(event.getStartDate()), toEpoch(event.getEndDate()), event.getId(), event);
+            }
+        }
+    }
+
+    private void remove(Long eventId) {
+        EventDto previous = events.remove(eventId);
+        if (previous == null) {
+            return;
+        }
+        for (Long participantId : participants(previous)) {
+            Map<Long, EventDto> series = recurringEvents.get(participantId);
+            if (series != null && series.remove(eventId) != null && series.isEmpty()) {
+                recurringEvents.remove(participantId);
+            }
+            IntervalTree<EventDto> tree = singleEvents.get(participantId);
+            if (tree != null && tree.remove(toEpoch(previous.getStartDate()), eventId) && tree.isEmpty()) {
+                singleEvents.remove(participantId);
+            }
+        }
+    }
+
+    /**
+     * Owner plus every parsable id in the comma-separated assignedMembers
+     */
+    private static Set<Long> participants(EventDto event) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (event.getUserId() != null) {
+            ids.add(event.getUserId());
+        }
+        String members = event.getAssignedMembers();
+        if (members != null && !members.isBlank()) {
+            for (String member : members.split(",")) {
+                try {
+                    ids.add(Long.parseLong(member.trim()));
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring invalid member id '{}' on event {}", member, event.getId());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static long toEpoch(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,148 @@
+package com.abovesky.calendar.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client address of a request, believing forwarding headers only when they were set by a trusted proxy.
+ * {@code X-Forwarded-For} is read from the right, skipping trusted proxies, so a client cannot choose its own
+ * address by sending the header itself; the leftmost value is never trusted on its own.
+ * Only address literals are parsed, never host names, so resolving costs no DNS lookup.
+ */
+public class ClientIpResolver {
+
+    private final List<Cidr> trustedProxies = new ArrayList<>();
+
+    /**
+     * @param trustedProxies addresses or CIDR ranges of the reverse proxies in front of the application
+     */
+    public ClientIpResolver(List<String> trustedProxies) {
+        for (String entry : trustedProxies) {
+            String trimmed = entry.trim();
+            if (!trimmed.isEmpty()) {
+                this.trustedProxies.add(Cidr.parse(trimmed));
+            }
+        }
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (!isTrusted(remote)) {
+            return remote;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isEmpty()) {
+            int end = forwardedFor.length();
+            String candidate = null;
+            while (end > 0) {
+                int comma = forwardedFor.lastIndexOf(',', end - 1);
+                candidate = forwardedFor.substring(comma + 1, end).trim();
+                if (!candidate.isEmpty() && !isTrusted(candidate)) {
+                    return candidate;
+                }
+                end = comma < 0 ? 0 : comma;
+            }
+            if (candidate != null && !candidate.isEmpty()) {
+                // Every hop is a trusted proxy: the leftmost is the closest thing to a client
+                return candidate;
+            }
+        }
+        String realIp = request.getHeader("X-Real-IP");
+        return realIp != null && !realIp.isEmpty() ? realIp.trim() : remote;
+    }
+
+    boolean isTrusted(String address) {
+        if (trustedProxies.isEmpty()) {
+            return false;
+        }
+        byte[] bytes = parseLiteral(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (Cidr cidr : trustedProxies) {
+            if (cidr.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bytes of an IPv4 or IPv6 literal, or null when the value is not one
+     */
+    static byte[] parseLiteral(String address) {
+        if (address.indexOf(':') >= 0) {
+            if (address.isEmpty() || (Character.digit(address.charAt(0), 16) < 0 && address.charAt(0) != ':')) {
+                return null;
+            }
+            try {
+                // Starting with a hex digit or ':' and containing ':', InetAddress parses it as an IPv6 literal
+                // and fails instead of looking it up
+                return InetAddress.getByName(address).getAddress();
+            } catch (UnknownHostException | SecurityException e) {
+                return null;
+            }
+        }
+        byte[] bytes = new byte[4];
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else if (c == '.' && value >= 0 && part < 3) {
+                bytes[part++] = (byte) value;
+                value = -1;
+            } else {
+                return null;
+            }
+        }
+        if (part != 3 || value < 0) {
+            return null;
+        }
+        bytes[3] = (byte) value;
+        return bytes;
+    }
+
+    private record Cidr(byte[] network, int prefixLength) {
+
+        static Cidr parse(String value) {
+            int slash = value.indexOf('/');
+            String address = slash < 0 ? value : value.substring(0, slash);
+            byte[] network = parseLiteral(address);
+            if (network == null) {
+                throw new IllegalArgumentException("Not an IP address or CIDR range: " + value);
+            }
+            int prefix = slash < 0 ? network.length * 8 : Integer.parseInt(value.substring(slash + 1));
+            if (prefix < 0 || prefix > network.length * 8) {
+                throw new IllegalArgumentException("Invalid prefix length: " + value);
+            }
+            return new Cidr(network, prefix);
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.abovesky.calendar.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link OneTimeTokenStore} for a single node. Entries are immutable apart from their attempt counter and expire
+ * through Caffeine's per-entry TTL; consuming removes an entry only if it is still the same one, so concurrent
+ * checks need no locks and a secret is used at most once.
+ */
+public class InMemoryOneTimeTokenStore implements OneTimeTokenStore {
+
+    private record Entry(byte[] secretDigest, String value, long expiresAtNanos, AtomicInteger attempts) {
+    }
+
+    private final Cache<String, Entry> entries;
+    private final int maxAttempts;
+    private final Ticker ticker;
+
+    public InMemoryOneTimeTokenStore(long maximumSize, int maxAttempts) {
+        this(maximumSize, maxAttempts, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker time source for expiry, in nanoseconds
+     */
+    InMemoryOneTimeTokenStore(long maximumSize, int maxAttempts, Ticker ticker) {
+        this.maxAttempts = maxAttempts;
+        this.ticker = ticker;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return Math.max(0, entry.expiresAtNanos() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public void put(String key, String secret, String value, Duration ttl) {
+        entries.put(key, new Entry(digestBytes(secret), value, ticker.read() + ttl.toNanos(),
+                new AtomicInteger()));
+    }
+
+    @Override
+    public Verification verify(String key, String secret) {
+        return check(key, secret, false);
+    }
+
+    @Override
+    public Verification consume(String key, String secret) {
+        return check(key, secret, true);
+    }
+
+    /**
+     * Number of entries held; expired ones are dropped in Caffeine's expiry buckets, about a second apart
+     */
+    public long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private Verification check(String key, String secret, boolean consume) {
+        if (secret == null) {
+            return Verification.INVALID;
+        }
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null || ticker.read() - entry.expiresAtNanos() >= 0
+                || entry.attempts().get() >= maxAttempts) {
+            return Verification.NOT_FOUND;
+        }
+        if (!MessageDigest.isEqual(entry.secretDigest(), digestBytes(secret))) {
+            if (entry.attempts().incrementAndGet() >= maxAttempts) {
+                entries.asMap().remove(key, entry);
+            }
+            return Verification.INVALID;
+        }
+        if (consume && !entries.asMap().remove(key, entry)) {
+            // Consumed (or replaced) by someone else in the meantime
+            return Verification.NOT_FOUND;
+        }
+        return new Verification(Outcome.VALID, entry.value());
+    }
+
+    private static byte[] digestBytes(String secret) {
+        return OneTimeTokenStore.digest(secret).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,87 @@
+package com.abovesky.calendar.security;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process, lock-free per-key rate limiter using the generic cell rate algorithm (GCRA): {@code permits} requests per
+ * {@code window}, replenished continuously at one per {@code window / permits}, with bursts of up to
+ * {@code permits}. Unlike a counter reset once per window, a client cannot get twice the limit across a boundary.
+ * The whole state of a key is one {@link AtomicLong}, the theoretical arrival time (TAT) of its next request:
+ * a check is a read and a compare-and-set, retried only when another thread updated the same key in between.
+ * Keys whose TAT has passed hold no information beyond a fresh key and are dropped by {@link #sweep()}.
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private final int permits;
+    private final long windowNanos;
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final long origin;
+    private final ConcurrentHashMap<String, AtomicLong> states = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(int permits, Duration window) {
+        this(permits, window, System::nanoTime);
+    }
+
+    LocalRateLimiter(int permits, Duration window, LongSupplier clock) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        this.permits = permits;
+        this.windowNanos = window.toNanos();
+        this.intervalNanos = Math.max(1, windowNanos / permits);
+        this.clock = clock;
+        // Time is measured from construction so a fresh key (TAT 0) is never ahead of now
+        this.origin = clock.getAsLong();
+    }
+
+    @Override
+    public int getPermits() {
+        return permits;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key) {
+        AtomicLong state = states.get(key);
+        if (state == null) {
+            state = states.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        long now = clock.getAsLong() - origin;
+        while (true) {
+            long tat = state.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > windowNanos) {
+                return new RateLimitDecision(false, permits, 0, ahead - windowNanos, tat - now);
+            }
+            if (state.compareAndSet(tat, next)) {
+                return new RateLimitDecision(true, permits, (windowNanos - ahead) / intervalNanos, 0, ahead);
+            }
+        }
+    }
+
+    /**
+     * Drop keys that are fully replenished; returns how many were dropped. A check racing with the removal may be
+     * applied to the dropped state, letting that one request through uncounted.
+     */
+    @Override
+    public int sweep() {
+        long now = clock.getAsLong() - origin;
+        int removed = 0;
+        for (Iterator<AtomicLong> it = states.values().iterator(); it.hasNext(); ) {
+            if (it.next().get() <= now) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return states.size();
+    }
+}
@@ -0,0 +1,104 @@
+package com.abovesky.calendar.security;
+
+import com.abovesky.calendar.config.DaemonThreads;
+import com.abovesky.calendar.exception.HashingCapacityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a CPU-bound password encoder (BCrypt) on a dedicated pool sized to the cores, so a login storm cannot occupy
+ * more CPUs than the pool has threads while the request threads keep serving cheap reads.
+ * The queue is bounded: when it is full, or a hash has not started within the timeout, the caller gets a
+ * {@link HashingCapacityException} (503) at once rather than queueing behind work that will not finish in time.
+ * A hash that timed out in the queue is taken out of it and never runs. BCrypt cannot be interrupted, so a hash that
+ * has started is always waited for: every hash the pool spends CPU on has a caller that uses its result.
+ * Publishes {@code auth.hashing.queue} and {@code auth.hashing.active} gauges, an {@code auth.hashing.duration}
+ * timer per operation and an {@code auth.hashing.rejected} counter.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejected;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis,
+                                     MeterRegistry registry) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), DaemonThreads.numbered("password-hash"),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("auth.hashing.queue", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        this.encodeTimer = Timer.builder("auth.hashing.duration").tag("operation", "encode").register(registry);
+        this.matchTimer = Timer.builder("auth.hashing.duration").tag("operation", "matches").register(registry);
+        this.rejected = Counter.builder("auth.hashing.rejected").register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer timer, Callable<T> hash) {
+        FutureTask<T> task = new FutureTask<>(() -> timer.recordCallable(hash));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingCapacityException("Password hashing queue is full");
+        }
+        try {
+            try {
+                return task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (executor.remove(task)) {
+                    rejected.increment();
+                    throw new HashingCapacityException(
+                            "Password hashing did not start within " + timeoutMillis + " ms");
+                }
+                // Already hashing: it finishes within one hash time
+                return task.get();
+            }
+        } catch (InterruptedException e) {
+            executor.remove(task);
+            Thread.currentThread().interrupt();
+            throw new HashingCapacityException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.abovesky.calendar.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Short-lived secrets sent to a user out of band (email OTPs, password reset tokens), each stored under a key with
+ * an optional value (e.g. the email a reset token was issued for) and expiring on its own after a TTL.
+ * Only a SHA-256 digest of a secret is stored, and presented secrets are compared in constant time. Wrong guesses
+ * are counted per key; after {@code maxAttempts} of them the entry is dropped, so a 6-digit code cannot be
+ * brute-forced within its lifetime.
+ */
+public interface OneTimeTokenStore {
+
+    enum Outcome {
+        VALID,
+        INVALID,
+        /**
+         * Never issued, expired, consumed or dropped after too many wrong guesses
+         */
+        NOT_FOUND
+    }
+
+    /**
+     * @param value value stored with the secret; set only when the outcome is {@link Outcome#VALID}
+     */
+    record Verification(Outcome outcome, String value) {
+
+        static final Verification NOT_FOUND = new Verification(Outcome.NOT_FOUND, null);
+        static final Verification INVALID = new Verification(Outcome.INVALID, null);
+
+        public boolean isValid() {
+            return outcome == Outcome.VALID;
+        }
+    }
+
+    /**
+     * Store a secret under a key, replacing any previous one and its attempt count
+     */
+    void put(String key, String secret, String value, Duration ttl);
+
+    /**
+     * Check a secret without using it up; a wrong one counts as an attempt
+     */
+    Verification verify(String key, String secret);
+
+    /**
+     * Check a secret and, when it matches, remove it so it cannot be used again; a wrong one counts as an attempt.
+     * Of concurrent consumers presenting the right secret, exactly one gets {@link Outcome#VALID}.
+     */
+    Verification consume(String key, String secret);
+
+    /**
+     * Hex SHA-256 digest, used for stored secrets and to key entries by a secret without keeping it
+     */
+    static String digest(String secret) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(secret.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.abovesky.calendar.security;
+
+/**
+ * Outcome of a rate limit check, with what the response headers report
+ *
+ * @param remaining       requests that could still be made right now
+ * @param retryAfterNanos how long until the next request would be allowed; 0 when this one was
+ * @param resetAfterNanos how long until the full limit is available again
+ */
+public record RateLimitDecision(
+        boolean allowed,
+        int limit,
+        long remaining,
+        long retryAfterNanos,
+        long resetAfterNanos
+) {
+}
@@ -0,0 +1,24 @@
+package com.abovesky.calendar.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A named limit applied to a group of routes, counting the requests it allowed and throttled
+ * ({@code rate_limit.requests} tagged by policy and outcome)
+ */
+public record RateLimitPolicy(
+        String name,
+        RateLimiter limiter,
+        Counter allowed,
+        Counter throttled
+) {
+
+    public static RateLimitPolicy of(String name, RateLimiter limiter, MeterRegistry registry) {
+        return new RateLimitPolicy(name, limiter,
+                Counter.builder("rate_limit.requests").tag("policy", name).tag("outcome", "allowed")
+                        .register(registry),
+                Counter.builder("rate_limit.requests").tag("policy", name).tag("outcome", "throttled")
+                        .register(registry));
+    }
+}
@@ -0,0 +1,16 @@
+package com.abovesky.calendar.security;
+
+/**
+ * Per-key request limit: a number of permits per window, shared by all requests with the same key
+ */
+public interface RateLimiter {
+
+    RateLimitDecision tryAcquire(String key);
+
+    int getPermits();
+
+    /**
+     * Drop state of idle keys; returns how many keys were dropped
+     */
+    int sweep();
+}
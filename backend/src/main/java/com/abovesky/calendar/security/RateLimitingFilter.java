@@ -1,159 +1,171 @@
 package com.abovesky.calendar.security;
 
+import com.abovesky.calendar.config.DaemonThreads;
+import com.abovesky.calendar.service.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Rate Limiting Filter to prevent API abuse
- * Implements token bucket algorithm per IP address
+ * Requests are matched to a policy by path (longest configured prefix, see {@link RouteTrie}; everything else
+ * falls under the general policy) and counted against the authenticated user when there is one, otherwise against
+ * the client address as reported by trusted proxies ({@link ClientIpResolver}). Runs inside the security filter
+ * chain right after the bearer token is resolved and before authorization, so the user is known and requests the
+ * chain rejects (bad or missing tokens) are limited too.
+ * In {@code local} mode each node enforces the limits on its own with a lock-free {@link LocalRateLimiter};
+ * in {@code redis} mode the limits are shared by all nodes through {@link RedisRateLimiter}.
+ * Idle entries are swept in the background, off the request path.
  */
 @Slf4j
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter {
 
-    // Rate limiting configuration
-    private static final int MAX_REQUESTS_PER_MINUTE = 100;
-    private static final int AUTH_MAX_REQUESTS_PER_MINUTE = 10;
-    
-    // Store request counts per IP address
-    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
-    
-    // Cleanup old entries periodically (in production, use scheduled task)
-    private long lastCleanup = System.currentTimeMillis();
-    private static final long CLEANUP_INTERVAL = 60000; // 1 minute
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    private final RateLimitPolicy generalPolicy;
+    private final List<RateLimitPolicy> policies = new ArrayList<>();
+    private final RouteTrie<RateLimitPolicy> routes = new RouteTrie<>();
+    private final ClientIpResolver clientIpResolver;
+
+    private ScheduledExecutorService sweeper;
+
+    public RateLimitingFilter(ObjectProvider<StringRedisTemplate> redisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${rate-limit.mode:local}") String mode,
+                              @Value("${rate-limit.general.permits:100}") int generalPermits,
+                              @Value("${rate-limit.general.window-seconds:60}") long generalWindowSeconds,
+                              @Value("${rate-limit.auth.permits:10}") int authPermits,
+                              @Value("${rate-limit.auth.window-seconds:60}") long authWindowSeconds,
+                              @Value("${rate-limit.auth.paths:/api/auth/login,/api/auth/register,"
+                                      + "/api/auth/refresh-token,/api/auth/reset-password}") List<String> authPaths,
+                              @Value("${rate-limit.trusted-proxies:127.0.0.1,::1}") List<String> trustedProxies,
+                              @Value("${rate-limit.redis.key-prefix:rate-limit:}") String keyPrefix,
+                              @Value("${rate-limit.redis.max-lease:10}") int maxLease,
+                              @Value("${rate-limit.redis.lease-millis:1000}") long leaseMillis,
+                              @Value("${rate-limit.redis.fallback-seconds:10}") long fallbackSeconds) {
+        boolean redis = "redis".equalsIgnoreCase(mode);
+        Duration lease = Duration.ofMillis(leaseMillis);
+        Duration fallback = Duration.ofSeconds(fallbackSeconds);
+        Duration generalWindow = Duration.ofSeconds(generalWindowSeconds);
+        Duration authWindow = Duration.ofSeconds(authWindowSeconds);
+        RateLimiter generalLimiter = redis
+                ? new RedisRateLimiter(redisTemplate.getObject(), keyPrefix + "general:", generalPermits,
+                        generalWindow, maxLease, lease, fallback)
+                : new LocalRateLimiter(generalPermits, generalWindow);
+        RateLimiter authLimiter = redis
+                ? new RedisRateLimiter(redisTemplate.getObject(), keyPrefix + "auth:", authPermits,
+                        authWindow, maxLease, lease, fallback)
+                : new LocalRateLimiter(authPermits, authWindow);
+
+        this.generalPolicy = RateLimitPolicy.of("general", generalLimiter, meterRegistry);
+        RateLimitPolicy authPolicy = RateLimitPolicy.of("auth", authLimiter, meterRegistry);
+        policies.add(generalPolicy);
+        policies.add(authPolicy);
+        for (String path : authPaths) {
+            routes.put(path.trim(), authPolicy);
+        }
+        this.clientIpResolver = new ClientIpResolver(trustedProxies);
+        log.info("Rate limiting in {} mode: {} requests per {} s, {} per {} s on {}", mode,
+                generalPermits, generalWindowSeconds, authPermits, authWindowSeconds, authPaths);
+    }
+
+    @PostConstruct
+    void startSweeper() {
+        sweeper = DaemonThreads.singleThreadScheduler("rate-limit-sweeper");
+        sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                    HttpServletResponse response,
                                    FilterChain filterChain) throws ServletException, IOException {
         
-        String ipAddress = getClientIpAddress(request);
+        String contextPath = request.getContextPath();
         String requestUri = request.getRequestURI();
-        
-        // Determine rate limit based on endpoint
-        int maxRequests = isAuthEndpoint(requestUri) ? 
-                         AUTH_MAX_REQUESTS_PER_MINUTE : 
-                         MAX_REQUESTS_PER_MINUTE;
-        
-        // Get or create token bucket for this IP
-        TokenBucket bucket = buckets.computeIfAbsent(ipAddress, 
-                                                     k -> new TokenBucket(maxRequests));
+        String path = contextPath.isEmpty() ? requestUri : requestUri.substring(contextPath.length());
+        RateLimitPolicy policy = routes.match(path);
+        if (policy == null) {
+            policy = generalPolicy;
+        }
+        String key = clientKey(request);
+        RateLimitDecision decision = policy.limiter().tryAcquire(key);
+        long resetAt = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(decision.resetAfterNanos());
         
         // Check if request is allowed
-        if (!bucket.tryConsume()) {
-            log.warn("Rate limit exceeded for IP: {} on endpoint: {}", ipAddress, requestUri);
+        if (!decision.allowed()) {
+            policy.throttled().increment();
+            log.warn("Rate limit {} exceeded for {} on endpoint: {}", policy.name(), key, requestUri);
+            long retryAfterSeconds = Math.max(1, (decision.retryAfterNanos() + 999_999_999L) / 1_000_000_000L);
             response.setStatus(429); // Too Many Requests
-            response.setHeader("X-RateLimit-Limit", String.valueOf(maxRequests));
+            response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
             response.setHeader("X-RateLimit-Remaining", "0");
-            response.setHeader("X-RateLimit-Reset", String.valueOf(bucket.getResetTime()));
-            response.setHeader("Retry-After", "60");
-            response.getWriter().write("{\"error\":\"Too many requests. Please try again later.\"}");
+            response.setHeader("X-RateLimit-Reset", String.valueOf(resetAt));
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
             response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too many requests. Please try again later.\"}");
             return;
         }
+        policy.allowed().increment();
         
         // Add rate limit headers
-        response.setHeader("X-RateLimit-Limit", String.valueOf(maxRequests));
-        response.setHeader("X-RateLimit-Remaining", String.valueOf(bucket.getRemaining()));
-        
-        // Cleanup old entries periodically
-        cleanup();
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(resetAt));
         
         filterChain.doFilter(request, response);
     }
 
     /**
-     * Check if the endpoint is an authentication endpoint requiring stricter limits
-     */
-    private boolean isAuthEndpoint(String uri) {
-        return uri.contains("/api/auth/login") || 
-               uri.contains("/api/auth/register") ||
-               uri.contains("/api/auth/refresh-token") ||
-               uri.contains("/api/auth/reset-password");
-    }
-
-    /**
-     * Get the client's real IP address, considering proxy headers
+     * Key a request is counted under: the authenticated user, so a household behind one address does not share a
+     * limit, otherwise the client address
      */
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            // Get the first IP in the chain (client IP)
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        
-        return request.getRemoteAddr();
-    }
-
-    /**
-     * Cleanup old entries to prevent memory leaks
-     */
-    private void cleanup() {
-        long now = System.currentTimeMillis();
-        if (now - lastCleanup > CLEANUP_INTERVAL) {
-            buckets.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
-            lastCleanup = now;
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return "user:" + user.id();
         }
+        return "ip:" + clientIpResolver.resolve(request);
     }
 
     /**
-     * Token Bucket implementation for rate limiting
+     * Drop fully replenished entries to keep memory bounded by the number of recently active clients
      */
-    private static class TokenBucket {
-        private final int capacity;
-        private final AtomicInteger tokens;
-        private long lastRefill;
-        private static final long REFILL_INTERVAL = 60000; // 1 minute
-
-        public TokenBucket(int capacity) {
-            this.capacity = capacity;
-            this.tokens = new AtomicInteger(capacity);
-            this.lastRefill = System.currentTimeMillis();
-        }
-
-        public synchronized boolean tryConsume() {
-            refill();
-            int current = tokens.get();
-            if (current > 0) {
-                tokens.decrementAndGet();
-                return true;
-            }
-            return false;
-        }
-
-        public int getRemaining() {
-            refill();
-            return tokens.get();
-        }
-
-        public long getResetTime() {
-            return lastRefill + REFILL_INTERVAL;
-        }
-
-        public boolean isExpired(long now) {
-            return now - lastRefill > REFILL_INTERVAL * 2;
-        }
-
-        private void refill() {
-            long now = System.currentTimeMillis();
-            if (now - lastRefill >= REFILL_INTERVAL) {
-                tokens.set(capacity);
-                lastRefill = now;
+    private void sweep() {
+        try {
+            int removed = 0;
+            for (RateLimitPolicy policy : policies) {
+                removed += policy.limiter().sweep();
             }
+            log.debug("Rate limit sweep dropped {} idle entries", removed);
+        } catch (RuntimeException e) {
+            log.warn("Rate limit sweep failed: {}", e.getMessage());
         }
     }
 }
@@ -0,0 +1,105 @@
+package com.abovesky.calendar.security;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link OneTimeTokenStore} shared by all nodes. Each entry is a Redis hash ({@code secret} digest, {@code value},
+ * {@code attempts}) that Redis expires by itself. Checks run as Lua scripts, so comparing, counting a wrong guess
+ * and consuming are one atomic step however many nodes check at once; the digests are compared in constant time
+ * inside the script.
+ */
+public class RedisOneTimeTokenStore implements OneTimeTokenStore {
+
+    private static final RedisScript<Long> PUT_SCRIPT = RedisScript.of("""
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'secret', ARGV[1], 'value', ARGV[2], 'attempts', 0)
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * ARGV: presented digest, max attempts, 1 to consume. Returns {0} when missing, {1, value} when valid,
+     * {2} when wrong.
+     */
+    private static final RedisScript<List> CHECK_SCRIPT = RedisScript.of("""
+            local entry = redis.call('HMGET', KEYS[1], 'secret', 'value', 'attempts')
+            if not entry[1] then
+                return {0}
+            end
+            local max = tonumber(ARGV[2])
+            if tonumber(entry[3] or '0') >= max then
+                redis.call('DEL', KEYS[1])
+                return {0}
+            end
+            local stored, presented = entry[1], ARGV[1]
+            local diff = 0
+            if #stored ~= #presented then
+                diff = 1
+            end
+            for i = 1, math.min(#stored, #presented) do
+                diff = bit.bor(diff, bit.bxor(string.byte(stored, i), string.byte(presented, i)))
+            end
+            if diff ~= 0 then
+                if redis.call('HINCRBY', KEYS[1], 'attempts', 1) >= max then
+                    redis.call('DEL', KEYS[1])
+                end
+                return {2}
+            end
+            if ARGV[3] == '1' then
+                redis.call('DEL', KEYS[1])
+            end
+            return {1, entry[2] or ''}
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final int maxAttempts;
+
+    public RedisOneTimeTokenStore(StringRedisTemplate redisTemplate, String keyPrefix, int maxAttempts) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void put(String key, String secret, String value, Duration ttl) {
+        redisTemplate.execute(PUT_SCRIPT, List.of(keyPrefix + key), OneTimeTokenStore.digest(secret),
+                value != null ? value : "", String.valueOf(Math.max(1, ttl.toMillis())));
+    }
+
+    @Override
+    public Verification verify(String key, String secret) {
+        return check(key, secret, false);
+    }
+
+    @Override
+    public Verification consume(String key, String secret) {
+        return check(key, secret, true);
+    }
+
+    private Verification check(String key, String secret, boolean consume) {
+        if (secret == null) {
+            return Verification.INVALID;
+        }
+        List<?> result = redisTemplate.execute(CHECK_SCRIPT, List.of(keyPrefix + key),
+                OneTimeTokenStore.digest(secret), String.valueOf(maxAttempts), consume ? "1" : "0");
+        if (result == null || result.isEmpty()) {
+            throw new IllegalStateException("Unexpected one-time token script result: " + result);
+        }
+        return switch (((Number) result.get(0)).intValue()) {
+            case 1 -> new Verification(Outcome.VALID, valueOf(result));
+            case 2 -> Verification.INVALID;
+            default -> Verification.NOT_FOUND;
+        };
+    }
+
+    // Stored as "" when absent
+    private static String valueOf(List<?> result) {
+        String value = result.size() > 1 ? (String) result.get(1) : null;
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
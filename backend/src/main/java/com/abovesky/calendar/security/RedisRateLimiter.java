@@ -0,0 +1,223 @@
+package com.abovesky.calendar.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limiter shared by all nodes: the GCRA state of each key lives in Redis and is advanced by a Lua script, so
+ * N replicas enforce one limit instead of N. To avoid a Redis round trip per request, a node leases a small batch
+ * of permits for a key and hands them out locally until they run out or the lease expires. The batch grows while a
+ * key keeps exhausting its leases and shrinks when permits expire unused, so quiet clients lease one at a time
+ * while busy keys rarely go to Redis. Permits still unused when a lease expires are handed back to Redis with the
+ * next renewal, or by {@link #sweep()} for keys that went quiet, so they are not lost to other nodes. A lease is
+ * short-lived, so across nodes the limit can be exceeded by at most the outstanding leased permits.
+ * A refused key is remembered locally until its retry time. When Redis fails, the node limits on its own with a
+ * {@link LocalRateLimiter} for a cool-down period before trying Redis again.
+ */
+@Slf4j
+public class RedisRateLimiter implements RateLimiter {
+
+    /**
+     * GCRA over a batch: first gives back ARGV[4] unused permits, then grants up to ARGV[3], and returns {granted,
+     * micros until fully replenished, permits still available}. Redis time keeps all nodes on one clock.
+     */
+    private static final RedisScript<List> LEASE_SCRIPT = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local interval = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local requested = tonumber(ARGV[3])
+            local returned = tonumber(ARGV[4])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or '0') - returned * interval
+            if tat < now then
+                tat = now
+            end
+            local granted = math.floor((window - (tat - now)) / interval)
+            if granted > requested then
+                granted = requested
+            end
+            if granted < 0 then
+                granted = 0
+            end
+            tat = tat + granted * interval
+            if tat > now then
+                if granted > 0 or returned > 0 then
+                    redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.ceil((tat - now) / 1000))
+                end
+            elseif returned > 0 then
+                redis.call('DEL', KEYS[1])
+            end
+            return {granted, tat - now, math.floor((window - (tat - now)) / interval)}
+            """, List.class);
+
+    private final String keyPrefix;
+    private final int permits;
+    private final long windowMicros;
+    private final long intervalMicros;
+    private final int maxLease;
+    private final long leaseNanos;
+    private final long fallbackNanos;
+    private final StringRedisTemplate redisTemplate;
+    private final LocalRateLimiter fallback;
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private volatile long redisRetryAt = System.nanoTime();
+
+    public RedisRateLimiter(StringRedisTemplate redisTemplate, String keyPrefix, int permits, Duration window,
+                            int maxLease, Duration leaseDuration, Duration fallbackDuration) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.permits = permits;
+        this.windowMicros = TimeUnit.NANOSECONDS.toMicros(window.toNanos());
+        this.intervalMicros = Math.max(1, windowMicros / permits);
+        this.maxLease = Math.max(1, Math.min(maxLease, permits));
+        this.leaseNanos = leaseDuration.toNanos();
+        this.fallbackNanos = fallbackDuration.toNanos();
+        this.fallback = new LocalRateLimiter(permits, window);
+    }
+
+    @Override
+    public int getPermits() {
+        return permits;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key) {
+        long now = System.nanoTime();
+        if (now - redisRetryAt < 0) {
+            return fallback.tryAcquire(key);
+        }
+        Lease lease = leases.get(key);
+        if (lease == null) {
+            long created = now;
+            lease = leases.computeIfAbsent(key, k -> new Lease(k, created));
+        }
+        RateLimitDecision local = lease.tryLocal(now);
+        if (local != null) {
+            return local;
+        }
+        lease.lock.lock();
+        try {
+            // Another thread may have renewed the lease while this one waited
+            now = System.nanoTime();
+            local = lease.tryLocal(now);
+            return local != null ? local : renew(key, lease, now);
+        } catch (RuntimeException e) {
+            log.warn("Redis rate limiting unavailable, limiting locally for {} s: {}",
+                    TimeUnit.NANOSECONDS.toSeconds(fallbackNanos), e.getMessage());
+            redisRetryAt = System.nanoTime() + fallbackNanos;
+            return fallback.tryAcquire(key);
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    @Override
+    public int sweep() {
+        long now = System.nanoTime();
+        int removed = fallback.sweep();
+        for (Iterator<Lease> it = leases.values().iterator(); it.hasNext(); ) {
+            Lease lease = it.next();
+            if (now - lease.expiresAt >= 0 && now - lease.deniedUntil >= 0) {
+                it.remove();
+                removed++;
+                giveBack(lease);
+            }
+        }
+        return removed;
+    }
+
+    private void giveBack(Lease lease) {
+        // Expired, so no thread takes from it any more; whatever is claimed here is owned by the sweep
+        int unused = lease.remaining.getAndSet(0);
+        if (unused <= 0 || System.nanoTime() - redisRetryAt < 0) {
+            return;
+        }
+        try {
+            execute(lease.key, 0, unused);
+        } catch (RuntimeException e) {
+            log.debug("Could not return {} leased permits for {}: {}", unused, lease.key, e.getMessage());
+        }
+    }
+
+    // Called with the lease lock held
+    private RateLimitDecision renew(String key, Lease lease, long now) {
+        boolean exhaustedEarly = lease.remaining.get() <= 0 && now - lease.expiresAt < 0;
+        lease.size = exhaustedEarly ? Math.min(lease.size * 2, maxLease) : Math.max(1, lease.size / 2);
+        // Only an expired lease can still hold permits here, and nothing takes from an expired lease
+        int unused = Math.max(0, lease.remaining.getAndSet(0));
+
+        List<?> result = execute(key, lease.size, unused);
+        int granted = ((Number) result.get(0)).intValue();
+        long resetAfterNanos = TimeUnit.MICROSECONDS.toNanos(((Number) result.get(1)).longValue());
+        long remoteRemaining = ((Number) result.get(2)).longValue();
+
+        if (granted == 0) {
+            long retryAfterNanos = resetAfterNanos + TimeUnit.MICROSECONDS.toNanos(intervalMicros - windowMicros);
+            lease.remaining.set(0);
+            lease.resetAt = now + resetAfterNanos;
+            lease.deniedUntil = now + retryAfterNanos;
+            return new RateLimitDecision(false, permits, 0, retryAfterNanos, resetAfterNanos);
+        }
+        // This request takes one of the granted permits
+        lease.remaining.set(granted - 1);
+        lease.remoteRemaining = remoteRemaining;
+        lease.resetAt = now + resetAfterNanos;
+        lease.expiresAt = now + leaseNanos;
+        return new RateLimitDecision(true, permits, granted - 1 + remoteRemaining, 0, resetAfterNanos);
+    }
+
+    private List<?> execute(String key, int requested, int returned) {
+        List<?> result = redisTemplate.execute(LEASE_SCRIPT, List.of(keyPrefix + key), String.valueOf(intervalMicros),
+                String.valueOf(windowMicros), String.valueOf(requested), String.valueOf(returned));
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+        return result;
+    }
+
+    private final class Lease {
+        final String key;
+        final ReentrantLock lock = new ReentrantLock();
+        final AtomicInteger remaining = new AtomicInteger();
+        volatile long expiresAt;
+        volatile long deniedUntil;
+        volatile long resetAt;
+        volatile long remoteRemaining;
+        int size = 1; // guarded by lock
+
+        Lease(String key, long now) {
+            this.key = key;
+            this.expiresAt = now;
+            this.deniedUntil = now;
+        }
+
+        /**
+         * Decision taken without Redis, or null when the lease has to be renewed
+         */
+        RateLimitDecision tryLocal(long now) {
+            if (now - deniedUntil < 0) {
+                return new RateLimitDecision(false, permits, 0, deniedUntil - now, Math.max(0, resetAt - now));
+            }
+            if (now - expiresAt >= 0) {
+                return null;
+            }
+            int left;
+            do {
+                left = remaining.get();
+                if (left <= 0) {
+                    return null;
+                }
+            } while (!remaining.compareAndSet(left, left - 1));
+            return new RateLimitDecision(true, permits, left - 1 + remoteRemaining, 0, Math.max(0, resetAt - now));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.abovesky.calendar.security;
+
+import java.util.Arrays;
+
+/**
+ * Longest-prefix match of request paths against configured route prefixes, built once at startup.
+ * A prefix matches a path equal to it or continuing with {@code /}, so {@code /api/auth/login} matches
+ * {@code /api/auth/login/} but not {@code /api/auth/loginx}. Lookups walk the path one character at a time
+ * without allocating.
+ */
+public class RouteTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    public void put(String prefix, T value) {
+        String normalized = prefix.length() > 1 && prefix.endsWith("/")
+                ? prefix.substring(0, prefix.length() - 1)
+                : prefix;
+        Node<T> node = root;
+        for (int i = 0; i < normalized.length(); i++) {
+            node = node.childOrCreate(normalized.charAt(i));
+        }
+        node.value = value;
+    }
+
+    /**
+     * Value of the longest prefix matching the path, or null
+     */
+    public T match(String path) {
+        T best = null;
+        Node<T> node = root;
+        int length = path.length();
+        for (int i = 0; i < length && node != null; i++) {
+            char c = path.charAt(i);
+            if (c == '/' && node.value != null) {
+                best = node.value;
+            }
+            node = node.child(c);
+            if (c == '/' && node != null && node.value != null) {
+                // Only "/" itself is stored with a trailing slash; it matches every path
+                best = node.value;
+            }
+        }
+        if (node != null && node.value != null) {
+            best = node.value;
+        }
+        return best;
+    }
+
+    private static final class Node<T> {
+        private char[] keys = new char[0];
+        @SuppressWarnings("unchecked")
+        private Node<T>[] children = new Node[0];
+        private T value;
+
+        Node<T> child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node<T> childOrCreate(char c) {
+            Node<T> existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node<T> created = new Node<>();
+            int n = keys.length;
+            keys = Arrays.copyOf(keys, n + 1);
+            children = Arrays.copyOf(children, n + 1);
+            keys[n] = c;
+            children[n] = created;
+            return created;
+        }
+    }
+}
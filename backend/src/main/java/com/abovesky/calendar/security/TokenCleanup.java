@@ -0,0 +1,60 @@
+package com.abovesky.calendar.security;
+
+import com.abovesky.calendar.config.DaemonThreads;
+import com.abovesky.calendar.service.RefreshTokenService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the shared revocation list at startup, then periodically drops expired revocations and refresh tokens
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenCleanup {
+
+    private final TokenRevocationList revocationList;
+    private final RefreshTokenService refreshTokenService;
+
+    @Value("${auth.cleanup-minutes:15}")
+    private long cleanupMinutes;
+
+    private ScheduledExecutorService executor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (executor != null) {
+            return;
+        }
+        revocationList.load();
+        executor = DaemonThreads.singleThreadScheduler("token-cleanup");
+        executor.scheduleWithFixedDelay(this::cleanup, cleanupMinutes, cleanupMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void cleanup() {
+        try {
+            revocationList.prune();
+            int purged = refreshTokenService.purgeExpired();
+            if (purged > 0) {
+                log.info("Purged {} expired refresh tokens", purged);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Token cleanup failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.abovesky.calendar.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ids ({@code jti}) of access tokens revoked before their expiry, checked on every authenticated request.
+ * A Bloom filter answers the common "not revoked" case with a few array reads and no allocation; its rare
+ * positives are confirmed against the exact set. Entries are kept until the token would have expired anyway.
+ * Revocations are stored in a Redis sorted set (scored by expiry) that new nodes load at startup, and broadcast
+ * to running nodes over pub/sub as {@code origin|tokenId|expiresAtMillis}. Delivery is best effort: a node that
+ * misses a message accepts the token until it expires, at most one access token lifetime.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList implements MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final int hashes;
+    private final int mask;
+    private volatile AtomicLongArray bits;
+
+    public TokenRevocationList(StringRedisTemplate redisTemplate,
+                               @Value("${auth.revocation.key:auth:revoked-tokens}") String key,
+                               @Value("${auth.revocation.channel:token-revocations}") String channel,
+                               @Value("${auth.revocation.expected-insertions:100000}") int expectedInsertions,
+                               @Value("${auth.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.key = key;
+        this.channel = channel;
+        // Optimal size for the expected load, rounded up to a power of two so indexes are a mask away
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int words = Integer.highestOneBit((int) Math.max(64, Math.ceil(optimalBits / 64)) - 1) << 1;
+        this.mask = words * 64 - 1;
+        this.hashes = Math.max(1, (int) Math.round(optimalBits / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray(words);
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Whether an access token was revoked; tokens without an id cannot be revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        AtomicLongArray current = bits;
+        long h1 = hash(tokenId);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) ((h1 + i * h2) & mask);
+            if ((current.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Revoke an access token on every node until it expires
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        addLocal(tokenId, expiresAtMillis);
+        try {
+            redisTemplate.opsForZSet().add(key, tokenId, expiresAtMillis);
+            redisTemplate.convertAndSend(channel, nodeId + "|" + tokenId + "|" + expiresAtMillis);
+        } catch (RuntimeException e) {
+            log.warn("Failed to share token revocation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Load the revocations still in force from Redis, for a node that just started
+     */
+    public void load() {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> entries = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(key, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+            if (entries != null) {
+                for (ZSetOperations.TypedTuple<String> entry : entries) {
+                    if (entry.getValue() != null && entry.getScore() != null) {
+                        addLocal(entry.getValue(), entry.getScore().longValue());
+                    }
+                }
+                log.info("Loaded {} revoked access tokens", entries.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to load revoked access tokens: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop expired revocations and rebuild the filter without them, since Bloom filters cannot remove entries
+     */
+    public void prune() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            AtomicLongArray rebuilt = new AtomicLongArray(bits.length());
+            revoked.keySet().forEach(tokenId -> setBits(rebuilt, tokenId));
+            bits = rebuilt;
+        }
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, now);
+        } catch (RuntimeException e) {
+            log.warn("Failed to prune revoked access tokens: {}", e.getMessage());
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            addLocal(parts[1], Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed token revocation message");
+        }
+    }
+
+    // Serialized with prune, so a revocation cannot slip in between its rebuild and the swap
+    private synchronized void addLocal(String tokenId, long expiresAtMillis) {
+        if (expiresAtMillis > System.currentTimeMillis()) {
+            revoked.put(tokenId, expiresAtMillis);
+            setBits(bits, tokenId);
+        }
+    }
+
+    private void setBits(AtomicLongArray target, String tokenId) {
+        long h1 = hash(tokenId);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) ((h1 + i * h2) & mask);
+            int word = bit >>> 6;
+            long flag = 1L << bit;
+            long current;
+            do {
+                current = target.get(word);
+            } while ((current & flag) == 0 && !target.compareAndSet(word, current, current | flag));
+        }
+    }
+
+    /**
+     * FNV-1a over the characters, so hashing needs no byte array
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Second, independent hash derived from the first (murmur3 finalizer); forced odd so probes never repeat
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+}
@@ -4,13 +4,18 @@ import com.abovesky.calendar.dto.AuthResponse;
 import com.abovesky.calendar.dto.LoginRequest;
 import com.abovesky.calendar.dto.RegisterRequest;
 import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.exception.InvalidTokenException;
 import com.abovesky.calendar.repository.UserRepository;
+import com.abovesky.calendar.security.TokenRevocationList;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -19,6 +24,10 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final TokenAuthenticationCache tokenAuthenticationCache;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList revocationList;
+    private final EmailService emailService;
     private final UserService userService;
 
     public AuthResponse register(RegisterRequest request) {
@@ -37,8 +46,7 @@ public class AuthService {
 
         user = userRepository.save(user);
 
-        var jwtToken = jwtService.generateToken(userService.loadUserByUsername(user.getUsername()));
-        return new AuthResponse(jwtToken, user.getId(), user.getUsername(), user.getEmail());
+        return toResponse(refreshTokenService.issue(user));
     }
 
     public AuthResponse login(LoginRequest request) {
@@ -52,7 +60,61 @@ public class AuthService {
         var user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        var jwtToken = jwtService.generateToken(userService.loadUserByUsername(user.getUsername()));
-        return new AuthResponse(jwtToken, user.getId(), user.getUsername(), user.getEmail());
+        return toResponse(refreshTokenService.issue(user));
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and a new refresh token
+     */
+    public AuthResponse refresh(String refreshToken) {
+        return toResponse(refreshTokenService.rotate(refreshToken));
+    }
+
+    /**
+     * Revoke the access token on every node and, when given, the refresh token family it belongs to
+     */
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            tokenAuthenticationCache.invalidate(accessToken);
+            try {
+                VerifiedToken token = jwtService.verify(accessToken);
+                revocationList.revoke(token.claims().getId(), token.expiresAt());
+            } catch (JwtException e) {
+                // Already expired or not ours: nothing to revoke
+            }
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+    }
+
+    /**
+     * End every session of a user: all their refresh token families and the access tokens issued with them
+     */
+    public void logoutEverywhere(Long userId) {
+        refreshTokenService.revokeAll(userId);
+    }
+
+    /**
+     * Set a new password with a token from a password reset email; every existing session of the user ends.
+     * Not transactional: the password is hashed before the update takes a connection.
+     *
+     * @throws InvalidTokenException if the reset token is unknown, expired or already used
+     */
+    public void resetPassword(String resetToken, String newPassword) {
+        String email = emailService.getEmailByResetToken(resetToken);
+        User user = (email != null ? userRepository.findByEmail(email) : Optional.<User>empty())
+                .orElseThrow(() -> new InvalidTokenException("Invalid or expired reset token"));
+        userRepository.updatePassword(user.getId(), passwordEncoder.encode(newPassword));
+        userService.evictUser(user);
+        refreshTokenService.revokeAll(user.getId());
+    }
+
+    private static AuthResponse toResponse(RefreshTokenService.TokenPair tokens) {
+        User user = tokens.user();
+        AuthResponse response = new AuthResponse(tokens.accessToken(), user.getId(), user.getUsername(),
+                user.getEmail());
+        response.setRefreshToken(tokens.refreshToken());
+        return response;
     }
 }
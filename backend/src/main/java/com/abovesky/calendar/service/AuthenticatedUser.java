@@ -0,0 +1,79 @@
+package com.abovesky.calendar.service;
+
+import com.abovesky.calendar.dto.UserDto;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal of a request authenticated with a bearer token, built from the token's claims without a user lookup.
+ * The fields are a snapshot taken when the token was issued; {@code parentMode} in particular may lag behind a mode
+ * switch, so decisions that must see the current mode go through {@link ModeService}.
+ *
+ * @param tokenId id ({@code jti}) of the access token, checked against the revocation list; null for tokens issued
+ *                without one
+ */
+public record AuthenticatedUser(
+        Long id,
+        String username,
+        List<GrantedAuthority> authorities,
+        boolean parentMode,
+        String tokenId
+) implements UserDetails {
+
+    public static AuthenticatedUser of(UserDto user, String tokenId) {
+        return of(user.getId(), user.getUsername(), user.getRoles(), Boolean.TRUE.equals(user.getIsParentMode()),
+                tokenId);
+    }
+
+    /**
+     * @param roles comma separated, as stored in {@code users.roles}
+     */
+    public static AuthenticatedUser of(Long id, String username, String roles, boolean parentMode, String tokenId) {
+        List<GrantedAuthority> authorities = Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        return new AuthenticatedUser(id, username, authorities, parentMode, tokenId);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
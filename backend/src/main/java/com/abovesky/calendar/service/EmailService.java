@@ -1,157 +1,133 @@
 package com.abovesky.calendar.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.abovesky.calendar.mail.EmailOutbox;
+import com.abovesky.calendar.mail.EmailRenderer;
+import com.abovesky.calendar.security.OneTimeTokenStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.springframework.web.util.HtmlUtils;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
+import static com.abovesky.calendar.mail.CompiledTemplate.variables;
+
 /**
- * Service for sending various types of emails using templates and async processing.
+ * Service for sending various types of emails using templates.
+ * Emails are rendered and queued in the {@link EmailOutbox}, joining the caller's transaction, and delivered in the
+ * background; a failure here means the email could not be queued, and is thrown. Best-effort emails (welcome,
+ * marketing) are queued in a transaction of their own instead, so their failures can be logged without dooming
+ * the caller's transaction.
+ * Bodies are rendered by {@link EmailRenderer} in the recipient's preferred language ({@code User.preferredLocale};
+ * unsupported or missing ones fall back to English). OTPs and password reset tokens are kept in the
+ * {@link OneTimeTokenStore}, which expires them and limits wrong guesses.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-    private final SpringTemplateEngine templateEngine;
+    private final EmailOutbox emailOutbox;
+    private final EmailRenderer emailRenderer;
+    private final OneTimeTokenStore oneTimeTokenStore;
+
+    private static final Duration OTP_TTL = Duration.ofMinutes(10);
+    private static final Duration RESET_TOKEN_TTL = Duration.ofHours(1);
+
+    // Stands in for the recipient's link in the shared marketing body, filled in per recipient at delivery
+    static final String UNSUBSCRIBE_LINK_PLACEHOLDER = "-unsubscribeLink-";
 
     // Reusable SecureRandom instance for better performance
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
-    @Value("${spring.mail.username:noreply@aboveskycalendar.com}")
-    private String fromEmail;
-
     @Value("${spring.application.name:Above Sky Calendar}")
     private String applicationName;
 
-    // TODO: For production, replace with Redis or database storage
-    // In-memory storage is not suitable for production as it:
-    // 1. Won't survive application restarts
-    // 2. Doesn't work in multi-instance deployments
-    // 3. Not suitable for horizontal scaling
-    // Store for OTP verification (in production, use Redis or database)
-    private final Map<String, OtpData> otpStore = new HashMap<>();
-
-    // Store for reset tokens (in production, use database)
-    private final Map<String, TokenData> resetTokenStore = new HashMap<>();
-
     /**
      * Send OTP (One-Time Password) email for verification
      */
-    @Async
-    public void sendOtpEmail(String to, String username) {
+    public void sendOtpEmail(String to, String username, String locale) {
         try {
             String otp = generateOtp();
-            LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(10);
+            oneTimeTokenStore.put(otpKey(to), otp, null, OTP_TTL);
             
-            // Store OTP (in production, use Redis or database)
-            otpStore.put(to, new OtpData(otp, expiryTime));
+            String htmlContent = emailRenderer.render("otp-email", emailRenderer.resolveLocale(locale), variables(
+                    "username", username,
+                    "otp", otp,
+                    "expiryMinutes", String.valueOf(OTP_TTL.toMinutes()),
+                    "applicationName", applicationName));
             
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("otp", otp);
-            context.setVariable("expiryMinutes", "10");
-            context.setVariable("applicationName", applicationName);
-            
-            String htmlContent = templateEngine.process("otp-email", context);
-            
-            sendEmail(to, "Your One-Time Password", htmlContent);
-            log.info("OTP email sent successfully to: {}", to);
+            emailOutbox.enqueue(null, EmailOutbox.TRANSACTIONAL, to, "Your One-Time Password", htmlContent);
+            log.info("OTP email queued for: {}", to);
         } catch (Exception e) {
-            log.error("Failed to send OTP email to: {}", to, e);
-            throw new RuntimeException("Failed to send OTP email", e);
+            log.error("Failed to queue OTP email to: {}", to, e);
+            throw new RuntimeException("Failed to queue OTP email", e);
         }
     }
 
     /**
-     * Validate OTP
+     * Validate OTP; a valid one is used up, and too many wrong guesses invalidate it
      */
     public boolean validateOtp(String email, String otp) {
-        OtpData otpData = otpStore.get(email);
-        
-        if (otpData == null) {
-            log.warn("OTP not found for email: {}", email);
+        if (email == null) {
             return false;
         }
-        
-        if (LocalDateTime.now().isAfter(otpData.expiryTime)) {
-            otpStore.remove(email);
-            log.warn("OTP expired for email: {}", email);
-            return false;
+        OneTimeTokenStore.Verification verification = oneTimeTokenStore.consume(otpKey(email), otp);
+        switch (verification.outcome()) {
+            case VALID -> log.info("OTP validated successfully for email: {}", email);
+            case INVALID -> log.warn("Invalid OTP provided for email: {}", email);
+            case NOT_FOUND -> log.warn("OTP not found or expired for email: {}", email);
         }
-        
-        if (otpData.otp.equals(otp)) {
-            otpStore.remove(email);
-            log.info("OTP validated successfully for email: {}", email);
-            return true;
-        }
-        
-        log.warn("Invalid OTP provided for email: {}", email);
-        return false;
+        return verification.isValid();
     }
 
     /**
      * Send password reset email with secure token
      */
-    @Async
-    public void sendPasswordResetEmail(String to, String username, String baseUrl) {
+    public void sendPasswordResetEmail(String to, String username, String baseUrl, String locale) {
         try {
             String resetToken = generateResetToken();
-            LocalDateTime expiryTime = LocalDateTime.now().plusHours(1);
-            
-            // Store reset token (in production, use database)
-            resetTokenStore.put(resetToken, new TokenData(to, expiryTime));
+            oneTimeTokenStore.put(resetTokenKey(resetToken), resetToken, to, RESET_TOKEN_TTL);
             
             String resetLink = baseUrl + "/reset-password?token=" + resetToken;
             
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("resetLink", resetLink);
-            context.setVariable("expiryHours", "1");
-            context.setVariable("applicationName", applicationName);
+            String htmlContent = emailRenderer.render("password-reset-email", emailRenderer.resolveLocale(locale),
+                    variables(
+                            "username", username,
+                            "resetLink", resetLink,
+                            "expiryHours", String.valueOf(RESET_TOKEN_TTL.toHours()),
+                            "applicationName", applicationName));
             
-            String htmlContent = templateEngine.process("password-reset-email", context);
-            
-            sendEmail(to, "Password Reset Request", htmlContent);
-            log.info("Password reset email sent successfully to: {}", to);
+            emailOutbox.enqueue(EmailOutbox.key("password-reset", resetToken), EmailOutbox.TRANSACTIONAL, to,
+                    "Password Reset Request", htmlContent);
+            log.info("Password reset email queued for: {}", to);
         } catch (Exception e) {
-            log.error("Failed to send password reset email to: {}", to, e);
-            throw new RuntimeException("Failed to send password reset email", e);
+            log.error("Failed to queue password reset email to: {}", to, e);
+            throw new RuntimeException("Failed to queue password reset email", e);
         }
     }
 
     /**
-     * Validate reset token
+     * Validate reset token without using it up
      */
     public boolean validateResetToken(String token) {
-        TokenData tokenData = resetTokenStore.get(token);
-        
-        if (tokenData == null) {
-            log.warn("Reset token not found: {}", token);
+        if (token == null) {
             return false;
         }
-        
-        if (LocalDateTime.now().isAfter(tokenData.expiryTime)) {
-            resetTokenStore.remove(token);
-            log.warn("Reset token expired: {}", token);
+        OneTimeTokenStore.Verification verification = oneTimeTokenStore.verify(resetTokenKey(token), token);
+        if (!verification.isValid()) {
+            log.warn("Reset token not found or expired");
             return false;
         }
-        
-        log.info("Reset token validated successfully for email: {}", tokenData.email);
+        log.info("Reset token validated successfully for email: {}", verification.value());
         return true;
     }
 
@@ -159,93 +135,133 @@ public class EmailService {
      * Get email associated with reset token and remove token
      */
     public String getEmailByResetToken(String token) {
-        TokenData tokenData = resetTokenStore.remove(token);
-        return tokenData != null ? tokenData.email : null;
+        if (token == null) {
+            return null;
+        }
+        return oneTimeTokenStore.consume(resetTokenKey(token), token).value();
     }
 
     /**
      * Send marketing/promotional email
      */
-    @Async
-    public void sendMarketingEmail(String to, String subject, String content, String unsubscribeToken) {
-        try {
-            String unsubscribeLink = "https://aboveskycalendar.com/unsubscribe?token=" + unsubscribeToken;
-            
-            Context context = new Context();
-            context.setVariable("content", content);
-            context.setVariable("unsubscribeLink", unsubscribeLink);
-            context.setVariable("applicationName", applicationName);
-            
-            String htmlContent = templateEngine.process("marketing-email", context);
-            
-            sendEmail(to, subject, htmlContent);
-            log.info("Marketing email sent successfully to: {}", to);
-        } catch (Exception e) {
-            log.error("Failed to send marketing email to: {}", to, e);
-            // Don't throw exception for marketing emails
-            log.warn("Continuing after marketing email failure");
+    public void sendMarketingEmail(String to, String subject, String content, String unsubscribeToken,
+                                   String locale) {
+        sendMarketingEmails(subject, content, List.of(new MarketingRecipient(to, unsubscribeToken, locale)));
+    }
+
+    /**
+     * Send one marketing email to many recipients. The body is rendered once per language with a placeholder for
+     * the unsubscribe link, and each recipient's link is queued as a substitution, so the transport can send the
+     * recipients of a language together. Recipients whose email cannot be queued are skipped.
+     *
+     * @return number of emails queued
+     */
+    public int sendMarketingEmails(String subject, String content, List<MarketingRecipient> recipients) {
+        Map<Locale, List<MarketingRecipient>> byLocale = new LinkedHashMap<>();
+        for (MarketingRecipient recipient : recipients) {
+            byLocale.computeIfAbsent(emailRenderer.resolveLocale(recipient.locale()), l -> new ArrayList<>())
+                    .add(recipient);
+        }
+        int queued = 0;
+        for (Map.Entry<Locale, List<MarketingRecipient>> group : byLocale.entrySet()) {
+            String body = emailRenderer.render("marketing-email", group.getKey(), variables(
+                    "content", content,
+                    "unsubscribeLink", UNSUBSCRIBE_LINK_PLACEHOLDER,
+                    "applicationName", applicationName));
+            for (MarketingRecipient recipient : group.getValue()) {
+                String to = recipient.email();
+                String unsubscribeLink = HtmlUtils.htmlEscape("https://aboveskycalendar.com/unsubscribe?token="
+                        + recipient.unsubscribeToken());
+                try {
+                    if (emailOutbox.enqueueSeparately(EmailOutbox.key("marketing", to, subject, content),
+                            EmailOutbox.MARKETING, to, subject, body,
+                            Map.of(UNSUBSCRIBE_LINK_PLACEHOLDER, unsubscribeLink))) {
+                        queued++;
+                    }
+                } catch (Exception e) {
+                    // Don't throw exception for marketing emails
+                    log.error("Failed to queue marketing email to: {}", to, e);
+                }
+            }
         }
+        log.info("Queued {} of {} marketing emails", queued, recipients.size());
+        return queued;
     }
 
     /**
      * Send welcome email to new user
      */
-    @Async
-    public void sendWelcomeEmail(String to, String username) {
+    public void sendWelcomeEmail(String to, String username, String locale) {
         try {
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("applicationName", applicationName);
-            context.setVariable("loginUrl", "https://aboveskycalendar.com/login");
-            
-            String htmlContent = templateEngine.process("welcome-email", context);
+            String htmlContent = emailRenderer.render("welcome-email", emailRenderer.resolveLocale(locale), variables(
+                    "username", username,
+                    "applicationName", applicationName,
+                    "loginUrl", "https://aboveskycalendar.com/login"));
             
-            sendEmail(to, "Welcome to " + applicationName, htmlContent);
-            log.info("Welcome email sent successfully to: {}", to);
+            emailOutbox.enqueueSeparately(EmailOutbox.key("welcome", to), EmailOutbox.TRANSACTIONAL, to,
+                    "Welcome to " + applicationName, htmlContent, Map.of());
+            log.info("Welcome email queued for: {}", to);
         } catch (Exception e) {
-            log.error("Failed to send welcome email to: {}", to, e);
+            log.error("Failed to queue welcome email to: {}", to, e);
         }
     }
 
     /**
      * Send PIN reset email with secure token
      */
-    @Async
-    public void sendPinResetEmail(String to, String username, String resetToken, String baseUrl) {
+    public void sendPinResetEmail(String to, String username, String resetToken, String baseUrl, String locale) {
         try {
-            LocalDateTime expiryTime = LocalDateTime.now().plusHours(1);
-            
             String resetLink = baseUrl + "/reset-pin?token=" + resetToken;
             
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("resetLink", resetLink);
-            context.setVariable("expiryHours", "1");
-            context.setVariable("applicationName", applicationName);
-            
-            String htmlContent = templateEngine.process("pin-reset-email", context);
+            String htmlContent = emailRenderer.render("pin-reset-email", emailRenderer.resolveLocale(locale),
+                    variables(
+                            "username", username,
+                            "resetLink", resetLink,
+                            "expiryHours", "1",
+                            "applicationName", applicationName));
             
-            sendEmail(to, "PIN Reset Request", htmlContent);
-            log.info("PIN reset email sent successfully to: {}", to);
+            emailOutbox.enqueue(EmailOutbox.key("pin-reset", resetToken), EmailOutbox.TRANSACTIONAL, to,
+                    "PIN Reset Request", htmlContent);
+            log.info("PIN reset email queued for: {}", to);
         } catch (Exception e) {
-            log.error("Failed to send PIN reset email to: {}", to, e);
-            throw new RuntimeException("Failed to send PIN reset email", e);
+            log.error("Failed to queue PIN reset email to: {}", to, e);
+            throw new RuntimeException("Failed to queue PIN reset email", e);
         }
     }
 
     /**
-     * Send generic email
+     * Send reminder email for an upcoming calendar event
+     *
+     * @param idempotencyKey identifies the reminder occurrence, so a reminder fired again after a restart is not
+     *                       sent twice
+     * @throws RuntimeException when the email could not be queued, so the scheduler retries the reminder
      */
-    private void sendEmail(String to, String subject, String htmlContent) throws MessagingException {
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-        
-        helper.setFrom(fromEmail);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(htmlContent, true);
-        
-        mailSender.send(message);
+    public void sendEventReminderEmail(String to, String username, String eventTitle, String startTime,
+                                       String locale, String idempotencyKey) {
+        try {
+            String htmlContent = emailRenderer.render("event-reminder-email", emailRenderer.resolveLocale(locale),
+                    variables(
+                            "username", username,
+                            "eventTitle", eventTitle,
+                            "startTime", startTime,
+                            "applicationName", applicationName));
+            
+            emailOutbox.enqueue(idempotencyKey, EmailOutbox.NOTIFICATION, to, "Reminder: " + eventTitle,
+                    htmlContent);
+            log.info("Event reminder email queued for: {}", to);
+        } catch (Exception e) {
+            log.error("Failed to queue event reminder email to: {}", to, e);
+            throw new RuntimeException("Failed to queue event reminder email", e);
+        }
+    }
+
+    private static String otpKey(String email) {
+        return "otp:" + email.toLowerCase(Locale.ROOT);
+    }
+
+    // Keyed by the token's digest, so the stored key does not reveal the token
+    private static String resetTokenKey(String token) {
+        return "password-reset:" + OneTimeTokenStore.digest(token);
     }
 
     /**
@@ -264,28 +280,10 @@ public class EmailService {
     }
 
     /**
-     * Inner class to store OTP data
-     */
-    private static class OtpData {
-        private final String otp;
-        private final LocalDateTime expiryTime;
-
-        public OtpData(String otp, LocalDateTime expiryTime) {
-            this.otp = otp;
-            this.expiryTime = expiryTime;
-        }
-    }
-
-    /**
-     * Inner class to store reset token data
+     * Recipient of a bulk marketing email
+     *
+     * @param locale the recipient's preferred locale, may be null
      */
-    private static class TokenData {
-        private final String email;
-        private final LocalDateTime expiryTime;
-
-        public TokenData(String email, LocalDateTime expiryTime) {
-            this.email = email;
-            this.expiryTime = expiryTime;
-        }
+    public record MarketingRecipient(String email, String unsubscribeToken, String locale) {
     }
 }
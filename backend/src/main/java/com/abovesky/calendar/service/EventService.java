@@ -1,39 +1,140 @@
 package com.abovesky.calendar.service;
 
+import com.abovesky.calendar.cache.CacheInvalidationBus;
+import com.abovesky.calendar.config.DaemonThreads;
+import com.abovesky.calendar.counter.DashboardCounters;
 import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.dto.FreeBusyDto;
 import com.abovesky.calendar.entity.Event;
+import com.abovesky.calendar.mapper.EventMapper;
+import com.abovesky.calendar.reminder.ReminderScheduler;
 import com.abovesky.calendar.repository.EventRepository;
+import com.abovesky.calendar.schedule.EventScheduleIndex;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EventService {
 
+    /**
+     * Name under which changed event ids are sent to the other nodes' schedule indexes
+     */
+    static final String SCHEDULE_INDEX = "schedule-index";
+
+    private static final int SCHEDULE_INDEX_PAGE_SIZE = 1000;
+
     private final EventRepository eventRepository;
+    private final EventMapper eventMapper;
+    private final RecurrenceService recurrenceService;
+    private final EventScheduleIndex scheduleIndex;
+    private final ReminderScheduler reminderScheduler;
+    private final CacheManager cacheManager;
+    private final DashboardCounters dashboardCounters;
+    private final CacheInvalidationBus invalidationBus;
+
+    @PostConstruct
+    void subscribeToScheduleChanges() {
+        invalidationBus.subscribe(SCHEDULE_INDEX, eventId -> reindex(Long.valueOf(eventId)));
+    }
 
+    /**
+     * Hydrate the schedule index in the background, so no request pays for it; a conflict or free/busy query
+     * arriving meanwhile waits for it, and one arriving after a failed load retries it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScheduleIndex() {
+        DaemonThreads.start("schedule-index-load", () -> {
+            try {
+                ensureScheduleLoaded();
+            } catch (RuntimeException e) {
+                log.error("Schedule index could not be loaded, retrying on first use", e);
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "events", key = "'user:' + #userId", sync = true)
     public List<EventDto> getAllEventsByUserId(Long userId) {
-        return eventRepository.findByUserId(userId)
-                .stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return eventRepository.findAsDtoByUserId(userId);
     }
 
+    /**
+     * Get a user's events overlapping [from, to), with recurring events expanded into their occurrences
+     */
+    @Transactional(readOnly = true)
+    public List<EventDto> getEventsInWindow(Long userId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        List<EventDto> events = new ArrayList<>(eventRepository.findSingleEventsInWindow(userId, from, to));
+        List<EventDto> series = eventRepository.findRecurringAsDtoByUserIdStartingBefore(userId, to);
+        if (series.isEmpty()) {
+            return events;
+        }
+        events.addAll(series);
+        return recurrenceService.expand(events, from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<EventDto> getRecurringEventsByUserId(Long userId) {
+        return eventRepository.findRecurringAsDtoByUserId(userId);
+    }
+
+    /**
+     * Get the occurrences of a user's recurring events in [from, to), expanded server-side
+     */
+    public List<EventDto> getRecurringOccurrences(Long userId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return recurrenceService.expand(getRecurringEventsByUserId(userId), from, to);
+    }
+
+    @Cacheable(value = "events", key = "'id:' + #id", sync = true)
     public EventDto getEventById(Long id) {
         Event event = eventRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Event not found with id: " + id));
         return convertToDto(event);
     }
 
+    @Transactional
+    @CacheEvict(value = "events", key = "'user:' + #result.userId")
     public EventDto createEvent(EventDto eventDto) {
         Event event = convertToEntity(eventDto);
         event = eventRepository.save(event);
-        return convertToDto(event);
+        dashboardCounters.added(DashboardCounters.keysOf(event));
+        EventDto created = convertToDto(event);
+        indexAfterCommit(created.getId(), () -> scheduleIndex.put(created));
+        afterCommit(() -> reminderScheduler.reschedule(created));
+        return created;
     }
 
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "events", key = "'id:' + #id"),
+            @CacheEvict(value = "events", key = "'user:' + #result.userId")
+    })
     public EventDto updateEvent(Long id, EventDto eventDto) {
         Event event = eventRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Event not found with id: " + id));
@@ -51,31 +152,117 @@ public class EventService {
         event.setIcon(eventDto.getIcon());
 
         event = eventRepository.save(event);
-        return convertToDto(event);
+        recurrenceService.evict(id);
+        EventDto updated = convertToDto(event);
+        indexAfterCommit(id, () -> scheduleIndex.put(updated));
+        afterCommit(() -> reminderScheduler.reschedule(updated));
+        return updated;
     }
 
+    @Transactional
     public void deleteEvent(Long id) {
+        Event existing = eventRepository.findById(id).orElse(null);
+        Long ownerId = existing != null ? existing.getUserId() : null;
         eventRepository.deleteById(id);
+        if (existing != null) {
+            dashboardCounters.removed(DashboardCounters.keysOf(existing));
+        }
+        Cache cache = cacheManager.getCache("events");
+        if (cache != null) {
+            cache.evict("id:" + id);
+            cache.evict("user:" + ownerId);
+        }
+        recurrenceService.evict(id);
+        indexAfterCommit(id, () -> scheduleIndex.evict(id));
+        afterCommit(() -> reminderScheduler.cancel(id));
+    }
+
+    /**
+     * Find events of the given members that overlap the slot [from, to)
+     *
+     * @param excludeEventId event being rescheduled, ignored in the result (may be null)
+     */
+    public List<EventDto> findConflicts(Collection<Long> memberIds, LocalDateTime from, LocalDateTime to,
+                                        Long excludeEventId) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        ensureScheduleLoaded();
+        return scheduleIndex.findConflicts(memberIds, from, to, excludeEventId);
+    }
+
+    /**
+     * Get busy and free slots of the given members over [from, to)
+     */
+    public List<FreeBusyDto> getFreeBusy(Collection<Long> memberIds, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        ensureScheduleLoaded();
+        return scheduleIndex.getFreeBusy(memberIds, from, to);
+    }
+
+    private void ensureScheduleLoaded() {
+        if (!scheduleIndex.isLoaded()) {
+            scheduleIndex.load(this::allEvents);
+        }
+    }
+
+    /**
+     * Every event as a DTO, read lazily in pages of ids, each page in its own short query
+     */
+    private Stream<EventDto> allEvents() {
+        PageRequest page = PageRequest.ofSize(SCHEDULE_INDEX_PAGE_SIZE);
+        return Stream.iterate(eventRepository.findAsDtoAfterId(0L, page),
+                        events -> !events.isEmpty(),
+                        events -> events.size() < SCHEDULE_INDEX_PAGE_SIZE
+                                ? List.of()
+                                : eventRepository.findAsDtoAfterId(events.get(events.size() - 1).getId(), page))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * Apply a change to the schedule index and announce it to the other nodes once it is committed (right away
+     * outside a transaction), so neither this node's index nor theirs ever holds a change that was rolled back
+     */
+    private void indexAfterCommit(Long eventId, Runnable change) {
+        afterCommit(() -> {
+            change.run();
+            invalidationBus.publish(SCHEDULE_INDEX, String.valueOf(eventId));
+        });
+    }
+
+    /**
+     * Run once the surrounding transaction has committed, or right away outside a transaction
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Bring the schedule index in line with an event changed on another node
+     */
+    private void reindex(Long eventId) {
+        if (!scheduleIndex.isLoaded()) {
+            return;
+        }
+        recurrenceService.evict(eventId);
+        eventRepository.findById(eventId)
+                .map(this::convertToDto)
+                .ifPresentOrElse(scheduleIndex::put, () -> scheduleIndex.evict(eventId));
     }
 
     private EventDto convertToDto(Event event) {
-        return new EventDto(
-                event.getId(),
-                event.getTitle(),
-                event.getDescription(),
-                event.getStartDate(),
-                event.getEndDate(),
-                event.getUserId(),
-                event.getCategory(),
-                event.getColor(),
-                event.getIsAllDay(),
-                event.getRecurrencePattern(),
-                event.getAssignedMembers(),
-                event.getReminderMinutes(),
-                event.getIcon(),
-                event.getCreatedAt(),
-                event.getUpdatedAt()
-        );
+        return eventMapper.toDto(event);
     }
 
     private Event convertToEntity(EventDto dto) {
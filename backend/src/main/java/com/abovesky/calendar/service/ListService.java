@@ -1,12 +1,23 @@
 package com.abovesky.calendar.service;
 
+import com.abovesky.calendar.counter.CounterKey;
+import com.abovesky.calendar.counter.DashboardCounters;
 import com.abovesky.calendar.dto.FamilyListDto;
 import com.abovesky.calendar.dto.ListItemDto;
 import com.abovesky.calendar.entity.FamilyList;
 import com.abovesky.calendar.entity.ListItem;
+import com.abovesky.calendar.pagination.CursorPage;
+import com.abovesky.calendar.pagination.KeysetPaging;
+import com.abovesky.calendar.pagination.KeysetSort;
 import com.abovesky.calendar.repository.FamilyListRepository;
 import com.abovesky.calendar.repository.ListItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,21 +31,37 @@ public class ListService {
 
     private final FamilyListRepository listRepository;
     private final ListItemRepository itemRepository;
+    private final CacheManager cacheManager;
+    private final DashboardCounters dashboardCounters;
+
+    private static final KeysetPaging PAGING = new KeysetPaging(
+            KeysetSort.timestamp("created", "createdAt", Sort.Direction.DESC),
+            KeysetSort.text("name", "name", Sort.Direction.ASC));
 
     // List operations
+    @Transactional(readOnly = true)
+    @Cacheable(value = "lists", key = "'all'", sync = true)
     public List<FamilyListDto> getAllLists() {
-        return listRepository.findByIsArchivedFalse().stream()
-                .map(this::convertListToDto)
-                .collect(Collectors.toList());
+        return listRepository.findAsDtoByIsArchivedFalse();
+    }
+
+    /**
+     * One page of the unarchived lists, newest first unless another sort is requested
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<FamilyListDto> getListsPage(String sort, String direction, String cursor, Integer limit) {
+        KeysetPaging.Request request = PAGING.request(sort, direction, cursor, limit);
+        return PAGING.page(request, listRepository.findByIsArchivedFalse(request.position(), request.toSort(),
+                request.limit()), this::convertListToDto);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "lists", key = "'shared'", sync = true)
     public List<FamilyListDto> getSharedLists() {
-        return listRepository.findByIsSharedTrue().stream()
-                .filter(list -> !list.getIsArchived())
-                .map(this::convertListToDto)
-                .collect(Collectors.toList());
+        return listRepository.findAsDtoByIsSharedTrueAndIsArchivedFalse();
     }
 
+    @Cacheable(value = "lists", key = "'id:' + #id", sync = true)
     public FamilyListDto getListById(Long id) {
         FamilyList list = listRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("List not found with id: " + id));
@@ -42,13 +69,23 @@ public class ListService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "lists", key = "'all'"),
+            @CacheEvict(value = "lists", key = "'shared'")
+    })
     public FamilyListDto createList(FamilyListDto listDto) {
         FamilyList list = convertListToEntity(listDto);
         FamilyList savedList = listRepository.save(list);
+        dashboardCounters.added(DashboardCounters.keysOf(savedList));
         return convertListToDto(savedList);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "lists", key = "'all'"),
+            @CacheEvict(value = "lists", key = "'shared'"),
+            @CacheEvict(value = "lists", key = "'id:' + #id")
+    })
     public FamilyListDto updateList(Long id, FamilyListDto listDto) {
         FamilyList list = listRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("List not found with id: " + id));
@@ -64,25 +101,39 @@ public class ListService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "lists", key = "'all'"),
+            @CacheEvict(value = "lists", key = "'shared'"),
+            @CacheEvict(value = "lists", key = "'id:' + #id")
+    })
     public void archiveList(Long id) {
         FamilyList list = listRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("List not found with id: " + id));
+        List<CounterKey> countedBefore = DashboardCounters.keysOf(list);
         list.setIsArchived(true);
         list.setArchivedAt(LocalDateTime.now());
         listRepository.save(list);
+        dashboardCounters.changed(countedBefore, DashboardCounters.keysOf(list));
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "lists", key = "'all'"),
+            @CacheEvict(value = "lists", key = "'shared'"),
+            @CacheEvict(value = "lists", key = "'id:' + #id"),
+            @CacheEvict(value = "lists", key = "'items:' + #id")
+    })
     public void deleteList(Long id) {
-        if (!listRepository.existsById(id)) {
-            throw new RuntimeException("List not found with id: " + id);
-        }
+        FamilyList list = listRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("List not found with id: " + id));
         // Delete all items in the list first
         itemRepository.deleteAll(itemRepository.findByListId(id));
         listRepository.deleteById(id);
+        dashboardCounters.removed(DashboardCounters.keysOf(list));
     }
 
     // List item operations
+    @Cacheable(value = "lists", key = "'items:' + #listId", sync = true)
     public List<ListItemDto> getListItems(Long listId) {
         return itemRepository.findByListIdOrderByOrderIndexAsc(listId).stream()
                 .map(this::convertItemToDto)
@@ -90,6 +141,7 @@ public class ListService {
     }
 
     @Transactional
+    @CacheEvict(value = "lists", key = "'items:' + #result.listId")
     public ListItemDto createListItem(ListItemDto itemDto) {
         ListItem item = convertItemToEntity(itemDto);
         ListItem savedItem = itemRepository.save(item);
@@ -97,6 +149,7 @@ public class ListService {
     }
 
     @Transactional
+    @CacheEvict(value = "lists", key = "'items:' + #result.listId")
     public ListItemDto updateListItem(Long id, ListItemDto itemDto) {
         ListItem item = itemRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("List item not found with id: " + id));
@@ -112,10 +165,13 @@ public class ListService {
 
     @Transactional
     public void deleteListItem(Long id) {
-        if (!itemRepository.existsById(id)) {
-            throw new RuntimeException("List item not found with id: " + id);
-        }
+        ListItem item = itemRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("List item not found with id: " + id));
         itemRepository.deleteById(id);
+        Cache cache = cacheManager.getCache("lists");
+        if (cache != null) {
+            cache.evict("items:" + item.getListId());
+        }
     }
 
     private FamilyListDto convertListToDto(FamilyList list) {
@@ -1,11 +1,14 @@
 package com.abovesky.calendar.service;
 
+import com.abovesky.calendar.counter.DashboardCounters;
 import com.abovesky.calendar.dto.MealDto;
 import com.abovesky.calendar.entity.Meal;
 import com.abovesky.calendar.entity.MealType;
 import com.abovesky.calendar.exception.ResourceNotFoundException;
 import com.abovesky.calendar.repository.MealRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -13,50 +16,56 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Meal planning service.
+ * Meal views are cached per category, favorites and date window; since a meal can appear in any number of
+ * date windows, every mutation clears the whole "meals" cache.
+ * Lists are selected straight into {@link MealDto}s without the recipe; only {@link #getMealById} returns it, and an
+ * update replaces it like every other field, so edit a meal from {@link #getMealById}, not from a list.
+ */
 @Service
 @RequiredArgsConstructor
 public class MealService {
 
     private final MealRepository mealRepository;
+    private final DashboardCounters dashboardCounters;
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "meals", key = "'all'", sync = true)
     public List<MealDto> getAllMeals() {
-        return mealRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return mealRepository.findAllListItems();
     }
 
+    @Transactional(readOnly = true)
     public Page<MealDto> getMealsPage(Pageable pageable) {
-        return mealRepository.findAll(pageable)
-                .map(this::convertToDto);
+        return mealRepository.findAllListItems(pageable);
     }
 
+    @Transactional(readOnly = true)
     public List<MealDto> searchMealsByName(String name) {
-        return mealRepository.findByNameContainingIgnoreCase(name).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return mealRepository.findListItemsByNameContainingIgnoreCase(name);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "meals", key = "'range:' + #startDate + ':' + #startDate.plusDays(6)", sync = true)
     public List<MealDto> getWeeklyMeals(LocalDate startDate) {
-        LocalDate endDate = startDate.plusDays(6);
-        return mealRepository.findByAssignedDateBetween(startDate, endDate).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return mealRepository.findListItemsByAssignedDateBetween(startDate, startDate.plusDays(6));
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "meals", key = "'favorites'", sync = true)
     public List<MealDto> getFavoriteMeals() {
-        return mealRepository.findByIsFavorite(true).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return mealRepository.findListItemsByIsFavorite(true);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "meals", key = "'category:' + #category", sync = true)
     public List<MealDto> getMealsByCategory(String category) {
-        return mealRepository.findByCategory(category).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return mealRepository.findListItemsByCategory(category);
     }
 
+    @Cacheable(value = "meals", key = "'id:' + #id", sync = true)
     public MealDto getMealById(Long id) {
         Meal meal = mealRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Meal not found with id: " + id));
@@ -64,13 +73,16 @@ public class MealService {
     }
 
     @Transactional
+    @CacheEvict(value = "meals", allEntries = true)
     public MealDto createMeal(MealDto mealDto) {
         Meal meal = convertToEntity(mealDto);
         Meal savedMeal = mealRepository.save(meal);
+        dashboardCounters.added(DashboardCounters.keysOf(savedMeal));
         return convertToDto(savedMeal);
     }
 
     @Transactional
+    @CacheEvict(value = "meals", allEntries = true)
     public MealDto updateMeal(Long id, MealDto mealDto) {
         Meal meal = mealRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Meal not found with id: " + id));
@@ -90,14 +102,16 @@ public class MealService {
     }
 
     @Transactional
+    @CacheEvict(value = "meals", allEntries = true)
     public void deleteMeal(Long id) {
-        if (!mealRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Meal not found with id: " + id);
-        }
+        Meal meal = mealRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Meal not found with id: " + id));
         mealRepository.deleteById(id);
+        dashboardCounters.removed(DashboardCounters.keysOf(meal));
     }
 
     @Transactional
+    @CacheEvict(value = "meals", allEntries = true)
     public MealDto assignMealToDate(Long id, LocalDate date, MealType mealType) {
         Meal meal = mealRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Meal not found with id: " + id));
@@ -109,10 +123,10 @@ public class MealService {
         return convertToDto(updatedMeal);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "meals", key = "'range:' + #startDate + ':' + #endDate", sync = true)
     public List<MealDto> getMealsForDateRange(LocalDate startDate, LocalDate endDate) {
-        return mealRepository.findByAssignedDateBetween(startDate, endDate).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return mealRepository.findListItemsByAssignedDateBetween(startDate, endDate);
     }
 
     private MealDto convertToDto(Meal meal) {
@@ -11,6 +11,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for managing Parent Mode and Silent Mode functionality.
+ * PINs are checked and hashed outside any transaction, so a caller waiting for the hashing pool holds no database
+ * connection; the change is then written with a single-column update.
  */
 @Service
 @Slf4j
@@ -19,30 +21,38 @@ public class ModeService {
 
     private final UserRepository userRepository;
     private final PinService pinService;
+    private final UserService userService;
+    private final EmailService emailService;
 
     /**
-     * Get the currently authenticated user
+     * Get the currently authenticated user, identified by the token principal, for modification
      */
     private User getCurrentUser() {
+        Long userId = currentUserId();
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+    }
+
+    private Long currentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        return userService.currentUserId(authentication);
     }
 
     /**
-     * Check if user is in Parent Mode
+     * Check if user is in Parent Mode; read from the user cache, the token claim may predate a mode switch
      */
     public boolean isParentMode() {
-        User user = getCurrentUser();
-        return user.getIsParentMode() != null && user.getIsParentMode();
+        return Boolean.TRUE.equals(userService.findById(currentUserId()).getIsParentMode());
     }
 
     /**
      * Check if user has set a PIN
      */
     public boolean hasPinSet() {
-        User user = getCurrentUser();
+        return Boolean.TRUE.equals(userService.findById(currentUserId()).getPinSet());
+    }
+
+    private static boolean hasPin(User user) {
         return user.getParentModePin() != null && !user.getParentModePin().isEmpty();
     }
 
@@ -51,12 +61,11 @@ public class ModeService {
      * @param pin The PIN to validate (null if PIN not yet set)
      * @return true if switched successfully, false if PIN validation failed
      */
-    @Transactional
     public boolean switchToParentMode(String pin) {
         User user = getCurrentUser();
         
         // If PIN is set, validate it
-        if (hasPinSet()) {
+        if (hasPin(user)) {
             if (pin == null || !pinService.validatePin(pin, user.getParentModePin())) {
                 log.warn("Invalid PIN attempt for user: {}", user.getUsername());
                 return false;
@@ -67,8 +76,8 @@ public class ModeService {
             return false;
         }
         
-        user.setIsParentMode(true);
-        userRepository.save(user);
+        userRepository.updateParentMode(user.getId(), true);
+        userService.evictUser(user);
         log.info("User {} switched to Parent Mode", user.getUsername());
         return true;
     }
@@ -81,6 +90,7 @@ public class ModeService {
         User user = getCurrentUser();
         user.setIsParentMode(false);
         userRepository.save(user);
+        userService.evictUser(user);
         log.info("User {} switched to Silent Mode", user.getUsername());
     }
 
@@ -90,7 +100,6 @@ public class ModeService {
      * @param newPin New PIN to set
      * @return true if PIN set successfully
      */
-    @Transactional
     public boolean setPin(String currentPin, String newPin) {
         User user = getCurrentUser();
         
@@ -100,7 +109,7 @@ public class ModeService {
         }
         
         // If user already has a PIN, validate the current PIN
-        if (hasPinSet()) {
+        if (hasPin(user)) {
             if (currentPin == null || !pinService.validatePin(currentPin, user.getParentModePin())) {
                 log.warn("Invalid current PIN when attempting to update for user: {}", user.getUsername());
                 return false;
@@ -108,12 +117,31 @@ public class ModeService {
         }
         
         // Hash and save the new PIN
-        user.setParentModePin(pinService.hashPin(newPin));
-        userRepository.save(user);
+        userRepository.updateParentModePin(user.getId(), pinService.hashPin(newPin));
+        userService.evictUser(user);
         log.info("PIN set/updated for user: {}", user.getUsername());
         return true;
     }
 
+    /**
+     * Issue a PIN reset token to the current user and queue the reset email in the same transaction, so the email
+     * is only sent if the token was stored
+     */
+    @Transactional
+    public void requestPinReset(String baseUrl) {
+        User user = getCurrentUser();
+        pinService.setResetToken(user);
+        userRepository.save(user);
+        userService.evictUser(user);
+        emailService.sendPinResetEmail(
+                user.getEmail(),
+                user.getDisplayName() != null ? user.getDisplayName() : user.getUsername(),
+                user.getPinResetToken(),
+                baseUrl,
+                user.getPreferredLocale()
+        );
+    }
+
     /**
      * Get current user for external operations
      */
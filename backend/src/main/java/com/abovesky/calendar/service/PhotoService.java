@@ -1,39 +1,64 @@
 package com.abovesky.calendar.service;
 
+import com.abovesky.calendar.counter.DashboardCounters;
 import com.abovesky.calendar.dto.PhotoDto;
 import com.abovesky.calendar.entity.Photo;
+import com.abovesky.calendar.pagination.CursorPage;
+import com.abovesky.calendar.pagination.KeysetPaging;
+import com.abovesky.calendar.pagination.KeysetSort;
 import com.abovesky.calendar.repository.PhotoRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PhotoService {
 
     private final PhotoRepository photoRepository;
+    private final CacheManager cacheManager;
+    private final DashboardCounters dashboardCounters;
 
+    private static final KeysetPaging PAGING = new KeysetPaging(
+            KeysetSort.timestamp("taken", "photoDate", Sort.Direction.DESC),
+            KeysetSort.timestamp("uploaded", "uploadedAt", Sort.Direction.DESC));
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "photos", key = "'all'", sync = true)
     public List<PhotoDto> getAllPhotos() {
-        return photoRepository.findAllByOrderByPhotoDateDesc().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return photoRepository.findAllAsDtoOrderByPhotoDateDesc();
+    }
+
+    /**
+     * One page of the photo timeline, most recently taken first unless another sort is requested
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PhotoDto> getPhotosPage(String sort, String direction, String cursor, Integer limit) {
+        KeysetPaging.Request request = PAGING.request(sort, direction, cursor, limit);
+        return PAGING.page(request, photoRepository.findAllBy(request.position(), request.toSort(), request.limit()),
+                this::convertToDto);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "photos", key = "'user:' + #userId", sync = true)
     public List<PhotoDto> getPhotosByUser(Long userId) {
-        return photoRepository.findByUploadedBy(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return photoRepository.findAsDtoByUploadedBy(userId);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "photos", key = "'event:' + #eventId", sync = true)
     public List<PhotoDto> getPhotosByEvent(Long eventId) {
-        return photoRepository.findByEventId(eventId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return photoRepository.findAsDtoByEventId(eventId);
     }
 
+    @Cacheable(value = "photos", key = "'id:' + #id", sync = true)
     public PhotoDto getPhotoById(Long id) {
         Photo photo = photoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Photo not found with id: " + id));
@@ -44,6 +69,8 @@ public class PhotoService {
     public PhotoDto createPhoto(PhotoDto photoDto) {
         Photo photo = convertToEntity(photoDto);
         Photo savedPhoto = photoRepository.save(photo);
+        dashboardCounters.added(DashboardCounters.keysOf(savedPhoto));
+        evictPhotoCaches(savedPhoto);
         return convertToDto(savedPhoto);
     }
 
@@ -51,23 +78,43 @@ public class PhotoService {
     public PhotoDto updatePhoto(Long id, PhotoDto photoDto) {
         Photo photo = photoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Photo not found with id: " + id));
+        // The photo may move to another event
+        evictPhotoCaches(photo);
 
         photo.setCaption(photoDto.getCaption());
         photo.setComments(photoDto.getComments());
         photo.setEventId(photoDto.getEventId());
-        photo.setPhotoDate(photoDto.getPhotoDate());
+        if (photoDto.getPhotoDate() != null) {
+            photo.setPhotoDate(photoDto.getPhotoDate());
+        }
         photo.setTags(photoDto.getTags());
 
         Photo updatedPhoto = photoRepository.save(photo);
+        evictPhotoCaches(updatedPhoto);
         return convertToDto(updatedPhoto);
     }
 
     @Transactional
     public void deletePhoto(Long id) {
-        if (!photoRepository.existsById(id)) {
-            throw new RuntimeException("Photo not found with id: " + id);
-        }
+        Photo photo = photoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Photo not found with id: " + id));
         photoRepository.deleteById(id);
+        dashboardCounters.removed(DashboardCounters.keysOf(photo));
+        evictPhotoCaches(photo);
+    }
+
+    /**
+     * Evict every cached view containing the photo in its current state
+     */
+    private void evictPhotoCaches(Photo photo) {
+        Cache cache = cacheManager.getCache("photos");
+        if (cache == null) {
+            return;
+        }
+        cache.evict("all");
+        cache.evict("id:" + photo.getId());
+        cache.evict("user:" + photo.getUploadedBy());
+        cache.evict("event:" + photo.getEventId());
     }
 
     private PhotoDto convertToDto(Photo photo) {
@@ -93,7 +140,7 @@ public class PhotoService {
         photo.setCaption(dto.getCaption());
         photo.setComments(dto.getComments());
         photo.setEventId(dto.getEventId());
-        photo.setPhotoDate(dto.getPhotoDate());
+        photo.setPhotoDate(dto.getPhotoDate() != null ? dto.getPhotoDate() : LocalDateTime.now());
         photo.setUploadedBy(dto.getUploadedBy());
         photo.setTags(dto.getTags());
         return photo;
@@ -1,6 +1,7 @@
 package com.abovesky.calendar.service;
 
 import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.exception.HashingCapacityException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -32,7 +33,9 @@ public class PinService {
     }
 
     /**
-     * Hash a PIN using BCrypt
+     * Hash a PIN using BCrypt, on the password hashing pool
+     *
+     * @throws HashingCapacityException if the pool is saturated
      */
     public String hashPin(String pin) {
         if (!isValidPinFormat(pin)) {
@@ -42,7 +45,9 @@ public class PinService {
     }
 
     /**
-     * Validate a PIN against the stored hash
+     * Validate a PIN against the stored hash, on the password hashing pool
+     *
+     * @throws HashingCapacityException if the pool is saturated
      */
     public boolean validatePin(String rawPin, String hashedPin) {
         if (hashedPin == null || rawPin == null) {
@@ -50,6 +55,9 @@ public class PinService {
         }
         try {
             return passwordEncoder.matches(rawPin, hashedPin);
+        } catch (HashingCapacityException e) {
+            // Overload is not a wrong PIN; let the caller answer 503
+            throw e;
         } catch (Exception e) {
             log.error("Error validating PIN", e);
             return false;
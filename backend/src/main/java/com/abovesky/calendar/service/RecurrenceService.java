@@ -0,0 +1,116 @@
+package com.abovesky.calendar.service;
+
+import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.recurrence.RecurrenceRule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service that expands recurring events into concrete occurrences.
+ * Recurrence patterns are compiled once into {@link RecurrenceRule}s and cached per event id.
+ */
+@Service
+@Slf4j
+public class RecurrenceService {
+
+    private final ConcurrentHashMap<Long, CompiledRule> ruleCache = new ConcurrentHashMap<>();
+
+    /**
+     * Get the compiled rule for an event, or null if the event does not recur (or its pattern is invalid)
+     */
+    public RecurrenceRule getRule(EventDto event) {
+        String pattern = event.getRecurrencePattern();
+        if (pattern == null || pattern.isBlank()) {
+            return null;
+        }
+        if (event.getId() == null) {
+            return compile(pattern).rule();
+        }
+        CompiledRule cached = ruleCache.get(event.getId());
+        if (cached == null || !cached.pattern().equals(pattern)) {
+            cached = compile(pattern);
+            ruleCache.put(event.getId(), cached);
+        }
+        return cached.rule();
+    }
+
+    /**
+     * Drop the cached rule of an event after it was updated or deleted
+     */
+    public void evict(Long eventId) {
+        if (eventId != null) {
+            ruleCache.remove(eventId);
+        }
+    }
+
+    /**
+     * Expand events into the occurrences that overlap [from, to), sorted by start date.
+     * Non-recurring events are returned as-is when they overlap the window.
+     */
+    public List<EventDto> expand(List<EventDto> events, LocalDateTime from, LocalDateTime to) {
+        List<EventDto> occurrences = new ArrayList<>();
+        for (EventDto event : events) {
+            RecurrenceRule rule = getRule(event);
+            if (rule == null) {
+                if (overlaps(event.getStartDate(), event.getEndDate(), from, to)) {
+                    occurrences.add(event);
+                }
+                continue;
+            }
+            Duration duration = Duration.between(event.getStartDate(), event.getEndDate());
+            for (LocalDateTime start : rule.occurrences(event.getStartDate(), duration, from, to)) {
+                occurrences.add(toOccurrence(event, start, start.plus(duration)));
+            }
+        }
+        occurrences.sort(Comparator.comparing(EventDto::getStartDate));
+        return occurrences;
+    }
+
+    private CompiledRule compile(String pattern) {
+        try {
+            return new CompiledRule(pattern, RecurrenceRule.parse(pattern));
+        } catch (IllegalArgumentException e) {
+            // Cache the failure too, so a broken pattern is not re-parsed on every request
+            log.warn("Ignoring invalid recurrence pattern '{}': {}", pattern, e.getMessage());
+            return new CompiledRule(pattern, null);
+        }
+    }
+
+    private static boolean overlaps(LocalDateTime start, LocalDateTime end, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime effectiveEnd = end != null ? end : start;
+        return start.isBefore(to) && (effectiveEnd.isAfter(from) || !start.isBefore(from));
+    }
+
+    private static EventDto toOccurrence(EventDto master, LocalDateTime start, LocalDateTime end) {
+        return new EventDto(
+                master.getId(),
+                master.getTitle(),
+                master.getDescription(),
+                start,
+                end,
+                master.getUserId(),
+                master.getCategory(),
+                master.getColor(),
+                master.getIsAllDay(),
+                master.getRecurrencePattern(),
+                master.getAssignedMembers(),
+                master.getReminderMinutes(),
+                master.getIcon(),
+                master.getCreatedAt(),
+                master.getUpdatedAt()
+        );
+    }
+
+    /**
+     * Cached compilation result; rule is null when the pattern could not be parsed
+     */
+    private record CompiledRule(String pattern, RecurrenceRule rule) {
+    }
+}
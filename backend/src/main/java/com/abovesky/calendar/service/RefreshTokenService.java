@@ -0,0 +1,153 @@
+package com.abovesky.calendar.service;
+
+import com.abovesky.calendar.entity.RefreshToken;
+import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.exception.InvalidTokenException;
+import com.abovesky.calendar.repository.RefreshTokenRepository;
+import com.abovesky.calendar.repository.UserRepository;
+import com.abovesky.calendar.security.TokenRevocationList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. Each refresh returns a new access token and a new refresh token and marks the
+ * presented one as used; presenting a used token again means it leaked, so the whole family (every rotation of that
+ * login) is revoked together with the access tokens issued from it.
+ * Only a SHA-256 hash of each refresh token is stored.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtService jwtService;
+    private final TokenRevocationList revocationList;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:2592000000}")
+    private long refreshExpiration;
+
+    /**
+     * Access and refresh token issued together, with the user they were issued to
+     */
+    public record TokenPair(User user, String accessToken, String refreshToken) {
+    }
+
+    /**
+     * Start a new token family for a user who just authenticated
+     */
+    @Transactional
+    public TokenPair issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchange a refresh token for a new pair
+     *
+     * @throws InvalidTokenException if the token is unknown, expired or revoked, or was already used
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public TokenPair rotate(String refreshToken) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHashForUpdate(hash(refreshToken))
+                .orElseThrow(() -> new InvalidTokenException("Unknown refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+        if (stored.getUsedAt() != null) {
+            log.warn("Refresh token reuse for user {}, revoking token family {}", stored.getUserId(),
+                    stored.getFamilyId());
+            revokeFamily(stored.getFamilyId());
+            throw new InvalidTokenException("Refresh token already used");
+        }
+        if (stored.getRevokedAt() != null || !stored.getExpiresAt().isAfter(now)) {
+            throw new InvalidTokenException("Refresh token expired or revoked");
+        }
+        User user = userRepository.findById(stored.getUserId())
+                .orElseThrow(() -> new InvalidTokenException("Unknown refresh token"));
+        stored.setUsedAt(now);
+        refreshTokenRepository.save(stored);
+        return issue(user, stored.getFamilyId());
+    }
+
+    /**
+     * Revoke the family of a refresh token, on logout; unknown tokens are ignored
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHashForUpdate(hash(refreshToken))
+                .ifPresent(stored -> revokeFamily(stored.getFamilyId()));
+    }
+
+    /**
+     * Revoke every refresh token of a user and the access tokens issued with them, e.g. after a password change
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        revoke(refreshTokenRepository.findByUserIdAndRevokedAtIsNull(userId));
+    }
+
+    @Transactional
+    public int purgeExpired() {
+        return refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private TokenPair issue(User user, String familyId) {
+        String accessTokenId = UUID.randomUUID().toString();
+        String accessToken = jwtService.generateToken(user, accessTokenId);
+
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        RefreshToken stored = new RefreshToken();
+        stored.setTokenHash(hash(refreshToken));
+        stored.setUserId(user.getId());
+        stored.setFamilyId(familyId);
+        stored.setAccessTokenId(accessTokenId);
+        stored.setExpiresAt(LocalDateTime.now().plusNanos(refreshExpiration * 1_000_000));
+        refreshTokenRepository.save(stored);
+        return new TokenPair(user, accessToken, refreshToken);
+    }
+
+    private void revokeFamily(String familyId) {
+        revoke(refreshTokenRepository.findByFamilyIdAndRevokedAtIsNull(familyId));
+    }
+
+    private void revoke(List<RefreshToken> tokens) {
+        LocalDateTime now = LocalDateTime.now();
+        for (RefreshToken token : tokens) {
+            token.setRevokedAt(now);
+            // Issued in the same transaction, so it expires one access token lifetime after the refresh token's creation
+            Instant accessExpiry = token.getCreatedAt() != null
+                    ? token.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()
+                            .plusMillis(jwtService.getExpiration())
+                    : Instant.now().plusMillis(jwtService.getExpiration());
+            revocationList.revoke(token.getAccessTokenId(), accessExpiry);
+        }
+        refreshTokenRepository.saveAll(tokens);
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.abovesky.calendar.service;
 
+import com.abovesky.calendar.counter.CounterKey;
+import com.abovesky.calendar.counter.DashboardCounters;
 import com.abovesky.calendar.dto.RewardDto;
 import com.abovesky.calendar.dto.RewardRedemptionDto;
 import com.abovesky.calendar.entity.Reward;
 import com.abovesky.calendar.entity.RewardRedemption;
 import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.pagination.CursorPage;
+import com.abovesky.calendar.pagination.KeysetPaging;
+import com.abovesky.calendar.pagination.KeysetSort;
 import com.abovesky.calendar.repository.RewardRedemptionRepository;
 import com.abovesky.calendar.repository.RewardRepository;
 import com.abovesky.calendar.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,27 +31,43 @@ public class RewardService {
     private final RewardRepository rewardRepository;
     private final RewardRedemptionRepository redemptionRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final DashboardCounters dashboardCounters;
 
+    private static final KeysetPaging PAGING = new KeysetPaging(
+            KeysetSort.integer("cost", "pointsCost", Sort.Direction.ASC),
+            KeysetSort.text("name", "name", Sort.Direction.ASC));
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "rewards", key = "'all'", sync = true)
     public List<RewardDto> getAllRewards() {
-        return rewardRepository.findAll().stream()
-                .map(this::convertRewardToDto)
-                .collect(Collectors.toList());
+        return rewardRepository.findAllAsDto();
     }
 
+    /**
+     * One page of all rewards, cheapest first unless another sort is requested
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<RewardDto> getRewardsPage(String sort, String direction, String cursor, Integer limit) {
+        KeysetPaging.Request request = PAGING.request(sort, direction, cursor, limit);
+        return PAGING.page(request, rewardRepository.findAllBy(request.position(), request.toSort(),
+                request.limit()), this::convertRewardToDto);
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "rewards", key = "'active'", sync = true)
     public List<RewardDto> getActiveRewards() {
-        return rewardRepository.findByIsActive(true).stream()
-                .map(this::convertRewardToDto)
-                .collect(Collectors.toList());
+        return rewardRepository.findAsDtoByIsActive(true);
     }
 
+    @Transactional(readOnly = true)
     public List<RewardDto> getAffordableRewards(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        return rewardRepository.findByIsActiveAndPointsCostLessThanEqual(true, user.getRewardPoints()).stream()
-                .map(this::convertRewardToDto)
-                .collect(Collectors.toList());
+        return rewardRepository.findAsDtoByIsActiveAndPointsCostLessThanEqual(true, user.getRewardPoints());
     }
 
+    @Cacheable(value = "rewards", key = "'id:' + #id", sync = true)
     public RewardDto getRewardById(Long id) {
         Reward reward = rewardRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reward not found with id: " + id));
@@ -50,16 +75,27 @@ public class RewardService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "rewards", key = "'all'"),
+            @CacheEvict(value = "rewards", key = "'active'")
+    })
     public RewardDto createReward(RewardDto rewardDto) {
         Reward reward = convertRewardToEntity(rewardDto);
         Reward savedReward = rewardRepository.save(reward);
+        dashboardCounters.added(DashboardCounters.keysOf(savedReward));
         return convertRewardToDto(savedReward);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "rewards", key = "'all'"),
+            @CacheEvict(value = "rewards", key = "'active'"),
+            @CacheEvict(value = "rewards", key = "'id:' + #id")
+    })
     public RewardDto updateReward(Long id, RewardDto rewardDto) {
         Reward reward = rewardRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reward not found with id: " + id));
+        List<CounterKey> countedBefore = DashboardCounters.keysOf(reward);
 
         reward.setName(rewardDto.getName());
         reward.setDescription(rewardDto.getDescription());
@@ -71,18 +107,25 @@ public class RewardService {
         reward.setIcon(rewardDto.getIcon());
 
         Reward updatedReward = rewardRepository.save(reward);
+        dashboardCounters.changed(countedBefore, DashboardCounters.keysOf(updatedReward));
         return convertRewardToDto(updatedReward);
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "rewards", key = "'all'"),
+            @CacheEvict(value = "rewards", key = "'active'"),
+            @CacheEvict(value = "rewards", key = "'id:' + #id")
+    })
     public void deleteReward(Long id) {
-        if (!rewardRepository.existsById(id)) {
-            throw new RuntimeException("Reward not found with id: " + id);
-        }
+        Reward reward = rewardRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reward not found with id: " + id));
         rewardRepository.deleteById(id);
+        dashboardCounters.removed(DashboardCounters.keysOf(reward));
     }
 
     // Redemption methods
+    @Cacheable(value = "rewards", key = "'redemptions:' + #userId", sync = true)
     public List<RewardRedemptionDto> getUserRedemptions(Long userId) {
         return redemptionRepository.findByUserIdOrderByRedeemedAtDesc(userId).stream()
                 .map(this::convertRedemptionToDto)
@@ -90,6 +133,12 @@ public class RewardService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "rewards", key = "'all'"),
+            @CacheEvict(value = "rewards", key = "'active'"),
+            @CacheEvict(value = "rewards", key = "'id:' + #rewardId"),
+            @CacheEvict(value = "rewards", key = "'redemptions:' + #userId")
+    })
     public RewardRedemptionDto redeemReward(Long userId, Long rewardId, String notes) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
@@ -109,6 +158,7 @@ public class RewardService {
         // Deduct points from user
         user.setRewardPoints(user.getRewardPoints() - reward.getPointsCost());
         userRepository.save(user);
+        userService.evictUser(user);
 
         // Decrease stock if applicable
         if (reward.getStockQuantity() != null && reward.getStockQuantity() > 0) {
@@ -125,10 +175,12 @@ public class RewardService {
         redemption.setNotes(notes);
 
         RewardRedemption savedRedemption = redemptionRepository.save(redemption);
+        dashboardCounters.added(DashboardCounters.keysOf(savedRedemption));
         return convertRedemptionToDto(savedRedemption);
     }
 
     @Transactional
+    @CacheEvict(value = "rewards", key = "'redemptions:' + #result.userId")
     public RewardRedemptionDto updateRedemptionStatus(Long redemptionId, String status) {
         RewardRedemption redemption = redemptionRepository.findById(redemptionId)
                 .orElseThrow(() -> new RuntimeException("Redemption not found with id: " + redemptionId));
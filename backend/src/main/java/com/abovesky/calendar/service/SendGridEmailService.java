@@ -1,145 +1,29 @@
 package com.abovesky.calendar.service;
 
-import com.sendgrid.*;
-import com.sendgrid.helpers.mail.Mail;
-import com.sendgrid.helpers.mail.objects.Content;
-import com.sendgrid.helpers.mail.objects.Email;
+import com.abovesky.calendar.mail.CompiledTemplate;
+import com.abovesky.calendar.mail.EmailOutbox;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.util.concurrent.CompletableFuture;
+import static com.abovesky.calendar.mail.CompiledTemplate.variables;
 
 /**
  * SendGrid Email Service for Production
- * Uses SendGrid API to send emails in production environment
+ * Builds the production email bodies and queues them in the {@link EmailOutbox}; delivery (through the SendGrid
+ * API with {@code mail.transport: sendgrid}) happens in the background.
+ * The bodies are {@link CompiledTemplate}s parsed once at class load; values are HTML-escaped into them.
  */
 @Slf4j
 @Service
 @Profile("prod")
+@RequiredArgsConstructor
 public class SendGridEmailService {
 
-    @Value("${sendgrid.api-key}")
-    private String sendGridApiKey;
-
-    @Value("${sendgrid.from-email}")
-    private String fromEmail;
-
-    @Value("${sendgrid.from-name:Above Sky Calendar}")
-    private String fromName;
-
-    // Rate limiting: max emails per second
-    private static final int MAX_EMAILS_PER_SECOND = 10;
-    private long lastEmailTime = 0;
-    private int emailCount = 0;
-
-    /**
-     * Send an email using SendGrid
-     */
-    public CompletableFuture<Boolean> sendEmail(String to, String subject, String htmlContent) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Rate limiting
-                enforceRateLimit();
-
-                Email from = new Email(fromEmail, fromName);
-                Email toEmail = new Email(to);
-                Content content = new Content("text/html", htmlContent);
-                Mail mail = new Mail(from, subject, toEmail, content);
-
-                SendGrid sg = new SendGrid(sendGridApiKey);
-                Request request = new Request();
-
-                request.setMethod(Method.POST);
-                request.setEndpoint("mail/send");
-                request.setBody(mail.build());
-
-                Response response = sg.api(request);
-
-                if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
-                    log.info("Email sent successfully to: {}, subject: {}", to, subject);
-                    return true;
-                } else {
-                    log.error("Failed to send email. Status: {}, Body: {}", 
-                             response.getStatusCode(), response.getBody());
-                    return false;
-                }
-
-            } catch (IOException e) {
-                log.error("Error sending email to: {}", to, e);
-                return false;
-            }
-        });
-    }
-
-    /**
-     * Send OTP email
-     */
-    public CompletableFuture<Boolean> sendOtpEmail(String to, String otp) {
-        String subject = "Your OTP Code - Above Sky Calendar";
-        String htmlContent = buildOtpEmailHtml(otp);
-        return sendEmail(to, subject, htmlContent);
-    }
-
-    /**
-     * Send password reset email
-     */
-    public CompletableFuture<Boolean> sendPasswordResetEmail(String to, String resetToken, String resetUrl) {
-        String subject = "Password Reset Request - Above Sky Calendar";
-        String htmlContent = buildPasswordResetEmailHtml(resetUrl);
-        return sendEmail(to, subject, htmlContent);
-    }
-
-    /**
-     * Send welcome email
-     */
-    public CompletableFuture<Boolean> sendWelcomeEmail(String to, String userName) {
-        String subject = "Welcome to Above Sky Calendar!";
-        String htmlContent = buildWelcomeEmailHtml(userName);
-        return sendEmail(to, subject, htmlContent);
-    }
-
-    /**
-     * Send task reminder email
-     */
-    public CompletableFuture<Boolean> sendTaskReminderEmail(String to, String taskTitle, String dueDate) {
-        String subject = "Task Reminder: " + taskTitle;
-        String htmlContent = buildTaskReminderEmailHtml(taskTitle, dueDate);
-        return sendEmail(to, subject, htmlContent);
-    }
-
-    /**
-     * Enforce rate limiting to prevent abuse
-     */
-    private synchronized void enforceRateLimit() {
-        long currentTime = System.currentTimeMillis();
-        long timeDiff = currentTime - lastEmailTime;
-
-        if (timeDiff < 1000) {
-            // Within the same second
-            emailCount++;
-            if (emailCount > MAX_EMAILS_PER_SECOND) {
-                try {
-                    Thread.sleep(1000 - timeDiff);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                emailCount = 0;
-                lastEmailTime = System.currentTimeMillis();
-            }
-        } else {
-            // New second
-            emailCount = 0;
-            lastEmailTime = currentTime;
-        }
-    }
-
     // HTML email templates
 
-    private String buildOtpEmailHtml(String otp) {
-        return """
+    private static final CompiledTemplate OTP_TEMPLATE = CompiledTemplate.of("""
             <!DOCTYPE html>
             <html>
             <head>
@@ -154,7 +38,7 @@ public class SendGridEmailService {
                 <div class="container">
                     <h2>Your OTP Code</h2>
                     <p>Use the following OTP code to complete your authentication:</p>
-                    <div class="otp-box">%s</div>
+                    <div class="otp-box">{{otp}}</div>
                     <p>This code will expire in 10 minutes.</p>
                     <p>If you didn't request this code, please ignore this email.</p>
                     <div class="footer">
@@ -163,11 +47,9 @@ public class SendGridEmailService {
                 </div>
             </body>
             </html>
-            """.formatted(otp);
-    }
+            """);
 
-    private String buildPasswordResetEmailHtml(String resetUrl) {
-        return """
+    private static final CompiledTemplate PASSWORD_RESET_TEMPLATE = CompiledTemplate.of("""
             <!DOCTYPE html>
             <html>
             <head>
@@ -182,9 +64,9 @@ public class SendGridEmailService {
                 <div class="container">
                     <h2>Password Reset Request</h2>
                     <p>We received a request to reset your password. Click the button below to create a new password:</p>
-                    <a href="%s" class="button">Reset Password</a>
+                    <a href="{{resetUrl}}" class="button">Reset Password</a>
                     <p>If the button doesn't work, copy and paste this link into your browser:</p>
-                    <p>%s</p>
+                    <p>{{resetUrl}}</p>
                     <p>This link will expire in 24 hours.</p>
                     <p>If you didn't request this password reset, please ignore this email.</p>
                     <div class="footer">
@@ -193,11 +75,9 @@ public class SendGridEmailService {
                 </div>
             </body>
             </html>
-            """.formatted(resetUrl, resetUrl);
-    }
+            """);
 
-    private String buildWelcomeEmailHtml(String userName) {
-        return """
+    private static final CompiledTemplate WELCOME_TEMPLATE = CompiledTemplate.of("""
             <!DOCTYPE html>
             <html>
             <head>
@@ -215,7 +95,7 @@ public class SendGridEmailService {
                         <h1>Welcome to Above Sky Calendar!</h1>
                     </div>
                     <div class="content">
-                        <p>Hi %s,</p>
+                        <p>Hi {{userName}},</p>
                         <p>Thank you for joining Above Sky Calendar - your family's task management solution!</p>
                         <p>You can now:</p>
                         <ul>
@@ -234,11 +114,9 @@ public class SendGridEmailService {
                 </div>
             </body>
             </html>
-            """.formatted(userName);
-    }
+            """);
 
-    private String buildTaskReminderEmailHtml(String taskTitle, String dueDate) {
-        return """
+    private static final CompiledTemplate TASK_REMINDER_TEMPLATE = CompiledTemplate.of("""
             <!DOCTYPE html>
             <html>
             <head>
@@ -253,8 +131,8 @@ public class SendGridEmailService {
                 <div class="container">
                     <h2>Task Reminder</h2>
                     <div class="reminder-box">
-                        <h3>%s</h3>
-                        <p><strong>Due Date:</strong> %s</p>
+                        <h3>{{taskTitle}}</h3>
+                        <p><strong>Due Date:</strong> {{dueDate}}</p>
                     </div>
                     <p>Don't forget to complete your task!</p>
                     <div class="footer">
@@ -263,6 +141,60 @@ public class SendGridEmailService {
                 </div>
             </body>
             </html>
-            """.formatted(taskTitle, dueDate);
+            """);
+
+    private final EmailOutbox emailOutbox;
+
+    /**
+     * Queue an email; returns false when one with the same idempotency key was already queued
+     */
+    public boolean sendEmail(String to, String subject, String htmlContent) {
+        return sendEmail(null, EmailOutbox.TRANSACTIONAL, to, subject, htmlContent);
+    }
+
+    private boolean sendEmail(String idempotencyKey, String category, String to, String subject,
+                              String htmlContent) {
+        boolean queued = emailOutbox.enqueue(idempotencyKey, category, to, subject, htmlContent);
+        log.info("Email queued for: {}, subject: {}", to, subject);
+        return queued;
+    }
+
+    /**
+     * Send OTP email
+     */
+    public boolean sendOtpEmail(String to, String otp) {
+        String subject = "Your OTP Code - Above Sky Calendar";
+        String htmlContent = OTP_TEMPLATE.render(variables("otp", otp));
+        return sendEmail(to, subject, htmlContent);
+    }
+
+    /**
+     * Send password reset email
+     */
+    public boolean sendPasswordResetEmail(String to, String resetToken, String resetUrl) {
+        String subject = "Password Reset Request - Above Sky Calendar";
+        String htmlContent = PASSWORD_RESET_TEMPLATE.render(variables("resetUrl", resetUrl));
+        return sendEmail(EmailOutbox.key("password-reset", resetToken), EmailOutbox.TRANSACTIONAL, to, subject,
+                htmlContent);
+    }
+
+    /**
+     * Send welcome email
+     */
+    public boolean sendWelcomeEmail(String to, String userName) {
+        String subject = "Welcome to Above Sky Calendar!";
+        String htmlContent = WELCOME_TEMPLATE.render(variables("userName", userName));
+        return sendEmail(EmailOutbox.key("welcome", to), EmailOutbox.TRANSACTIONAL, to, subject, htmlContent);
+    }
+
+    /**
+     * Send task reminder email
+     *
+     * @param idempotencyKey identifies the reminder occurrence, so a reminder fired again is not sent twice
+     */
+    public boolean sendTaskReminderEmail(String to, String taskTitle, String dueDate, String idempotencyKey) {
+        String subject = "Task Reminder: " + taskTitle;
+        String htmlContent = TASK_REMINDER_TEMPLATE.render(variables("taskTitle", taskTitle, "dueDate", dueDate));
+        return sendEmail(idempotencyKey, EmailOutbox.NOTIFICATION, to, subject, htmlContent);
     }
 }
@@ -1,17 +1,25 @@
 package com.abovesky.calendar.service;
 
+import com.abovesky.calendar.counter.CounterKey;
+import com.abovesky.calendar.counter.DashboardCounters;
 import com.abovesky.calendar.dto.TaskDto;
 import com.abovesky.calendar.entity.Task;
 import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.pagination.CursorPage;
+import com.abovesky.calendar.pagination.KeysetPaging;
+import com.abovesky.calendar.pagination.KeysetSort;
 import com.abovesky.calendar.repository.TaskRepository;
 import com.abovesky.calendar.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,25 +27,43 @@ public class TaskService {
 
     private final TaskRepository taskRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final CacheManager cacheManager;
+    private final DashboardCounters dashboardCounters;
 
+    private static final KeysetPaging PAGING = new KeysetPaging(
+            KeysetSort.timestamp("created", "createdAt", Sort.Direction.DESC),
+            KeysetSort.text("title", "title", Sort.Direction.ASC));
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "tasks", key = "'all'", sync = true)
     public List<TaskDto> getAllTasks() {
-        return taskRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return taskRepository.findAllAsDto();
+    }
+
+    /**
+     * One page of all tasks, newest first unless another sort is requested
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDto> getTasksPage(String sort, String direction, String cursor, Integer limit) {
+        KeysetPaging.Request request = PAGING.request(sort, direction, cursor, limit);
+        return PAGING.page(request, taskRepository.findAllBy(request.position(), request.toSort(), request.limit()),
+                this::convertToDto);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "tasks", key = "'user:' + #userId", sync = true)
     public List<TaskDto> getTasksByAssignedUser(Long userId) {
-        return taskRepository.findByAssignedUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return taskRepository.findAsDtoByAssignedUserId(userId);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(value = "tasks", key = "'status:' + #status", sync = true)
     public List<TaskDto> getTasksByStatus(String status) {
-        return taskRepository.findByStatus(status).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return taskRepository.findAsDtoByStatus(status);
     }
 
+    @Cacheable(value = "tasks", key = "'id:' + #id", sync = true)
     public TaskDto getTaskById(Long id) {
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
@@ -48,6 +74,8 @@ public class TaskService {
     public TaskDto createTask(TaskDto taskDto) {
         Task task = convertToEntity(taskDto);
         Task savedTask = taskRepository.save(task);
+        dashboardCounters.added(DashboardCounters.keysOf(savedTask));
+        evictTaskCaches(savedTask);
         return convertToDto(savedTask);
     }
 
@@ -55,6 +83,9 @@ public class TaskService {
     public TaskDto updateTask(Long id, TaskDto taskDto) {
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
+        // The task may move to another user's or status' list
+        evictTaskCaches(task);
+        List<CounterKey> countedBefore = DashboardCounters.keysOf(task);
 
         task.setTitle(taskDto.getTitle());
         task.setDescription(taskDto.getDescription());
@@ -69,6 +100,8 @@ public class TaskService {
         task.setOrderIndex(taskDto.getOrderIndex());
 
         Task updatedTask = taskRepository.save(task);
+        dashboardCounters.changed(countedBefore, DashboardCounters.keysOf(updatedTask));
+        evictTaskCaches(updatedTask);
         return convertToDto(updatedTask);
     }
 
@@ -76,6 +109,8 @@ public class TaskService {
     public TaskDto completeTask(Long id, Long userId) {
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
+        evictTaskCaches(task);
+        List<CounterKey> countedBefore = DashboardCounters.keysOf(task);
 
         task.setStatus("completed");
         task.setCompletedAt(LocalDateTime.now());
@@ -86,18 +121,36 @@ public class TaskService {
                     .orElseThrow(() -> new RuntimeException("User not found with id: " + task.getAssignedUserId()));
             user.setRewardPoints(user.getRewardPoints() + task.getRewardPoints());
             userRepository.save(user);
+            userService.evictUser(user);
         }
 
         Task updatedTask = taskRepository.save(task);
+        dashboardCounters.changed(countedBefore, DashboardCounters.keysOf(updatedTask));
+        evictTaskCaches(updatedTask);
         return convertToDto(updatedTask);
     }
 
     @Transactional
     public void deleteTask(Long id) {
-        if (!taskRepository.existsById(id)) {
-            throw new RuntimeException("Task not found with id: " + id);
-        }
+        Task task = taskRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
         taskRepository.deleteById(id);
+        dashboardCounters.removed(DashboardCounters.keysOf(task));
+        evictTaskCaches(task);
+    }
+
+    /**
+     * Evict every cached view containing the task in its current state
+     */
+    private void evictTaskCaches(Task task) {
+        Cache cache = cacheManager.getCache("tasks");
+        if (cache == null) {
+            return;
+        }
+        cache.evict("all");
+        cache.evict("id:" + task.getId());
+        cache.evict("user:" + task.getAssignedUserId());
+        cache.evict("status:" + task.getStatus());
     }
 
     private TaskDto convertToDto(Task task) {
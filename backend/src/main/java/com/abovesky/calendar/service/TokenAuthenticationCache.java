@@ -0,0 +1,97 @@
+package com.abovesky.calendar.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Bearer tokens that already passed verification, with the principal they resolved to, so repeated requests with
+ * the same token skip the HMAC check and the user lookup.
+ * Entries are keyed by a SHA-256 hash of the token (raw tokens are never kept), live until the token expires
+ * or the configured TTL runs out, whichever is first, and are dropped when the user changes
+ * ({@link UserService#evictUser}) or logs out.
+ */
+@Service
+public class TokenAuthenticationCache {
+
+    private record Entry(UserDetails principal, long expiresAtNanos) {
+    }
+
+    private final Cache<String, Entry> cache;
+    private final Duration ttl;
+
+    public TokenAuthenticationCache(@Value("${auth.token-cache.maximum-size:10000}") long maximumSize,
+                                    @Value("${auth.token-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return Math.max(0, entry.expiresAtNanos() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Principal of a previously verified, unexpired token, or null
+     */
+    public UserDetails get(String token) {
+        Entry entry = cache.getIfPresent(hash(token));
+        return entry != null ? entry.principal() : null;
+    }
+
+    public void put(String token, UserDetails principal, Instant tokenExpiresAt) {
+        Duration lifetime = ttl;
+        if (tokenExpiresAt != null) {
+            Duration untilExpiry = Duration.between(Instant.now(), tokenExpiresAt);
+            if (untilExpiry.compareTo(lifetime) < 0) {
+                lifetime = untilExpiry;
+            }
+        }
+        if (!lifetime.isNegative() && !lifetime.isZero()) {
+            cache.put(hash(token), new Entry(principal, System.nanoTime() + lifetime.toNanos()));
+        }
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(hash(token));
+    }
+
+    /**
+     * Drop every cached token of a user, after a change to the user's credentials, roles or name
+     */
+    public void invalidateUser(String username) {
+        cache.asMap().values().removeIf(entry -> entry.principal().getUsername().equals(username));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.abovesky.calendar.service;
 
+import com.abovesky.calendar.dto.UserDto;
 import com.abovesky.calendar.entity.User;
 import com.abovesky.calendar.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 import java.util.List;
@@ -15,9 +22,11 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final TokenAuthenticationCache tokenAuthenticationCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -35,24 +44,76 @@ public class UserService implements UserDetailsService {
         );
     }
 
-    public User findById(Long id) {
-        return userRepository.findById(id)
+    /**
+     * Store a password hash re-encoded at the current strength; called on a successful login whose stored hash is
+     * weaker than the configured BCrypt strength
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        evictUser(user);
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+
+    /**
+     * Id of the authenticated user, read from the token principal without a lookup
+     */
+    public Long currentUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.id();
+        }
+        return findByUsername(authentication.getName()).getId();
+    }
+
+    /**
+     * Cached read-only view of a user. Never a starting point for a write: writes load the managed entity from the
+     * repository, so a stale cached view cannot overwrite newer columns
+     */
+    @Cacheable(value = "users", key = "'profile:id:' + #id", sync = true)
+    public UserDto findById(Long id) {
+        return userRepository.findAsDtoById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
 
-    public User findByUsername(String username) {
-        return userRepository.findByUsername(username)
+    @Cacheable(value = "users", key = "'profile:username:' + #username", sync = true)
+    public UserDto findByUsername(String username) {
+        return userRepository.findAsDtoByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found with username: " + username));
     }
 
-    public User updateUser(Long id, User userDetails) {
-        User user = findById(id);
+    @Transactional
+    public UserDto updateUser(Long id, User userDetails) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        // Evict under the old username too, it may change below
+        evictUser(user);
         if (userDetails.getEmail() != null) {
             user.setEmail(userDetails.getEmail());
         }
         if (userDetails.getUsername() != null) {
             user.setUsername(userDetails.getUsername());
         }
-        return userRepository.save(user);
+        User updated = userRepository.save(user);
+        evictUser(updated);
+        return userRepository.findAsDtoById(updated.getId()).orElseThrow();
+    }
+
+    /**
+     * Evict a user from the cache and drop their cached bearer tokens; must be called by every code path that
+     * saves a user
+     */
+    public void evictUser(User user) {
+        Cache cache = cacheManager.getCache("users");
+        if (cache != null) {
+            cache.evict("profile:id:" + user.getId());
+            cache.evict("profile:username:" + user.getUsername());
+        }
+        tokenAuthenticationCache.invalidateUser(user.getUsername());
     }
 }
@@ -0,0 +1,21 @@
+package com.abovesky.calendar.service;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * A bearer token whose signature has been checked, parsed once and reused for every check of the request
+ *
+ * @param claims full claim set, for callers needing more than the subject and expiry
+ */
+public record VerifiedToken(
+        String subject,
+        Instant expiresAt,
+        Claims claims
+) {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,24 @@
+-- Migration: Keyset pagination indexes
+-- Description: Indexes backing the cursor-paginated listings (see KeysetPaging), one per sort on (column, id)
+-- Author: System
+-- Date: 2026-10-16
+
+-- Keyset positions need a value in every sort column
+UPDATE tasks SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+UPDATE photos SET uploaded_at = CURRENT_TIMESTAMP WHERE uploaded_at IS NULL;
+UPDATE lists SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+
+-- Photos without a capture date sit on the timeline at their upload time
+UPDATE photos SET photo_date = uploaded_at WHERE photo_date IS NULL;
+ALTER TABLE photos ALTER COLUMN photo_date SET NOT NULL;
+
+CREATE INDEX idx_tasks_created_at_id ON tasks(created_at, id);
+CREATE INDEX idx_tasks_title_id ON tasks(title, id);
+CREATE INDEX idx_photos_photo_date_id ON photos(photo_date, id);
+CREATE INDEX idx_photos_uploaded_at_id ON photos(uploaded_at, id);
+CREATE INDEX idx_rewards_points_cost_id ON rewards(points_cost, id);
+CREATE INDEX idx_rewards_name_id ON rewards(name, id);
+
+-- Listings show unarchived lists only
+CREATE INDEX idx_lists_archived_created_at_id ON lists(is_archived, created_at, id);
+CREATE INDEX idx_lists_archived_name_id ON lists(is_archived, name, id);
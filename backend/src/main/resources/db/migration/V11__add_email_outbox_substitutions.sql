@@ -0,0 +1,7 @@
+-- Migration: Email outbox substitutions
+-- Description: Per-recipient values substituted into a shared body at delivery, so a bulk email is sent in batches
+-- Author: System
+-- Date: 2026-10-17
+
+-- JSON object of placeholder -> HTML-escaped value; NULL when the body is complete
+ALTER TABLE email_outbox ADD COLUMN substitutions TEXT;
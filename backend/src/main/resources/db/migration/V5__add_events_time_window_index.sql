@@ -0,0 +1,10 @@
+-- Migration: Composite index for time-window event queries
+-- Description: Supports calendar range queries (user_id = ? AND start_date < ? AND end_date > ?)
+-- Author: System
+-- Date: 2026-10-16
+
+-- Composite index covering the per-user window lookup
+CREATE INDEX idx_events_user_start_end ON events(user_id, start_date, end_date);
+
+-- The single-column index is a prefix of the composite one and no longer needed
+DROP INDEX IF EXISTS idx_events_user_id;
@@ -0,0 +1,13 @@
+-- Migration: Persistent state for background schedulers
+-- Description: Stores the reminder scheduler high-water mark so reminders survive restarts
+-- Author: System
+-- Date: 2026-10-16
+
+CREATE TABLE scheduler_state (
+    name VARCHAR(100) PRIMARY KEY,
+    high_water_mark TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Reminder horizon loading scans events by start date across all users
+CREATE INDEX idx_events_start_date ON events(start_date);
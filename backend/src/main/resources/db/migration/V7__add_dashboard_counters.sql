@@ -0,0 +1,21 @@
+-- Migration: Materialized dashboard counters
+-- Description: Counters maintained by the service mutations so dashboard metrics do not scan entity tables
+-- Author: System
+-- Date: 2026-10-16
+
+-- scope is 'family' (owner_id 0) or 'user' (owner_id = users.id)
+CREATE TABLE dashboard_counters (
+    scope VARCHAR(20) NOT NULL,
+    owner_id BIGINT NOT NULL,
+    name VARCHAR(50) NOT NULL,
+    counter_value BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (scope, owner_id, name)
+);
+
+-- Reconciliation counts tasks per user and status, and photos per uploader
+CREATE INDEX idx_tasks_assigned_user_status ON tasks(assigned_user_id, status);
+CREATE INDEX idx_photos_uploaded_by ON photos(uploaded_by);
+
+-- Covered by the leading column of idx_tasks_assigned_user_status
+DROP INDEX IF EXISTS idx_tasks_assigned_user_id;
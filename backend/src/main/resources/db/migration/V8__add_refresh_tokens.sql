@@ -0,0 +1,20 @@
+-- Migration: Refresh tokens
+-- Description: Hashed, rotating refresh tokens issued alongside short-lived access tokens
+-- Author: System
+-- Date: 2026-10-16
+
+-- Every rotation of one login shares family_id; presenting a token that was already rotated revokes the family
+CREATE TABLE refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    user_id BIGINT NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    access_token_id VARCHAR(36),
+    expires_at TIMESTAMP NOT NULL,
+    used_at TIMESTAMP,
+    revoked_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
@@ -0,0 +1,24 @@
+-- Migration: Email outbox
+-- Description: Outgoing emails written in the transaction that triggers them and delivered by a background dispatcher
+-- Author: System
+-- Date: 2026-10-16
+
+-- status is pending until delivered (sent) or out of attempts (failed); next_attempt_at also serves as the claim
+-- lease of a dispatcher working on the row
+CREATE TABLE email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    idempotency_key VARCHAR(64) NOT NULL UNIQUE,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    html_body TEXT NOT NULL,
+    category VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox(status, next_attempt_at);
+CREATE INDEX idx_email_outbox_created_at ON email_outbox(created_at);
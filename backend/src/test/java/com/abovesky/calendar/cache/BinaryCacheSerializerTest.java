@@ -0,0 +1,75 @@
+package com.abovesky.calendar.cache;
+
+import com.abovesky.calendar.config.CacheConfig;
+import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.dto.TaskDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryCacheSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(
+            CacheConfig.cacheObjectMapper());
+    private final BinaryCacheSerializer serializer =
+            new BinaryCacheSerializer(List.of(new EventDtoCodec(), new TaskDtoCodec()), json, 1024);
+
+    @Test
+    void roundTripsSingleDtosIncludingNullFields() {
+        EventDto event = event(1);
+        event.setDescription(null);
+        event.setIsAllDay(null);
+        TaskDto task = new TaskDto(7L, "Dishes", null, LocalDateTime.of(2026, 3, 1, 18, 0), 3L, "HIGH",
+                "PENDING", "chores", null, 10, "[]", -1, "🍽", null, 2L, LocalDateTime.now(), null);
+
+        assertThat(serializer.deserialize(serializer.serialize(event))).isEqualTo(event);
+        assertThat(serializer.deserialize(serializer.serialize(task))).isEqualTo(task);
+    }
+
+    @Test
+    void compressesLargeListsAndRoundTripsThem() {
+        List<EventDto> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            events.add(event(i));
+        }
+
+        byte[] bytes = serializer.serialize(events);
+
+        assertThat(bytes.length).isLessThan(json.serialize(events).length / 4);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(events);
+    }
+
+    @Test
+    void fallsBackToJsonForTypesWithoutCodecAndForOldEntries() {
+        List<String> empty = new ArrayList<>();
+        List<String> strings = new ArrayList<>(List.of("a", "b"));
+
+        assertThat(serializer.deserialize(serializer.serialize("plain"))).isEqualTo("plain");
+        assertThat(serializer.deserialize(serializer.serialize(empty))).isEqualTo(empty);
+        assertThat(serializer.deserialize(json.serialize(strings))).isEqualTo(strings);
+    }
+
+    @Test
+    void treatsValuesFromNewerCodecVersionsAsMisses() {
+        BinaryCacheSerializer newer = new BinaryCacheSerializer(List.of(new EventDtoCodec() {
+            @Override
+            public int version() {
+                return 2;
+            }
+        }), json, 1024);
+
+        assertThat(serializer.deserialize(newer.serialize(event(1)))).isNull();
+    }
+
+    private static EventDto event(int i) {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0).plusHours(i);
+        return new EventDto((long) i, "Event " + i, "Weekly sync with the family", start, start.plusHours(1),
+                42L, "family", "#3366FF", false, i % 3 == 0 ? "FREQ=WEEKLY;BYDAY=MO" : null, "[1,2,3]",
+                "[15,60]", "📅", start.minusDays(3), start.minusDays(1).withNano(123_456_789));
+    }
+}
@@ -0,0 +1,123 @@
+package com.abovesky.calendar.cache;
+
+import com.abovesky.calendar.config.CacheConfig;
+import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.dto.TaskDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary cache serializer with the JSON one used before, on lists shaped like a user's events and tasks.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.abovesky.calendar.cache.CacheSerializerBenchmark}; encoded sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private GenericJackson2JsonRedisSerializer json;
+    private BinaryCacheSerializer binary;
+    private List<EventDto> events;
+    private List<TaskDto> tasks;
+    private byte[] eventsJson;
+    private byte[] eventsBinary;
+    private byte[] tasksJson;
+    private byte[] tasksBinary;
+
+    @Setup
+    public void setUp() {
+        json = new GenericJackson2JsonRedisSerializer(CacheConfig.cacheObjectMapper());
+        binary = new BinaryCacheSerializer(List.of(new EventDtoCodec(), new TaskDtoCodec()), json, 1024);
+
+        events = new ArrayList<>(size);
+        tasks = new ArrayList<>(size);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 5, 8, 0);
+        for (int i = 0; i < size; i++) {
+            LocalDateTime start = base.plusHours(i * 5L);
+            events.add(new EventDto((long) i, "Swimming lesson " + i, "Bring towel and goggles", start,
+                    start.plusMinutes(45), 17L, "sports", "#4CAF50", false,
+                    i % 4 == 0 ? "FREQ=WEEKLY;BYDAY=TU,TH" : null, "[17,18]", "[30,1440]", "🏊",
+                    start.minusDays(10), start.minusDays(2)));
+            tasks.add(new TaskDto((long) i, "Feed the cat", null, start, 18L, "MEDIUM", "PENDING", "pets",
+                    "FREQ=DAILY", 5, "[{\"title\":\"Refill water\",\"done\":false}]", i, "🐱", null, 17L,
+                    start.minusDays(10), start.minusDays(2)));
+        }
+        eventsJson = json.serialize(events);
+        eventsBinary = binary.serialize(events);
+        tasksJson = json.serialize(tasks);
+        tasksBinary = binary.serialize(tasks);
+        System.out.printf("%nsize=%d events json=%dB binary=%dB, tasks json=%dB binary=%dB%n",
+                size, eventsJson.length, eventsBinary.length, tasksJson.length, tasksBinary.length);
+    }
+
+    @Benchmark
+    public byte[] serializeEventsJson() {
+        return json.serialize(events);
+    }
+
+    @Benchmark
+    public byte[] serializeEventsBinary() {
+        return binary.serialize(events);
+    }
+
+    @Benchmark
+    public Object deserializeEventsJson() {
+        return json.deserialize(eventsJson);
+    }
+
+    @Benchmark
+    public Object deserializeEventsBinary() {
+        return binary.deserialize(eventsBinary);
+    }
+
+    @Benchmark
+    public byte[] serializeTasksJson() {
+        return json.serialize(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeTasksBinary() {
+        return binary.serialize(tasks);
+    }
+
+    @Benchmark
+    public Object deserializeTasksJson() {
+        return json.deserialize(tasksJson);
+    }
+
+    @Benchmark
+    public Object deserializeTasksBinary() {
+        return binary.deserialize(tasksBinary);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
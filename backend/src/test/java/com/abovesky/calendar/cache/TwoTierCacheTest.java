@@ -0,0 +1,170 @@
+package com.abovesky.calendar.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheTest {
+
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("events", false);
+
+    @Test
+    void coalescesConcurrentLoadsOfTheSameKey() throws Exception {
+        TwoTierCache cache = cache(Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> cache.get("user:1", () -> {
+                    loads.incrementAndGet();
+                    release.await();
+                    return "events";
+                })));
+            }
+            while (cache.getCoalescedWaits() < 7) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("events");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(remote.get("user:1").get()).isEqualTo("events");
+    }
+
+    @Test
+    void callersGetTheirOwnCopyOfCachedValues() {
+        TwoTierCache cache = cache(Duration.ofMinutes(10));
+
+        List<String> loaded = cache.get("user:1", () -> new ArrayList<>(List.of("swimming")));
+        loaded.add("changed by the loading caller");
+        List<String> read = cache.get("user:1", ArrayList::new);
+        read.clear();
+
+        List<String> again = cache.get("user:1", ArrayList::new);
+        assertThat(again).containsExactly("swimming");
+        assertThat(cache.get("user:1").get()).isEqualTo(List.of("swimming"));
+    }
+
+    @Test
+    void refreshesEntriesAheadOfExpiryOnTheCallersThread() throws Exception {
+        TwoTierCache cache = cache(Duration.ofMillis(200));
+        AtomicInteger loads = new AtomicInteger();
+        List<Thread> loaders = new ArrayList<>();
+
+        assertThat(cache.get("user:1", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        Thread.sleep(250);
+        assertThat(cache.get("user:1", () -> {
+            loaders.add(Thread.currentThread());
+            return "v" + loads.incrementAndGet();
+        })).isEqualTo("v2");
+
+        assertThat(cache.getEarlyRefreshes()).isEqualTo(1);
+        assertThat(loaders).containsExactly(Thread.currentThread());
+        assertThat(cache.get("user:1")).isNotNull().extracting(w -> w.get()).isEqualTo("v2");
+    }
+
+    @Test
+    void failedRefreshesKeepServingTheCurrentValue() throws Exception {
+        TwoTierCache cache = cache(Duration.ofMillis(200));
+        cache.get("user:1", () -> "v1");
+        Thread.sleep(250);
+
+        String value = cache.get("user:1", () -> {
+            throw new IllegalStateException("database down");
+        });
+
+        assertThat(value).isEqualTo("v1");
+        assertThat(cache.getEarlyRefreshes()).isEqualTo(1);
+    }
+
+    @Test
+    void loadsWhenRedisCannotBeRead() {
+        Cache failing = mock(Cache.class);
+        when(failing.get("user:1")).thenThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+        TwoTierCache cache = cache(failing, Duration.ofMinutes(10));
+
+        assertThat(cache.get("user:1", () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.getRemoteErrors()).isEqualTo(1);
+    }
+
+    @Test
+    void writesDropTheLocalCopyAndNotifyOtherNodesWhenRedisIsDown() {
+        Cache failing = mock(Cache.class);
+        RedisConnectionFailureException down = new RedisConnectionFailureException("Unable to connect to Redis");
+        when(failing.get("user:1")).thenThrow(down);
+        doThrow(down).when(failing).evict("user:1");
+        doThrow(down).when(failing).clear();
+        CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+        TwoTierCache cache = cache(failing, bus, Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("user:1", () -> "v" + loads.incrementAndGet());
+
+        cache.evict("user:1");
+
+        assertThat(cache.get("user:1", () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        verify(bus).publishEvict("events", "user:1");
+
+        cache.clear();
+
+        assertThat(cache.get("user:1", () -> "v" + loads.incrementAndGet())).isEqualTo("v3");
+        verify(bus).publishClear("events");
+        assertThat(cache.getRemoteErrors()).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotRefreshValuesLoadedByAnotherNode() throws Exception {
+        TwoTierCache cache = cache(Duration.ofMillis(1));
+        remote.put("user:1", "remote");
+        Thread.sleep(5);
+
+        assertThat(cache.get("user:1", () -> "local")).isEqualTo("remote");
+        assertThat(cache.get("user:1", () -> "local")).isEqualTo("remote");
+        assertThat(cache.getEarlyRefreshes()).isZero();
+    }
+
+    private TwoTierCache cache(Duration remoteTtl) {
+        return cache(remote, remoteTtl);
+    }
+
+    private static TwoTierCache cache(Cache remote, Duration remoteTtl) {
+        return cache(remote, mock(CacheInvalidationBus.class), remoteTtl);
+    }
+
+    private static TwoTierCache cache(Cache remote, CacheInvalidationBus invalidationBus, Duration remoteTtl) {
+        return new TwoTierCache("events",
+                Caffeine.newBuilder().build(),
+                remote,
+                SerializationPair.fromSerializer(RedisSerializer.json()),
+                invalidationBus,
+                Caffeine.newBuilder().build(),
+                remoteTtl,
+                1.0);
+    }
+}
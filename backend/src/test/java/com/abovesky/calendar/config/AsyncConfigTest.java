@@ -0,0 +1,92 @@
+package com.abovesky.calendar.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncConfigTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+        MDC.clear();
+    }
+
+    @Test
+    void runsTasksWithTheSubmittersMdcAndReportsMetrics() throws Exception {
+        executor = AsyncConfig.boundedExecutor("test", 1, 1, 10, new ThreadPoolExecutor.AbortPolicy(), 1, false,
+                registry);
+        AtomicReference<String> seen = new AtomicReference<>();
+        AtomicReference<String> thread = new AtomicReference<>();
+
+        MDC.put("requestId", "abc");
+        executor.submit(() -> {
+            seen.set(MDC.get("requestId"));
+            thread.set(Thread.currentThread().getName());
+        }).get(5, TimeUnit.SECONDS);
+        assertThat(seen.get()).isEqualTo("abc");
+
+        MDC.clear();
+        executor.submit(() -> seen.set(MDC.get("requestId"))).get(5, TimeUnit.SECONDS);
+
+        assertThat(seen.get()).isNull();
+        assertThat(thread.get()).startsWith("test-");
+        assertThat(registry.get("executor.completed").tag("name", "test").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void runsOnTheCallerOnceThePoolAndQueueAreFull() throws Exception {
+        executor = AsyncConfig.boundedExecutor("test", 1, 1, 1, new ThreadPoolExecutor.CallerRunsPolicy(), 1,
+                false, registry);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(() -> await(release));
+
+        AtomicReference<String> thread = new AtomicReference<>();
+        executor.execute(() -> thread.set(Thread.currentThread().getName()));
+
+        assertThat(thread.get()).isEqualTo(Thread.currentThread().getName());
+        assertThat(registry.get("executor.rejected").tag("name", "test").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void drainsQueuedTasksOnShutdown() throws Exception {
+        executor = AsyncConfig.boundedExecutor("test", 1, 1, 10, new ThreadPoolExecutor.AbortPolicy(), 5, false,
+                registry);
+        CompletableFuture<Void> queued = new CompletableFuture<>();
+        executor.execute(() -> await(release));
+        executor.execute(() -> queued.complete(null));
+
+        CompletableFuture.runAsync(release::countDown);
+        executor.shutdown();
+
+        assertThat(queued).isCompleted();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.abovesky.calendar.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The advisor orders {@link CacheConfig} sets, applied to a read that is both cached and transactional
+ */
+class CacheAdvisorOrderTest {
+
+    @Test
+    void cacheHitsDoNotOpenATransaction() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Advised.class)) {
+            Reads reads = context.getBean(Reads.class);
+            PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+
+            assertThat(reads.count()).isEqualTo(1);
+            assertThat(reads.count()).isEqualTo(1);
+            assertThat(reads.count()).isEqualTo(1);
+
+            verify(transactionManager, times(1)).getTransaction(any());
+        }
+    }
+
+    @Configuration
+    @EnableCaching(order = CacheConfig.CACHING_ORDER)
+    @EnableTransactionManagement(proxyTargetClass = true, order = CacheConfig.TRANSACTION_ORDER)
+    static class Advised {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("reads");
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+            when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+            return transactionManager;
+        }
+
+        @Bean
+        Reads reads() {
+            return new Reads();
+        }
+    }
+
+    static class Reads {
+
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Transactional(readOnly = true)
+        @Cacheable(value = "reads", key = "'all'", sync = true)
+        public int count() {
+            return loads.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.abovesky.calendar.config;
+
+import com.abovesky.calendar.dto.TaskDto;
+import com.abovesky.calendar.entity.Task;
+import com.abovesky.calendar.repository.TaskRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests completed per second when each request runs the task list query
+ * ({@link TaskRepository#findAsDtoByAssignedUserId}) in a read-only transaction, through a Hikari pool sized like
+ * the virtual-threads profile's, handled the way Tomcat does by default (a pool of 200 platform threads) against a
+ * virtual thread per request. Each invocation fires a burst of concurrent requests and waits for all of them;
+ * peak live threads, used memory and failed requests are printed after each mode, and {@code -prof gc} adds
+ * allocation per request.
+ * The database is in-memory H2, so a query costs CPU rather than network time: this shows how each mode behaves
+ * when the connection pool, not the request threads, is the limit, not how much I/O waiting virtual threads hide.
+ * Needs Java 21 for the virtual mode. Run with {@code mvn -Pjava21 test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.abovesky.calendar.config.VirtualThreadBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(VirtualThreadBenchmark.REQUESTS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class VirtualThreadBenchmark {
+
+    static final int REQUESTS = 2000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int USERS = 20;
+    private static final int TASKS_PER_USER = 25;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    /**
+     * Mirrors {@code spring.datasource.hikari.maximum-pool-size} and {@code connection-timeout} in the
+     * virtual-threads profile
+     */
+    @Param({"30"})
+    public int connections;
+
+    @Param({"5000"})
+    public long connectionTimeoutMillis;
+
+    private Executor executor;
+    private ThreadPoolTaskExecutor platformPool;
+    private HikariDataSource dataSource;
+    private SessionFactory sessionFactory;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setJdbcUrl("jdbc:h2:mem:virtual-threads;DB_CLOSE_DELAY=-1");
+        hikari.setUsername("sa");
+        hikari.setMaximumPoolSize(connections);
+        hikari.setConnectionTimeout(connectionTimeoutMillis);
+        dataSource = new HikariDataSource(hikari);
+
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(Task.class)
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        configuration.getProperties().put(AvailableSettings.DATASOURCE, dataSource);
+        sessionFactory = configuration.buildSessionFactory();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < USERS * TASKS_PER_USER; i++) {
+                Task task = new Task();
+                task.setTitle("Feed the cat " + i);
+                task.setDescription("Half a pouch, and refill the water");
+                task.setDueDate(LocalDateTime.of(2026, 1, 5, 18, 0).plusDays(i));
+                task.setAssignedUserId((long) (i % USERS));
+                task.setCategory("pets");
+                task.setCreatedBy(17L);
+                session.persist(task);
+            }
+        });
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        if ("virtual".equals(mode)) {
+            executor = new VirtualThreadTaskExecutor("request-");
+        } else {
+            platformPool = new ThreadPoolTaskExecutor();
+            platformPool.setThreadNamePrefix("request-");
+            platformPool.setCorePoolSize(PLATFORM_THREADS);
+            platformPool.setMaxPoolSize(PLATFORM_THREADS);
+            platformPool.setQueueCapacity(Integer.MAX_VALUE);
+            platformPool.initialize();
+            executor = platformPool;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.out.printf("%n%s: peak platform threads %d, heap used %d MB, non-heap used %d MB, failed %d%n", mode,
+                threads.getPeakThreadCount(),
+                memory.getHeapMemoryUsage().getUsed() >> 20,
+                memory.getNonHeapMemoryUsage().getUsed() >> 20,
+                failures.get());
+        if (platformPool != null) {
+            platformPool.shutdown();
+        }
+        sessionFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void repositoryRequests() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long userId = i % USERS;
+            executor.execute(() -> {
+                try {
+                    tasksOf(userId);
+                } catch (RuntimeException e) {
+                    // Connection timeouts once the pool is saturated; counted, the request still completes
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    /**
+     * What {@code TaskService} does for the list endpoint: a read-only transaction around the DTO query
+     */
+    private List<TaskDto> tasksOf(long userId) {
+        return sessionFactory.fromTransaction(session -> {
+            session.setDefaultReadOnly(true);
+            return session.createQuery("SELECT " + TaskRepository.DTO + " FROM Task t "
+                            + "WHERE t.assignedUserId = :userId", TaskDto.class)
+                    .setParameter("userId", userId)
+                    .getResultList();
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VirtualThreadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,54 @@
+package com.abovesky.calendar.counter;
+
+import com.abovesky.calendar.entity.Task;
+import com.abovesky.calendar.repository.DashboardCounterRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class DashboardCountersTest {
+
+    private final DashboardCounterRepository counterRepository = mock(DashboardCounterRepository.class);
+    private final DashboardCounters counters = new DashboardCounters(counterRepository,
+            null, null, null, null, null, null, null, null);
+
+    @Test
+    void completingATaskMovesItBetweenStatusCountersOnly() {
+        Task task = new Task();
+        task.setAssignedUserId(7L);
+        task.setStatus("pending");
+        List<CounterKey> before = DashboardCounters.keysOf(task);
+        task.setStatus("completed");
+
+        counters.changed(before, DashboardCounters.keysOf(task));
+
+        verify(counterRepository).increment(eq("family"), eq(0L), eq("pendingTasks"), eq(-1L), any(LocalDateTime.class));
+        verify(counterRepository).increment(eq("family"), eq(0L), eq("completedTasks"), eq(1L), any(LocalDateTime.class));
+        verify(counterRepository).increment(eq("user"), eq(7L), eq("pendingTasks"), eq(-1L), any(LocalDateTime.class));
+        verify(counterRepository).increment(eq("user"), eq(7L), eq("completedTasks"), eq(1L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(counterRepository);
+    }
+
+    @Test
+    void reassigningATaskMovesTheUserCounters() {
+        Task task = new Task();
+        task.setAssignedUserId(7L);
+        List<CounterKey> before = DashboardCounters.keysOf(task);
+        task.setAssignedUserId(8L);
+
+        counters.changed(before, DashboardCounters.keysOf(task));
+
+        verify(counterRepository).increment(eq("user"), eq(7L), eq("assignedTasks"), eq(-1L), any(LocalDateTime.class));
+        verify(counterRepository).increment(eq("user"), eq(7L), eq("pendingTasks"), eq(-1L), any(LocalDateTime.class));
+        verify(counterRepository).increment(eq("user"), eq(8L), eq("assignedTasks"), eq(1L), any(LocalDateTime.class));
+        verify(counterRepository).increment(eq("user"), eq(8L), eq("pendingTasks"), eq(1L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(counterRepository);
+    }
+}
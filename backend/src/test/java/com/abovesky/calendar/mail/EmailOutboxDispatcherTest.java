@@ -0,0 +1,128 @@
+package com.abovesky.calendar.mail;
+
+import com.abovesky.calendar.config.DaemonThreads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxDispatcherTest {
+
+    private final EmailOutbox outbox = mock(EmailOutbox.class);
+    private final FakeMailTransport transport = new FakeMailTransport();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Executor direct = Runnable::run;
+    private final EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(outbox, transport, direct, direct,
+            registry);
+
+    EmailOutboxDispatcherTest() {
+        when(outbox.lease()).thenReturn(Duration.ofMinutes(2));
+    }
+
+    @Test
+    void retriesFailedEmailsAndCountsOutcomes() {
+        setBatchSize(2);
+        when(outbox.claim(2))
+                .thenReturn(List.of(email(1, EmailOutbox.TRANSACTIONAL), email(2, EmailOutbox.NOTIFICATION)))
+                .thenReturn(List.of());
+        when(outbox.markFailed(anyMap())).thenReturn(0);
+        transport.failNext(1);
+
+        assertThat(dispatcher.drain()).isEqualTo(1);
+
+        assertThat(transport.getSent()).hasSize(1);
+        assertThat(transport.getBatches()).isEqualTo(2); // notifications and the rest are sent apart
+        verify(outbox).markFailed(anyMap());
+        assertThat(registry.get("mail.outbox.sent").counter().count()).isEqualTo(1);
+        assertThat(registry.get("mail.outbox.failures").counter().count()).isEqualTo(1);
+        assertThat(registry.get("mail.outbox.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsDrainingWhileBatchesAreFull() {
+        setBatchSize(1);
+        when(outbox.claim(1))
+                .thenReturn(List.of(email(1, EmailOutbox.MARKETING)))
+                .thenReturn(List.of(email(2, EmailOutbox.MARKETING)))
+                .thenReturn(List.of());
+
+        assertThat(dispatcher.drain()).isEqualTo(2);
+
+        verify(outbox).markSent(List.of(1L));
+        verify(outbox).markSent(List.of(2L));
+        verify(outbox, never()).markFailed(anyMap());
+    }
+
+    @Test
+    void treatsATransportExceptionAsAFailureOfTheWholeBatch() {
+        EmailOutboxDispatcher failing = new EmailOutboxDispatcher(outbox, emails -> {
+            throw new IllegalStateException("connection refused");
+        }, direct, direct, registry);
+        setBatchSize(failing, 5);
+        when(outbox.claim(5)).thenReturn(List.of(email(1, EmailOutbox.TRANSACTIONAL),
+                email(2, EmailOutbox.TRANSACTIONAL)));
+
+        assertThat(failing.drain()).isZero();
+
+        verify(outbox).markFailed(Map.of(1L, "java.lang.IllegalStateException: connection refused",
+                2L, "java.lang.IllegalStateException: connection refused"));
+    }
+
+    @Test
+    void givesUpOnABatchBeforeItsLeaseRunsOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        Executor slow = task -> DaemonThreads.start("slow-send", task);
+        EmailOutboxDispatcher hanging = new EmailOutboxDispatcher(outbox, emails -> {
+            await(release);
+            return Map.of();
+        }, slow, slow, registry);
+        setBatchSize(hanging, 5);
+        when(outbox.lease()).thenReturn(Duration.ofMillis(500));
+        when(outbox.claim(5)).thenReturn(List.of(email(1, EmailOutbox.TRANSACTIONAL)));
+        try {
+            long started = System.nanoTime();
+
+            assertThat(hanging.drain()).isZero();
+
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(500));
+            verify(outbox).markFailed(anyMap());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void setBatchSize(int batchSize) {
+        setBatchSize(dispatcher, batchSize);
+    }
+
+    private static void setBatchSize(EmailOutboxDispatcher target, int batchSize) {
+        ReflectionTestUtils.setField(target, "batchSize", batchSize);
+    }
+
+    private static OutgoingEmail email(long id, String category) {
+        return new OutgoingEmail(id, "key-" + id, category, "user" + id + "@example.com", "Subject", "<p>Hi</p>",
+                Map.of(), LocalDateTime.now().minusSeconds(5));
+    }
+}
@@ -0,0 +1,108 @@
+package com.abovesky.calendar.mail;
+
+import com.abovesky.calendar.entity.OutboxEmail;
+import com.abovesky.calendar.repository.OutboxEmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxTest {
+
+    private final OutboxEmailRepository repository = mock(OutboxEmailRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final EmailOutbox outbox = new EmailOutbox(repository, transactionManager);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outbox, "backoffSeconds", 30L);
+        ReflectionTestUtils.setField(outbox, "maxBackoffMinutes", 60L);
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        Duration base = Duration.ofSeconds(30);
+        Duration max = Duration.ofMinutes(10);
+
+        assertThat(EmailOutbox.backoff(1, base, max)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(EmailOutbox.backoff(2, base, max)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(EmailOutbox.backoff(5, base, max)).isEqualTo(Duration.ofMinutes(8));
+        assertThat(EmailOutbox.backoff(6, base, max)).isEqualTo(max);
+        assertThat(EmailOutbox.backoff(100, base, max)).isEqualTo(max);
+    }
+
+    @Test
+    void skipsAnEmailWhoseKeyWasAlreadyQueued() {
+        String key = EmailOutbox.key("welcome", "a@example.com");
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(repository.existsByIdempotencyKey(key)).thenReturn(true);
+
+        assertThat(outbox.enqueue(key, EmailOutbox.TRANSACTIONAL, "a@example.com", "Hi", "<p>Hi</p>")).isFalse();
+
+        assertThat(key).hasSize(64).isEqualTo(EmailOutbox.key("welcome", "a@example.com"));
+    }
+
+    @Test
+    void rethrowsConstraintViolationsThatAreNotDuplicates() {
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("recipient is null"));
+
+        assertThatThrownBy(() -> outbox.enqueue("key", EmailOutbox.TRANSACTIONAL, null, "Hi", "<p>Hi</p>"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void queuesBestEffortEmailsInATransactionOfTheirOwn() {
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+
+        assertThat(outbox.enqueueSeparately("key", EmailOutbox.TRANSACTIONAL, "a@example.com", "Hi", "<p>Hi</p>",
+                Map.of())).isTrue();
+
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getPropagationBehavior())
+                .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        verify(repository).saveAndFlush(any());
+    }
+
+    @Test
+    void schedulesARetryThenGivesUpAfterTheLastAttempt() {
+        OutboxEmail retried = pending(1L, 0);
+        OutboxEmail exhausted = pending(2L, 2);
+        when(repository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(retried, exhausted));
+        LocalDateTime before = LocalDateTime.now();
+
+        int givenUp = outbox.markFailed(Map.of(1L, "timeout", 2L, "x".repeat(600)));
+
+        assertThat(givenUp).isEqualTo(1);
+        assertThat(retried.getStatus()).isEqualTo(OutboxEmail.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).isEqualTo("timeout");
+        assertThat(retried.getNextAttemptAt()).isBetween(before.plusSeconds(30), before.plusSeconds(37));
+        assertThat(exhausted.getStatus()).isEqualTo(OutboxEmail.FAILED);
+        assertThat(exhausted.getLastError()).hasSize(500);
+    }
+
+    private static OutboxEmail pending(Long id, int attempts) {
+        OutboxEmail email = new OutboxEmail();
+        email.setId(id);
+        email.setAttempts(attempts);
+        email.setNextAttemptAt(LocalDateTime.now());
+        return email;
+    }
+}
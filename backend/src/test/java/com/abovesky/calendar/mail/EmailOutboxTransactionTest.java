@@ -0,0 +1,77 @@
+package com.abovesky.calendar.mail;
+
+import com.abovesky.calendar.repository.OutboxEmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Enqueues against the real unique key, in and out of a caller's transaction that is then committed
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Import(EmailOutbox.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxTransactionTest {
+
+    @Autowired
+    private EmailOutbox outbox;
+
+    @Autowired
+    private OutboxEmailRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void duplicatesOutsideATransactionAreReportedAsAlreadyQueued() {
+        assertThat(enqueue("welcome")).isTrue();
+        assertThat(enqueue("welcome")).isFalse();
+
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void aFailedBestEffortEmailLeavesTheCallersTransactionCommittable() {
+        enqueue("welcome");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outbox.enqueue("reset", EmailOutbox.TRANSACTIONAL, "a@example.com", "Reset", "<p>Reset</p>");
+            boolean queued = outbox.enqueueSeparately("welcome", EmailOutbox.TRANSACTIONAL, "a@example.com",
+                    "Welcome", "<p>Hi</p>", Map.of());
+            assertThat(queued).isFalse();
+            assertThat(status.isRollbackOnly()).isFalse();
+        });
+
+        assertThat(repository.existsByIdempotencyKey("reset")).isTrue();
+    }
+
+    @Test
+    void aDuplicateInTheCallersTransactionFailsIt() {
+        enqueue("welcome");
+
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outbox.enqueue("welcome", EmailOutbox.TRANSACTIONAL, "a@example.com", "Hi", "<p>Hi</p>")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private boolean enqueue(String key) {
+        return outbox.enqueue(key, EmailOutbox.TRANSACTIONAL, "a@example.com", "Welcome", "<p>Hi</p>");
+    }
+}
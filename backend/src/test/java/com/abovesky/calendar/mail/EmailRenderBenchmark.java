@@ -0,0 +1,75 @@
+package com.abovesky.calendar.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering one email: the Thymeleaf engine (with its parsed template cache, as configured in production)
+ * against the compiled templates of {@link EmailRenderer}. {@code welcome-email} resolves localized messages,
+ * {@code otp-email} only variables. Add {@code -prof gc} for allocation per message.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.abovesky.calendar.mail.EmailRenderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailRenderBenchmark {
+
+    @Param({"otp-email", "welcome-email"})
+    private String template;
+
+    @Param({"en", "de"})
+    private String language;
+
+    private SpringTemplateEngine engine;
+    private EmailRenderer renderer;
+    private Locale locale;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        engine = EmailRendererTest.engine();
+        renderer = EmailRendererTest.renderer(engine, null, 64);
+        locale = Locale.forLanguageTag(language);
+        variables = EmailRendererTest.sampleVariables("Ana Müller");
+    }
+
+    @Benchmark
+    public String engine() {
+        Context context = new Context(locale);
+        variables.forEach(context::setVariable);
+        return engine.process(template, context);
+    }
+
+    @Benchmark
+    public String compiled() {
+        return renderer.render(template, locale, variables);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
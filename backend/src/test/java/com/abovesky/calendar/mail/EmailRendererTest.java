@@ -0,0 +1,248 @@
+package com.abovesky.calendar.mail;
+
+import com.abovesky.calendar.config.LocaleConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailRendererTest {
+
+    static final List<String> TEMPLATES = List.of("otp-email", "password-reset-email", "pin-reset-email",
+            "welcome-email", "event-reminder-email", "marketing-email");
+    static final List<String> LOCALES = List.of("en", "de", "tr", "fr", "az");
+
+    private final SpringTemplateEngine engine = engine();
+
+    /**
+     * Engine set up like the application's: templates from the classpath, messages from the i18n bundles
+     */
+    static SpringTemplateEngine engine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        engine.setTemplateEngineMessageSource(new LocaleConfig().messageSource());
+        return engine;
+    }
+
+    static EmailRenderer renderer(SpringTemplateEngine engine, ExecutorService executor, int bulkChunkSize) {
+        return new EmailRenderer(engine, executor, TEMPLATES, LOCALES, "templates/", 4, bulkChunkSize);
+    }
+
+    static Map<String, Object> sampleVariables(String username) {
+        return CompiledTemplate.variables(
+                "username", username,
+                "otp", "123456",
+                "expiryMinutes", "10",
+                "expiryHours", "1",
+                "resetLink", "https://example.com/reset?token=a&b=c",
+                "eventTitle", "Dentist <Tom & Ann>",
+                "startTime", "2026-10-16 09:30",
+                "loginUrl", "https://example.com/login",
+                "content", "<p>News</p>",
+                "unsubscribeLink", "https://example.com/unsubscribe?token=x",
+                "applicationName", "Above Sky Calendar");
+    }
+
+    /**
+     * The template and locale lists the application is configured with
+     */
+    private static Properties applicationConfig() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        return yaml.getObject();
+    }
+
+    private static List<String> list(String commaSeparated) {
+        return Arrays.stream(commaSeparated.split(",")).map(String::trim).toList();
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Properties load(String resource) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        return properties;
+    }
+
+    private String process(String template, Locale locale, Map<String, Object> variables) {
+        Context context = new Context(locale);
+        variables.forEach(context::setVariable);
+        return engine.process(template, context);
+    }
+
+    @Test
+    void compiledTemplatesRenderExactlyWhatTheEngineRenders() {
+        EmailRenderer renderer = renderer(engine, null, 64);
+        Map<String, Object> variables = sampleVariables("O'Brien \"Bob\"");
+
+        for (String template : TEMPLATES) {
+            for (String language : LOCALES) {
+                Locale locale = Locale.forLanguageTag(language);
+                assertThat(renderer.isCompiled(template, locale)).as(template + " " + language).isTrue();
+                assertThat(renderer.render(template, locale, variables)).as(template + " " + language)
+                        .isEqualTo(process(template, locale, variables));
+            }
+        }
+    }
+
+    @Test
+    void everyConfiguredTemplateCompilesInEveryConfiguredLocale() {
+        Properties config = applicationConfig();
+        List<String> templates = list(config.getProperty("mail.templates.names"));
+        List<String> locales = list(config.getProperty("mail.templates.locales"));
+        EmailRenderer renderer = new EmailRenderer(engine, null, templates, locales, "templates/", 4, 64);
+
+        assertThat(templates).containsExactlyInAnyOrderElementsOf(TEMPLATES);
+        assertThat(locales).containsExactlyInAnyOrderElementsOf(LOCALES);
+        for (String template : templates) {
+            for (String language : locales) {
+                assertThat(renderer.isCompiled(template, Locale.forLanguageTag(language)))
+                        .as(template + " " + language).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void everyMessageTheTemplatesUseIsTranslatedInEveryConfiguredLocale() throws IOException {
+        Pattern message = Pattern.compile("#\\{\\s*([\\w.]+)");
+        Properties config = applicationConfig();
+        for (String language : list(config.getProperty("mail.templates.locales"))) {
+            // The default language lives in the base bundle
+            Properties bundle = load("i18n/messages" + ("en".equals(language) ? "" : "_" + language) + ".properties");
+            for (String template : list(config.getProperty("mail.templates.names"))) {
+                Matcher matcher = message.matcher(read("templates/" + template + ".html"));
+                while (matcher.find()) {
+                    assertThat(bundle).as(template + " " + language).containsKey(matcher.group(1));
+                }
+            }
+        }
+    }
+
+    @Test
+    void englishDoesNotFollowTheServersDefaultLocale() {
+        Map<String, Object> variables = sampleVariables("Ana");
+        String english = process("welcome-email", Locale.ENGLISH, variables);
+        Locale systemDefault = Locale.getDefault();
+        Locale.setDefault(Locale.GERMAN);
+        try {
+            EmailRenderer renderer = renderer(engine(), null, 64);
+
+            assertThat(renderer.render("welcome-email", Locale.ENGLISH, variables)).isEqualTo(english);
+        } finally {
+            Locale.setDefault(systemDefault);
+        }
+    }
+
+    @Test
+    void welcomeEmailIsLocalized() {
+        EmailRenderer renderer = renderer(engine, null, 64);
+        Map<String, Object> variables = sampleVariables("Ana");
+
+        assertThat(renderer.render("welcome-email", Locale.GERMAN, variables))
+                .isNotEqualTo(renderer.render("welcome-email", Locale.ENGLISH, variables));
+    }
+
+    @Test
+    void unsupportedOrMissingLocalesFallBackToEnglish() {
+        EmailRenderer renderer = renderer(engine, null, 64);
+
+        assertThat(renderer.resolveLocale("de-AT")).isEqualTo(Locale.GERMAN);
+        assertThat(renderer.resolveLocale("tr_TR")).isEqualTo(Locale.forLanguageTag("tr"));
+        assertThat(renderer.resolveLocale("es")).isEqualTo(Locale.ENGLISH);
+        assertThat(renderer.resolveLocale(null)).isEqualTo(Locale.ENGLISH);
+        Map<String, Object> variables = sampleVariables("Ana");
+        assertThat(renderer.render("welcome-email", Locale.forLanguageTag("es"), variables))
+                .isEqualTo(renderer.render("welcome-email", Locale.ENGLISH, variables));
+    }
+
+    @Test
+    void missingVariablesRenderAsNothing() {
+        EmailRenderer renderer = renderer(engine, null, 64);
+        Map<String, Object> variables = sampleVariables(null);
+
+        assertThat(renderer.render("otp-email", Locale.ENGLISH, variables))
+                .isEqualTo(process("otp-email", Locale.ENGLISH, variables));
+    }
+
+    @Test
+    void bulkRenderingKeepsRecipientOrder() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            EmailRenderer renderer = renderer(engine, executor, 8);
+            List<Map<String, Object>> variables = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                variables.add(sampleVariables("user-" + i));
+            }
+
+            List<String> rendered = renderer.renderAll("welcome-email", Locale.FRENCH, variables);
+
+            assertThat(rendered).hasSize(100);
+            for (int i = 0; i < 100; i++) {
+                assertThat(rendered.get(i)).isEqualTo(renderer.render("welcome-email", Locale.FRENCH,
+                        variables.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sharedMarketingBodiesBecomeEachRecipientsEmailOnceSubstituted() {
+        EmailRenderer renderer = renderer(engine, null, 64);
+        String link = "https://example.com/unsubscribe?token=x&list='news'";
+        Map<String, Object> shared = sampleVariables("Ana");
+        shared.put("unsubscribeLink", "-unsubscribeLink-");
+
+        for (String language : LOCALES) {
+            Locale locale = Locale.forLanguageTag(language);
+            OutgoingEmail email = new OutgoingEmail(1L, "key", EmailOutbox.MARKETING, "ana@example.com", "News",
+                    renderer.render("marketing-email", locale, shared),
+                    Map.of("-unsubscribeLink-", HtmlUtils.htmlEscape(link)), null);
+            Map<String, Object> own = sampleVariables("Ana");
+            own.put("unsubscribeLink", link);
+
+            assertThat(email.resolvedBody()).as(language).isEqualTo(renderer.render("marketing-email", locale, own));
+        }
+    }
+
+    @Test
+    void inlineTemplatesEscapeValuesUnlessRaw() {
+        CompiledTemplate template = CompiledTemplate.of("<a href=\"{{link}}\">{{link}}</a>{{{body}}}");
+
+        assertThat(template.render(CompiledTemplate.variables("link", "a?x=1&y='2'", "body", "<b>hi</b>")))
+                .isEqualTo("<a href=\"a?x=1&amp;y=&#39;2&#39;\">a?x=1&amp;y=&#39;2&#39;</a><b>hi</b>");
+        assertThat(template.slotNames()).containsExactly("link", "link", "body");
+    }
+}
@@ -0,0 +1,63 @@
+package com.abovesky.calendar.mail;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sendgrid.Request;
+import com.sendgrid.Response;
+import com.sendgrid.SendGrid;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SendGridMailTransportTest {
+
+    private static final String BODY = "<p>News</p><a href=\"-unsubscribeLink-\">Unsubscribe</a>";
+
+    private final SendGrid client = mock(SendGrid.class);
+    private final SendGridMailTransport transport = new SendGridMailTransport(client, "noreply@example.com", "Sky");
+
+    @Test
+    void sendsRecipientsOfOneBodyTogetherWithTheirOwnSubstitutions() throws Exception {
+        when(client.api(any())).thenReturn(new Response(202, "", Map.of()));
+
+        Map<Long, String> errors = transport.send(List.of(
+                email(1, BODY, Map.of("-unsubscribeLink-", "https://example.com/u?token=a")),
+                email(2, BODY, Map.of("-unsubscribeLink-", "https://example.com/u?token=b")),
+                email(3, "<p>Welcome</p>", Map.of())));
+
+        assertThat(errors).isEmpty();
+        ArgumentCaptor<Request> requests = ArgumentCaptor.forClass(Request.class);
+        verify(client, times(2)).api(requests.capture());
+        JsonNode bulk = new ObjectMapper().readTree(requests.getAllValues().get(0).getBody());
+        assertThat(bulk.at("/content/0/value").asText()).isEqualTo(BODY);
+        assertThat(bulk.get("personalizations")).hasSize(2);
+        assertThat(bulk.at("/personalizations/0/to/0/email").asText()).isEqualTo("user1@example.com");
+        assertThat(bulk.at("/personalizations/0/substitutions/-unsubscribeLink-").asText())
+                .isEqualTo("https://example.com/u?token=a");
+        assertThat(bulk.at("/personalizations/1/substitutions/-unsubscribeLink-").asText())
+                .isEqualTo("https://example.com/u?token=b");
+    }
+
+    @Test
+    void otherTransportsGetTheBodyWithSubstitutionsFilledIn() {
+        OutgoingEmail email = email(1, BODY, Map.of("-unsubscribeLink-", "https://example.com/u?token=a&amp;x=1"));
+
+        assertThat(email.resolvedBody())
+                .isEqualTo("<p>News</p><a href=\"https://example.com/u?token=a&amp;x=1\">Unsubscribe</a>");
+    }
+
+    private static OutgoingEmail email(long id, String body, Map<String, String> substitutions) {
+        return new OutgoingEmail(id, "key-" + id, EmailOutbox.MARKETING, "user" + id + "@example.com", "News",
+                body, substitutions, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,113 @@
+package com.abovesky.calendar.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetPagingTest {
+
+    private record Row(Long id, LocalDateTime createdAt, String name) {
+    }
+
+    private final KeysetPaging paging = new KeysetPaging(
+            KeysetSort.timestamp("created", "createdAt", Sort.Direction.DESC),
+            KeysetSort.text("name", "name", Sort.Direction.ASC));
+
+    @Test
+    void firstPageUsesTheDefaultSortWithIdAsTieBreaker() {
+        KeysetPaging.Request request = paging.request(null, null, null, null);
+
+        assertThat(request.position().isInitial()).isTrue();
+        assertThat(request.pageSize()).isEqualTo(KeysetPaging.DEFAULT_LIMIT);
+        assertThat(request.toSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "createdAt")
+                .and(Sort.by(Sort.Direction.DESC, "id")));
+    }
+
+    @Test
+    void clampsThePageSize() {
+        assertThat(paging.request(null, null, null, 10_000).pageSize()).isEqualTo(KeysetPaging.MAX_LIMIT);
+        assertThat(paging.request(null, null, null, 0).pageSize()).isEqualTo(1);
+    }
+
+    @Test
+    void cursorResumesAfterTheLastRowInTheSameSort() {
+        KeysetPaging.Request first = paging.request("name", "desc", null, 2);
+        List<Row> rows = List.of(new Row(9L, LocalDateTime.now(), "Zoo, trip"), new Row(4L, LocalDateTime.now(),
+                "Groceries"));
+        Window<Row> window = Window.from(rows,
+                i -> ScrollPosition.forward(Map.of("name", rows.get(i).name(), "id", rows.get(i).id())), true);
+
+        CursorPage<String> page = paging.page(first, window, Row::name);
+
+        assertThat(page.items()).containsExactly("Zoo, trip", "Groceries");
+        assertThat(page.hasNext()).isTrue();
+        // A cursor keeps its own sort, whatever the other parameters say
+        KeysetPaging.Request next = paging.request("created", "asc", page.nextCursor(), 2);
+        assertThat(next.sort().name()).isEqualTo("name");
+        assertThat(next.direction()).isEqualTo(Sort.Direction.DESC);
+        assertThat(((KeysetScrollPosition) next.position()).getKeys())
+                .containsEntry("name", "Groceries")
+                .containsEntry("id", 4L);
+    }
+
+    @Test
+    void timestampsSurviveTheRoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 16, 9, 30, 15, 123_000_000);
+        Window<Row> window = Window.from(List.of(new Row(7L, createdAt, "a")),
+                i -> ScrollPosition.forward(Map.of("createdAt", createdAt, "id", 7L)), true);
+
+        CursorPage<Row> page = paging.page(paging.request(null, null, null, 1), window, row -> row);
+        KeysetPaging.Request next = paging.request(null, null, page.nextCursor(), 1);
+
+        assertThat(((KeysetScrollPosition) next.position()).getKeys()).containsEntry("createdAt", createdAt);
+    }
+
+    @Test
+    void sortKeysWithSeparatorsSurviveTheRoundTrip() {
+        String name = "Shopping\nlist.\n2\nDESC\n5";
+        Window<Row> window = Window.from(List.of(new Row(3L, LocalDateTime.now(), name)),
+                i -> ScrollPosition.forward(Map.of("name", name, "id", 3L)), true);
+
+        CursorPage<Row> page = paging.page(paging.request("name", null, null, 1), window, row -> row);
+        KeysetPaging.Request next = paging.request(null, null, page.nextCursor(), 1);
+
+        assertThat(next.sort().name()).isEqualTo("name");
+        assertThat(next.direction()).isEqualTo(Sort.Direction.ASC);
+        assertThat(((KeysetScrollPosition) next.position()).getKeys())
+                .containsEntry("name", name)
+                .containsEntry("id", 3L);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        Window<Row> window = Window.from(List.of(new Row(1L, LocalDateTime.now(), "a")),
+                i -> ScrollPosition.forward(Map.of("createdAt", LocalDateTime.now(), "id", 1L)), false);
+
+        assertThat(paging.page(paging.request(null, null, null, 5), window, Row::id).nextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsUnknownSortsAndMalformedCursors() {
+        assertThatThrownBy(() -> paging.request("price", null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paging.request(null, "sideways", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paging.request(null, null, "not a cursor!", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paging.request(null, null, "MQpjcmVhdGVkCkRFU0MKeWVzdGVyZGF5CjE", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paging.request(null, null, "2.Y3JlYXRlZA.REVTQw.eWVzdGVyZGF5.MQ", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paging.request(null, null, "2.Y3JlYXRlZA.REVTQw.!!.MQ", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
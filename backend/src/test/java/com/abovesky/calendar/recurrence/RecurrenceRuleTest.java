@@ -0,0 +1,85 @@
+package com.abovesky.calendar.recurrence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecurrenceRuleTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0); // Monday
+    private static final Duration ONE_HOUR = Duration.ofHours(1);
+
+    @Test
+    void parsesJsonPattern() {
+        RecurrenceRule rule = RecurrenceRule.parse(
+                "{\"type\":\"weekly\",\"interval\":2,\"endDate\":\"2024-12-31\",\"daysOfWeek\":[\"WE\",\"MO\"]}");
+
+        assertThat(rule.getFrequency()).isEqualTo(RecurrenceRule.Frequency.WEEKLY);
+        assertThat(rule.getInterval()).isEqualTo(2);
+        assertThat(rule.getUntil()).hasToString("2024-12-31");
+        assertThat(rule.getDaysOfWeek()).containsExactly(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY);
+    }
+
+    @Test
+    void rejectsUnknownType() {
+        assertThatThrownBy(() -> RecurrenceRule.parse("{\"type\":\"hourly\"}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void expandsDailyOnlyInsideWindow() {
+        RecurrenceRule rule = RecurrenceRule.parse("daily");
+
+        List<LocalDateTime> occurrences = rule.occurrencesBetween(START, ONE_HOUR,
+                LocalDateTime.of(2030, 3, 10, 0, 0), LocalDateTime.of(2030, 3, 13, 0, 0));
+
+        assertThat(occurrences).containsExactly(
+                LocalDateTime.of(2030, 3, 10, 9, 0),
+                LocalDateTime.of(2030, 3, 11, 9, 0),
+                LocalDateTime.of(2030, 3, 12, 9, 0));
+    }
+
+    @Test
+    void includesOccurrenceOverlappingWindowStart() {
+        RecurrenceRule rule = RecurrenceRule.parse("daily");
+
+        List<LocalDateTime> occurrences = rule.occurrencesBetween(START, ONE_HOUR,
+                LocalDateTime.of(2024, 1, 5, 9, 30), LocalDateTime.of(2024, 1, 6, 0, 0));
+
+        assertThat(occurrences).containsExactly(LocalDateTime.of(2024, 1, 5, 9, 0));
+    }
+
+    @Test
+    void expandsWeeklyDaysWithCount() {
+        RecurrenceRule rule = RecurrenceRule.parse("{\"type\":\"weekly\",\"daysOfWeek\":[\"MO\",\"FR\"],\"count\":3}");
+
+        List<LocalDateTime> occurrences = rule.occurrencesBetween(START, ONE_HOUR,
+                START, START.plusMonths(1));
+
+        assertThat(occurrences).containsExactly(
+                LocalDateTime.of(2024, 1, 1, 9, 0),
+                LocalDateTime.of(2024, 1, 5, 9, 0),
+                LocalDateTime.of(2024, 1, 8, 9, 0));
+    }
+
+    @Test
+    void monthlyClampsToEndOfMonthWithoutDrifting() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 31, 18, 0);
+        RecurrenceRule rule = RecurrenceRule.parse("{\"type\":\"monthly\",\"endDate\":\"2024-04-30\"}");
+
+        List<LocalDateTime> occurrences = rule.occurrencesBetween(start, ONE_HOUR,
+                start, start.plusYears(1));
+
+        assertThat(occurrences).containsExactly(
+                LocalDateTime.of(2024, 1, 31, 18, 0),
+                LocalDateTime.of(2024, 2, 29, 18, 0),
+                LocalDateTime.of(2024, 3, 31, 18, 0),
+                LocalDateTime.of(2024, 4, 30, 18, 0));
+    }
+}
@@ -0,0 +1,46 @@
+package com.abovesky.calendar.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void rejectsDeadlinesThatAreAlreadyDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 2, 1000);
+
+        assertThat(wheel.schedule(1000, "now")).isFalse();
+        assertThat(wheel.schedule(500, "past")).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void firesEveryTimerOnceInTheTickOfItsDeadline() {
+        Random random = new Random(7);
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 3, 0);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Up to beyond the top level so the overflow list is exercised too
+            long deadline = 10 + random.nextInt(20_000);
+            wheel.schedule(deadline, deadline);
+            deadlines.add(deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 20_100; now += 10) {
+            long current = now;
+            wheel.advanceTo(now, deadline -> {
+                assertThat(deadline / 10).isEqualTo(current / 10);
+                fired.add(deadline);
+            });
+        }
+
+        assertThat(fired).containsExactlyInAnyOrderElementsOf(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,121 @@
+package com.abovesky.calendar.reminder;
+
+import com.abovesky.calendar.entity.Event;
+import com.abovesky.calendar.entity.SchedulerState;
+import com.abovesky.calendar.mapper.EventMapper;
+import com.abovesky.calendar.repository.EventRepository;
+import com.abovesky.calendar.repository.SchedulerStateRepository;
+import com.abovesky.calendar.service.RecurrenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReminderSchedulerTest {
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final SchedulerStateRepository stateRepository = mock(SchedulerStateRepository.class);
+    private final ReminderNotifier notifier = mock(ReminderNotifier.class);
+    private final ReminderScheduler scheduler = new ReminderScheduler(eventRepository, new EventMapper(),
+            new RecurrenceService(), stateRepository, notifier);
+
+    private LocalDateTime fireAt;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "tickMillis", 10L);
+        ReflectionTestUtils.setField(scheduler, "horizonMinutes", 60L);
+        ReflectionTestUtils.setField(scheduler, "refreshMinutes", 5L);
+        ReflectionTestUtils.setField(scheduler, "maxLeadMinutes", 10080);
+        ReflectionTestUtils.setField(scheduler, "catchUpMinutes", 60L);
+        when(stateRepository.findById(ReminderScheduler.STATE_NAME)).thenReturn(Optional.empty());
+
+        fireAt = LocalDateTime.now().plusNanos(200_000_000);
+        Event event = new Event();
+        event.setId(1L);
+        event.setTitle("Swimming");
+        event.setUserId(7L);
+        event.setStartDate(fireAt.plusMinutes(15));
+        event.setEndDate(fireAt.plusMinutes(60));
+        event.setReminderMinutes("15");
+        when(eventRepository.findWithRemindersStartingBetween(any(), any())).thenReturn(List.of(event));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void deliveredRemindersAdvanceTheHighWaterMark() {
+        scheduler.start();
+        verify(notifier, timeout(5000)).notify(any());
+
+        scheduler.stop();
+
+        // The wheel fires a reminder once its clock reaches the 10 ms tick holding the fire time
+        assertThat(lastHighWaterMark()).isAfterOrEqualTo(fireAt.withNano(fireAt.getNano() / 10_000_000 * 10_000_000));
+    }
+
+    @Test
+    void failedRemindersHoldTheHighWaterMarkBackForTheirRetry() {
+        doThrow(new IllegalStateException("mail store down")).when(notifier).notify(any());
+        scheduler.start();
+        verify(notifier, timeout(5000)).notify(any());
+
+        scheduler.stop();
+
+        assertThat(lastHighWaterMark()).isBeforeOrEqualTo(fireAt);
+    }
+
+    @Test
+    void cancelledRemindersAreSkipped() throws Exception {
+        scheduler.start();
+        scheduler.cancel(1L);
+        Thread.sleep(500);
+
+        verify(notifier, never()).notify(any());
+        assertThat(scheduler.getPendingCount()).isZero();
+    }
+
+    @Test
+    void deletesDuringALoadCancelWhatTheLoadQueued() throws Exception {
+        Event event = eventRepository.findWithRemindersStartingBetween(null, null).get(0);
+        Thread deleting = new Thread(() -> scheduler.cancel(1L));
+        when(eventRepository.findWithRemindersStartingBetween(any(), any())).thenAnswer(invocation -> {
+            // The event is deleted while the window is being read
+            deleting.start();
+            Thread.sleep(100);
+            return List.of(event);
+        });
+
+        scheduler.start();
+        deleting.join(5000);
+        Thread.sleep(500);
+
+        verify(notifier, never()).notify(any());
+        assertThat(scheduler.getPendingCount()).isZero();
+    }
+
+    private LocalDateTime lastHighWaterMark() {
+        ArgumentCaptor<SchedulerState> state = ArgumentCaptor.forClass(SchedulerState.class);
+        verify(stateRepository, atLeastOnce()).save(state.capture());
+        return state.getValue().getHighWaterMark();
+    }
+}
@@ -0,0 +1,134 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.entity.DashboardCounter;
+import com.abovesky.calendar.entity.Photo;
+import com.abovesky.calendar.entity.RewardRedemption;
+import com.abovesky.calendar.entity.Task;
+import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.projection.UserDashboardMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class DashboardCounterRepositoryTest {
+
+    @Autowired
+    private DashboardCounterRepository dashboardCounterRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void countersAreReadFromTheirRows() {
+        Long userId = user("anna", 25);
+        counter(userId, "assignedTasks", 7);
+        counter(userId, "completedTasks", 4);
+        counter(userId, "pendingTasks", 2);
+        counter(userId, "redemptions", 3);
+        counter(userId, "uploadedPhotos", 9);
+        counter(0L, "pendingTasks", 50); // family scope, must not leak into the user's figures
+        task(userId, "pending"); // a counter row wins over the source table
+        entityManager.flush();
+        entityManager.clear();
+
+        UserDashboardMetrics metrics = dashboardCounterRepository.findUserMetrics(userId).orElseThrow();
+
+        assertThat(metrics.getRewardPoints()).isEqualTo(25);
+        assertThat(metrics.getAssignedTasks()).isEqualTo(7);
+        assertThat(metrics.getCompletedTasks()).isEqualTo(4);
+        assertThat(metrics.getPendingTasks()).isEqualTo(2);
+        assertThat(metrics.getRedemptions()).isEqualTo(3);
+        assertThat(metrics.getUploadedPhotos()).isEqualTo(9);
+    }
+
+    @Test
+    void missingCountersAreCountedFromTheSourceTables() {
+        Long userId = user("ben", 10);
+        Long otherId = user("carla", 0);
+        task(userId, "pending");
+        task(userId, "pending");
+        task(userId, "completed");
+        task(userId, "in_progress");
+        task(otherId, "pending");
+        redemption(userId);
+        photo(userId);
+        photo(userId);
+        photo(otherId);
+        counter(userId, "redemptions", 5); // only the missing counters fall back
+        entityManager.flush();
+        entityManager.clear();
+
+        UserDashboardMetrics metrics = dashboardCounterRepository.findUserMetrics(userId).orElseThrow();
+
+        assertThat(metrics.getRewardPoints()).isEqualTo(10);
+        assertThat(metrics.getAssignedTasks()).isEqualTo(4);
+        assertThat(metrics.getCompletedTasks()).isEqualTo(1);
+        assertThat(metrics.getPendingTasks()).isEqualTo(2);
+        assertThat(metrics.getRedemptions()).isEqualTo(5);
+        assertThat(metrics.getUploadedPhotos()).isEqualTo(2);
+    }
+
+    @Test
+    void userWithoutAnythingHasZeroes() {
+        Long userId = user("dana", 0);
+
+        UserDashboardMetrics metrics = dashboardCounterRepository.findUserMetrics(userId).orElseThrow();
+
+        assertThat(metrics.getAssignedTasks()).isZero();
+        assertThat(metrics.getCompletedTasks()).isZero();
+        assertThat(metrics.getPendingTasks()).isZero();
+        assertThat(metrics.getRedemptions()).isZero();
+        assertThat(metrics.getUploadedPhotos()).isZero();
+    }
+
+    @Test
+    void unknownUserHasNoMetrics() {
+        assertThat(dashboardCounterRepository.findUserMetrics(-1L)).isEmpty();
+    }
+
+    private Long user(String username, int rewardPoints) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("$2a$10$hashedpassword");
+        user.setRewardPoints(rewardPoints);
+        return entityManager.persistAndGetId(user, Long.class);
+    }
+
+    private void counter(Long ownerId, String name, long value) {
+        String scope = ownerId == 0L ? "family" : "user";
+        entityManager.persist(new DashboardCounter(scope, ownerId, name, value, null));
+    }
+
+    private void task(Long assignedUserId, String status) {
+        Task task = new Task();
+        task.setTitle("Chore");
+        task.setAssignedUserId(assignedUserId);
+        task.setStatus(status);
+        task.setCreatedBy(assignedUserId);
+        entityManager.persist(task);
+    }
+
+    private void redemption(Long userId) {
+        RewardRedemption redemption = new RewardRedemption();
+        redemption.setUserId(userId);
+        redemption.setRewardId(1L);
+        redemption.setPointsSpent(10);
+        entityManager.persist(redemption);
+    }
+
+    private void photo(Long uploadedBy) {
+        Photo photo = new Photo();
+        photo.setFileName("photo.jpg");
+        photo.setFilePath("photos/photo.jpg");
+        photo.setPhotoDate(LocalDateTime.now());
+        photo.setUploadedBy(uploadedBy);
+        entityManager.persist(photo);
+    }
+}
@@ -0,0 +1,90 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.entity.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class EventRepositoryTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 10, 12, 9, 0);
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Test
+    void dtoQueryCarriesEveryFieldOfTheUsersEvents() {
+        Event dentist = event(1L, "Dentist", MONDAY, MONDAY.plusHours(1));
+        dentist.setDescription("Bring the card");
+        dentist.setCategory("appointments");
+        dentist.setColor("#ff0000");
+        dentist.setIsAllDay(false);
+        dentist.setAssignedMembers("1,2");
+        dentist.setReminderMinutes("15,60");
+        dentist.setIcon("tooth");
+        Event swimming = event(1L, "Swimming", MONDAY.plusDays(1), MONDAY.plusDays(1).plusHours(2));
+        swimming.setRecurrencePattern("{\"type\":\"weekly\",\"interval\":1}");
+        eventRepository.saveAll(List.of(dentist, swimming, event(2L, "Work", MONDAY, MONDAY.plusHours(8))));
+
+        List<EventDto> events = eventRepository.findAsDtoByUserId(1L);
+
+        assertThat(events).extracting(EventDto::getTitle).containsExactlyInAnyOrder("Dentist", "Swimming");
+        EventDto dto = events.stream().filter(e -> e.getTitle().equals("Dentist")).findFirst().orElseThrow();
+        // Timestamps come back at the column's precision
+        assertThat(dto).usingRecursiveComparison().ignoringFields("createdAt", "updatedAt")
+                .isEqualTo(new EventDto(dentist.getId(), "Dentist", "Bring the card", MONDAY, MONDAY.plusHours(1), 1L,
+                        "appointments", "#ff0000", false, null, "1,2", "15,60", "tooth", null, null));
+        assertThat(dto.getCreatedAt()).isNotNull();
+        assertThat(dto.getUpdatedAt()).isNotNull();
+        assertThat(eventRepository.findRecurringAsDtoByUserId(1L)).extracting(EventDto::getTitle)
+                .containsExactly("Swimming");
+        assertThat(eventRepository.findAsDtoByUserId(3L)).isEmpty();
+    }
+
+    @Test
+    void windowQueryReturnsSingleEventsOverlappingItInStartOrder() {
+        eventRepository.saveAll(List.of(
+                event(1L, "Before", MONDAY.minusDays(2), MONDAY.minusDays(1)),
+                event(1L, "Overnight", MONDAY.minusHours(12), MONDAY.plusHours(1)),
+                event(1L, "Lunch", MONDAY.plusHours(3), MONDAY.plusHours(4)),
+                event(1L, "After", MONDAY.plusDays(1), MONDAY.plusDays(1).plusHours(1)),
+                event(2L, "Someone else's", MONDAY.plusHours(2), MONDAY.plusHours(3))));
+
+        List<EventDto> events = eventRepository.findSingleEventsInWindow(1L, MONDAY, MONDAY.plusDays(1));
+
+        assertThat(events).extracting(EventDto::getTitle).containsExactly("Overnight", "Lunch");
+    }
+
+    @Test
+    void pagesOfAllEventsFollowEachOtherInIdOrder() {
+        List<Event> saved = eventRepository.saveAll(List.of(
+                event(1L, "Dentist", MONDAY, MONDAY.plusHours(1)),
+                event(2L, "Work", MONDAY, MONDAY.plusHours(8)),
+                event(1L, "Lunch", MONDAY.plusHours(3), MONDAY.plusHours(4))));
+        PageRequest page = PageRequest.ofSize(2);
+
+        List<EventDto> first = eventRepository.findAsDtoAfterId(0L, page);
+        List<EventDto> second = eventRepository.findAsDtoAfterId(first.get(1).getId(), page);
+
+        assertThat(first).extracting(EventDto::getTitle).containsExactly("Dentist", "Work");
+        assertThat(second).extracting(EventDto::getTitle).containsExactly("Lunch");
+        assertThat(eventRepository.findAsDtoAfterId(saved.get(2).getId(), page)).isEmpty();
+    }
+
+    private static Event event(Long userId, String title, LocalDateTime start, LocalDateTime end) {
+        Event event = new Event();
+        event.setUserId(userId);
+        event.setTitle(title);
+        event.setStartDate(start);
+        event.setEndDate(end);
+        return event;
+    }
+}
@@ -0,0 +1,77 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.dto.MealDto;
+import com.abovesky.calendar.entity.Meal;
+import com.abovesky.calendar.entity.MealType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class MealRepositoryTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 10, 12);
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    @Test
+    void listItemsLeaveOutOnlyTheRecipe() {
+        Meal soup = meal("Lentil soup", "dinner", MONDAY);
+        soup.setIngredients("[\"lentils\",\"carrots\"]");
+        soup.setMealType(MealType.DINNER);
+        soup.setDietaryTags("vegetarian");
+        soup.setIsFavorite(true);
+        soup.setCreatedBy(4L);
+        mealRepository.save(soup);
+
+        MealDto item = mealRepository.findAllListItems().get(0);
+
+        assertThat(item.getRecipe()).isNull();
+        assertThat(item.getId()).isEqualTo(soup.getId());
+        assertThat(item.getName()).isEqualTo("Lentil soup");
+        assertThat(item.getIngredients()).isEqualTo("[\"lentils\",\"carrots\"]");
+        assertThat(item.getAssignedDate()).isEqualTo(MONDAY);
+        assertThat(item.getMealType()).isEqualTo(MealType.DINNER);
+        assertThat(item.getDietaryTags()).isEqualTo("vegetarian");
+        assertThat(item.getIsFavorite()).isTrue();
+        assertThat(item.getCreatedBy()).isEqualTo(4L);
+        assertThat(item.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void filteredListItemsMatchTheirFilters() {
+        Meal pancakes = meal("Pancakes", "breakfast", MONDAY);
+        pancakes.setIsFavorite(true);
+        mealRepository.saveAll(List.of(pancakes, meal("Lentil soup", "dinner", MONDAY.plusDays(1)),
+                meal("Pasta", "dinner", MONDAY.plusDays(9))));
+
+        assertThat(mealRepository.findListItemsByAssignedDateBetween(MONDAY, MONDAY.plusDays(6)))
+                .extracting(MealDto::getName).containsExactlyInAnyOrder("Pancakes", "Lentil soup");
+        assertThat(mealRepository.findListItemsByCategory("dinner"))
+                .extracting(MealDto::getName).containsExactlyInAnyOrder("Lentil soup", "Pasta");
+        assertThat(mealRepository.findListItemsByIsFavorite(true))
+                .extracting(MealDto::getName).containsExactly("Pancakes");
+        assertThat(mealRepository.findListItemsByNameContainingIgnoreCase("SOUP"))
+                .extracting(MealDto::getName).containsExactly("Lentil soup");
+        Page<MealDto> page = mealRepository.findAllListItems(PageRequest.of(0, 2));
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    private static Meal meal(String name, String category, LocalDate assignedDate) {
+        Meal meal = new Meal();
+        meal.setName(name);
+        meal.setCategory(category);
+        meal.setRecipe("Simmer for twenty minutes.");
+        meal.setAssignedDate(assignedDate);
+        return meal;
+    }
+}
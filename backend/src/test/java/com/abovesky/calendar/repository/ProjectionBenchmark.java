@@ -0,0 +1,150 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.dto.MealDto;
+import com.abovesky.calendar.dto.TaskDto;
+import com.abovesky.calendar.entity.Meal;
+import com.abovesky.calendar.entity.MealType;
+import com.abovesky.calendar.entity.Task;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares serving a list by hydrating entities and copying them into DTOs (what the list endpoints did before)
+ * with selecting the DTOs directly through the repositories' constructor expressions, against an in-memory H2
+ * database. Each operation is one request: a read-only session, one query, the result list. Meals carry a recipe
+ * of a few kilobytes that the list projection leaves out.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.abovesky.calendar.repository.ProjectionBenchmark}; the GC profiler reports the heap
+ * allocated per request as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Param({"50", "500"})
+    private int rows;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Meal.class)
+                .addAnnotatedClass(Task.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:projection;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .buildSessionFactory();
+        String recipe = "Chop, stir and simmer until done. ".repeat(120);
+        sessionFactory.inTransaction(session -> {
+            LocalDate monday = LocalDate.of(2026, 1, 5);
+            for (int i = 0; i < rows; i++) {
+                Meal meal = new Meal();
+                meal.setName("Pasta bolognese " + i);
+                meal.setCategory("dinner");
+                meal.setRecipe(recipe);
+                meal.setIngredients("[\"pasta\",\"minced beef\",\"tomatoes\",\"onion\"]");
+                meal.setAssignedDate(monday.plusDays(i % 7));
+                meal.setMealType(MealType.DINNER);
+                meal.setDietaryTags("family-favourite");
+                meal.setIcon("🍝");
+                meal.setCreatedBy(17L);
+                session.persist(meal);
+
+                Task task = new Task();
+                task.setTitle("Feed the cat " + i);
+                task.setDescription("Half a pouch, and refill the water");
+                task.setDueDate(LocalDateTime.of(2026, 1, 5, 18, 0).plusDays(i));
+                task.setAssignedUserId(18L);
+                task.setCategory("pets");
+                task.setSubtasks("[{\"title\":\"Refill water\",\"done\":false}]");
+                task.setIcon("🐱");
+                task.setCreatedBy(17L);
+                session.persist(task);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public List<MealDto> mealEntities() {
+        return inReadOnlySession(session -> session.createQuery("SELECT m FROM Meal m", Meal.class)
+                .getResultList().stream()
+                .map(m -> new MealDto(m.getId(), m.getName(), m.getCategory(), m.getRecipe(), m.getIngredients(),
+                        m.getAssignedDate(), m.getMealType(), m.getDietaryTags(), m.getImageUrl(),
+                        m.getIsFavorite(), m.getIcon(), m.getCreatedBy(), m.getCreatedAt(), m.getUpdatedAt()))
+                .toList());
+    }
+
+    @Benchmark
+    public List<MealDto> mealListItems() {
+        return inReadOnlySession(session -> session.createQuery(
+                "SELECT " + MealRepository.LIST_ITEM + " FROM Meal m", MealDto.class).getResultList());
+    }
+
+    @Benchmark
+    public List<TaskDto> taskEntities() {
+        return inReadOnlySession(session -> session.createQuery("SELECT t FROM Task t", Task.class)
+                .getResultList().stream()
+                .map(t -> new TaskDto(t.getId(), t.getTitle(), t.getDescription(), t.getDueDate(),
+                        t.getAssignedUserId(), t.getPriority(), t.getStatus(), t.getCategory(),
+                        t.getRecurrencePattern(), t.getRewardPoints(), t.getSubtasks(), t.getOrderIndex(),
+                        t.getIcon(), t.getCompletedAt(), t.getCreatedBy(), t.getCreatedAt(), t.getUpdatedAt()))
+                .toList());
+    }
+
+    @Benchmark
+    public List<TaskDto> taskProjection() {
+        return inReadOnlySession(session -> session.createQuery(
+                "SELECT " + TaskRepository.DTO + " FROM Task t", TaskDto.class).getResultList());
+    }
+
+    /**
+     * A session set up the way a {@code @Transactional(readOnly = true)} service method gets it
+     */
+    private <T> T inReadOnlySession(Function<Session, T> work) {
+        return sessionFactory.fromTransaction(session -> {
+            session.setDefaultReadOnly(true);
+            return work.apply(session);
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProjectionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.abovesky.calendar.repository;
+
+import com.abovesky.calendar.dto.UserDto;
+import com.abovesky.calendar.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void dtoCarriesNoSecretsOnlyWhetherAPinIsSet() {
+        User user = user("anna");
+        user.setParentModePin("$2a$10$hashedpin");
+        user.setPinResetToken("reset-token");
+        user.setRewardPoints(40);
+        Long id = userRepository.save(user).getId();
+
+        UserDto dto = userRepository.findAsDtoById(id).orElseThrow();
+
+        assertThat(dto.getUsername()).isEqualTo("anna");
+        assertThat(dto.getRewardPoints()).isEqualTo(40);
+        assertThat(dto.getPinSet()).isTrue();
+        assertThat(userRepository.findAsDtoByUsername("anna")).contains(dto);
+    }
+
+    @Test
+    void emptyPinCountsAsNotSet() {
+        User user = user("ben");
+        user.setParentModePin("");
+        userRepository.save(user);
+
+        assertThat(userRepository.findAsDtoByUsername("ben").orElseThrow().getPinSet()).isFalse();
+        assertThat(userRepository.findAsDtoByUsername("nobody")).isEmpty();
+    }
+
+    @Test
+    void singleColumnUpdatesWriteOnlyTheirColumn() {
+        User user = user("carla");
+        user.setDisplayName("Carla");
+        Long id = userRepository.saveAndFlush(user).getId();
+
+        assertThat(userRepository.updatePassword(id, "$2a$12$newpassword")).isEqualTo(1);
+        assertThat(userRepository.updateParentModePin(id, "$2a$12$newpin")).isEqualTo(1);
+        assertThat(userRepository.updateParentMode(id, true)).isEqualTo(1);
+        assertThat(userRepository.updatePassword(-1L, "$2a$12$nobody")).isZero();
+
+        entityManager.clear();
+        User updated = userRepository.findById(id).orElseThrow();
+        assertThat(updated.getPassword()).isEqualTo("$2a$12$newpassword");
+        assertThat(updated.getParentModePin()).isEqualTo("$2a$12$newpin");
+        assertThat(updated.getIsParentMode()).isTrue();
+        assertThat(updated.getDisplayName()).isEqualTo("Carla");
+        assertThat(updated.getUpdatedAt()).isNotNull();
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("$2a$10$hashedpassword");
+        return user;
+    }
+}
@@ -0,0 +1,90 @@
+package com.abovesky.calendar.schedule;
+
+import com.abovesky.calendar.dto.EventDto;
+import com.abovesky.calendar.service.RecurrenceService;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventScheduleIndexTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final EventScheduleIndex index = new EventScheduleIndex(new RecurrenceService());
+
+    @Test
+    void writesBeforeHydrationAreLeftToTheLoad() {
+        index.put(event(1L, NINE));
+
+        index.load(Stream::empty);
+
+        assertThat(index.findConflicts(List.of(7L), NINE, NINE.plusHours(1), null)).isEmpty();
+    }
+
+    @Test
+    void writesDuringHydrationAreAppliedOnTopOfTheSnapshot() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventDto stale = event(1L, NINE);
+        EventDto moved = event(1L, NINE.plusHours(3));
+
+        CompletableFuture<Void> load = CompletableFuture.runAsync(() -> index.load(() -> {
+            loading.countDown();
+            await(release);
+            return Stream.of(stale, event(2L, NINE.plusHours(5)));
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+        // Writes do not wait for the load
+        index.put(moved);
+        index.evict(2L);
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+
+        assertThat(index.findConflicts(List.of(7L), NINE, NINE.plusHours(1), null)).isEmpty();
+        assertThat(index.findConflicts(List.of(7L), NINE.plusHours(3), NINE.plusHours(4), null))
+                .extracting(EventDto::getId)
+                .containsExactly(1L);
+        assertThat(index.findConflicts(List.of(7L), NINE.plusHours(5), NINE.plusHours(6), null)).isEmpty();
+    }
+
+    @Test
+    void aFailedLoadIsRetriedByTheNextOne() {
+        EventDto dentist = event(1L, NINE);
+
+        assertThatThrownBy(() -> index.load(() -> Stream.of(dentist).peek(event -> {
+            throw new IllegalStateException("database down");
+        }))).isInstanceOf(IllegalStateException.class);
+        assertThat(index.isLoaded()).isFalse();
+
+        index.load(() -> Stream.of(dentist));
+
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.findConflicts(List.of(7L), NINE, NINE.plusHours(1), null)).containsExactly(dentist);
+    }
+
+    private static EventDto event(Long id, LocalDateTime start) {
+        EventDto event = new EventDto();
+        event.setId(id);
+        event.setTitle("Dentist");
+        event.setStartDate(start);
+        event.setEndDate(start.plusHours(1));
+        event.setUserId(7L);
+        return event;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
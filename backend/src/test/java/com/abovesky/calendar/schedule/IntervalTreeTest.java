@@ -0,0 +1,69 @@
+package com.abovesky.calendar.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntervalTreeTest {
+
+    @Test
+    void findsOverlappingIntervalsWithHalfOpenSemantics() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(10, 20, 1, "a");
+        tree.insert(15, 25, 2, "b");
+        tree.insert(30, 40, 3, "c");
+        tree.insert(35, 35, 4, "point");
+
+        assertThat(tree.overlapping(20, 30)).containsExactly("b");
+        assertThat(tree.overlapping(0, 10)).isEmpty();
+        assertThat(tree.overlapping(35, 36)).containsExactlyInAnyOrder("c", "point");
+        assertThat(tree.overlapping(0, 100)).hasSize(4);
+    }
+
+    @Test
+    void removeDropsOnlyTheMatchingInterval() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(10, 20, 1, "a");
+        tree.insert(10, 20, 2, "b");
+
+        assertThat(tree.remove(10, 1)).isTrue();
+        assertThat(tree.remove(10, 1)).isFalse();
+        assertThat(tree.overlapping(0, 100)).containsExactly("b");
+        assertThat(tree.size()).isEqualTo(1);
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomInsertsAndRemovals() {
+        Random random = new Random(42);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        List<long[]> intervals = new ArrayList<>();
+
+        for (long id = 0; id < 2000; id++) {
+            long start = random.nextInt(10_000);
+            long end = start + random.nextInt(200);
+            tree.insert(start, end, id, id);
+            intervals.add(new long[]{start, end, id});
+        }
+        for (int i = 0; i < 800; i++) {
+            long[] removed = intervals.remove(random.nextInt(intervals.size()));
+            assertThat(tree.remove(removed[0], removed[2])).isTrue();
+        }
+
+        for (int i = 0; i < 200; i++) {
+            long from = random.nextInt(10_000);
+            long to = from + 1 + random.nextInt(500);
+            List<Long> expected = new ArrayList<>();
+            for (long[] interval : intervals) {
+                if (interval[0] < to && (interval[1] > from || interval[0] >= from)) {
+                    expected.add(interval[2]);
+                }
+            }
+            assertThat(tree.overlapping(from, to)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+        assertThat(tree.size()).isEqualTo(intervals.size());
+    }
+}
@@ -0,0 +1,71 @@
+package com.abovesky.calendar.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientIpResolverTest {
+
+    private final ClientIpResolver resolver = new ClientIpResolver(List.of("127.0.0.1", "10.0.0.0/8", "::1"));
+
+    @Test
+    void ignoresForwardingHeadersFromUntrustedClients() {
+        MockHttpServletRequest request = request("203.0.113.7", "198.51.100.1");
+        request.addHeader("X-Real-IP", "198.51.100.2");
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void takesTheRightmostUntrustedForwardedAddress() {
+        // The client prepended a forged address; the proxies appended the real one
+        MockHttpServletRequest request = request("10.0.0.5", "1.2.3.4, 203.0.113.7, 10.1.2.3");
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void fallsBackToTheLeftmostHopWhenEveryHopIsTrusted() {
+        assertThat(resolver.resolve(request("127.0.0.1", "10.0.0.9,10.0.0.8"))).isEqualTo("10.0.0.9");
+    }
+
+    @Test
+    void usesRealIpHeaderOrRemoteAddressWithoutForwardedFor() {
+        MockHttpServletRequest request = request("::1", null);
+        assertThat(resolver.resolve(request)).isEqualTo("::1");
+
+        request.addHeader("X-Real-IP", " 203.0.113.9 ");
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.9");
+    }
+
+    @Test
+    void matchesCidrRangesAndRejectsNonLiterals() {
+        assertThat(resolver.isTrusted("10.255.0.1")).isTrue();
+        assertThat(resolver.isTrusted("11.0.0.1")).isFalse();
+        assertThat(resolver.isTrusted("0:0:0:0:0:0:0:1")).isTrue();
+        assertThat(resolver.isTrusted("localhost")).isFalse();
+        assertThat(resolver.isTrusted("10.0.0.256")).isFalse();
+        assertThat(ClientIpResolver.parseLiteral("1.2.3")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedProxyRanges() {
+        assertThatThrownBy(() -> new ClientIpResolver(List.of("10.0.0.0/33")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ClientIpResolver(List.of("proxy.internal")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,97 @@
+package com.abovesky.calendar.security;
+
+import com.abovesky.calendar.security.OneTimeTokenStore.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryOneTimeTokenStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final InMemoryOneTimeTokenStore store = new InMemoryOneTimeTokenStore(1000, 3, nanos::get);
+
+    @Test
+    void consumingAValidSecretUsesItUp() {
+        store.put("otp:alice", "123456", "alice@example.com", Duration.ofMinutes(10));
+
+        assertThat(store.verify("otp:alice", "123456").isValid()).isTrue();
+        OneTimeTokenStore.Verification consumed = store.consume("otp:alice", "123456");
+
+        assertThat(consumed.isValid()).isTrue();
+        assertThat(consumed.value()).isEqualTo("alice@example.com");
+        assertThat(store.consume("otp:alice", "123456").outcome()).isEqualTo(Outcome.NOT_FOUND);
+    }
+
+    @Test
+    void dropsTheEntryAfterTooManyWrongGuesses() {
+        store.put("otp:alice", "123456", null, Duration.ofMinutes(10));
+
+        assertThat(store.consume("otp:alice", "000000").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(store.consume("otp:alice", "000001").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(store.consume("otp:alice", "000002").outcome()).isEqualTo(Outcome.INVALID);
+
+        assertThat(store.consume("otp:alice", "123456").outcome()).isEqualTo(Outcome.NOT_FOUND);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void reissuingResetsTheAttempts() {
+        store.put("otp:alice", "123456", null, Duration.ofMinutes(10));
+        store.consume("otp:alice", "000000");
+        store.consume("otp:alice", "000001");
+
+        store.put("otp:alice", "654321", null, Duration.ofMinutes(10));
+
+        assertThat(store.consume("otp:alice", "123456").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(store.consume("otp:alice", "654321").isValid()).isTrue();
+    }
+
+    @Test
+    void expiredSecretsAreNotFound() {
+        store.put("otp:alice", "123456", null, Duration.ofMinutes(10));
+
+        nanos.addAndGet(Duration.ofMinutes(10).toNanos());
+        assertThat(store.consume("otp:alice", "123456").outcome()).isEqualTo(Outcome.NOT_FOUND);
+
+        // Past Caffeine's expiry bucket, the entry itself is gone too
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void nullSecretsNeverMatch() {
+        store.put("otp:alice", "123456", null, Duration.ofMinutes(10));
+
+        assertThat(store.consume("otp:alice", null).outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(store.consume("otp:alice", "123456").isValid()).isTrue();
+    }
+
+    @Test
+    void onlyOneOfConcurrentConsumersSucceeds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 50; round++) {
+                store.put("reset", "token", "alice@example.com", Duration.ofMinutes(10));
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    results.add(executor.submit(() -> store.consume("reset", "token").isValid()));
+                }
+                int valid = 0;
+                for (Future<Boolean> result : results) {
+                    valid += result.get() ? 1 : 0;
+                }
+                assertThat(valid).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
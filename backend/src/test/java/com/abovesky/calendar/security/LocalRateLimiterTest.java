@@ -0,0 +1,90 @@
+package com.abovesky.calendar.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(-5_000_000_000L);
+    private final LocalRateLimiter limiter = new LocalRateLimiter(10, Duration.ofMinutes(1), clock::get);
+
+    @Test
+    void allowsABurstUpToTheLimitThenThrottles() {
+        for (int i = 0; i < 10; i++) {
+            RateLimitDecision decision = limiter.tryAcquire("ip");
+            assertThat(decision.allowed()).isTrue();
+            assertThat(decision.remaining()).isEqualTo(9 - i);
+        }
+
+        RateLimitDecision throttled = limiter.tryAcquire("ip");
+        assertThat(throttled.allowed()).isFalse();
+        assertThat(throttled.retryAfterNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(6));
+        assertThat(limiter.tryAcquire("other").allowed()).isTrue();
+    }
+
+    @Test
+    void replenishesContinuouslyInsteadOfResettingPerWindow() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("ip");
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertThat(limiter.tryAcquire("ip").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("ip").allowed()).isFalse();
+
+        // A full window later the whole burst is available again, but never more than the limit
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        int allowed = 0;
+        while (limiter.tryAcquire("ip").allowed()) {
+            allowed++;
+        }
+        assertThat(allowed).isEqualTo(10);
+    }
+
+    @Test
+    void sweepDropsOnlyFullyReplenishedKeys() {
+        limiter.tryAcquire("idle");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("busy");
+
+        assertThat(limiter.sweep()).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void neverAdmitsMoreThanTheLimitUnderContention() throws InterruptedException {
+        LocalRateLimiter shared = new LocalRateLimiter(1000, Duration.ofHours(1));
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (shared.tryAcquire("hot").allowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(allowed.get()).isEqualTo(1000);
+    }
+}
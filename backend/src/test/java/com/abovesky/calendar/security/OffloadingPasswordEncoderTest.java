@@ -0,0 +1,119 @@
+package com.abovesky.calendar.security;
+
+import com.abovesky.calendar.exception.HashingCapacityException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffloadingPasswordEncoderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OffloadingPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.close();
+    }
+
+    @Test
+    void delegatesOnThePoolAndRecordsLatency() {
+        encoder = new OffloadingPasswordEncoder(new Reversing(null), 1, 1, 1000, registry);
+
+        assertThat(encoder.encode("secret")).isEqualTo("terces");
+        assertThat(encoder.matches("secret", "terces")).isTrue();
+        assertThat(registry.get("auth.hashing.duration").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenThePoolAndQueueAreFull() throws Exception {
+        encoder = new OffloadingPasswordEncoder(new Reversing(release), 1, 1, 5000, registry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        awaitQueued(0);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        awaitQueued(1);
+
+        assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(HashingCapacityException.class);
+        assertThat(registry.get("auth.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(1, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(queued.get(1, TimeUnit.SECONDS)).isEqualTo("b");
+    }
+
+    @Test
+    void givesUpOnHashesThatDoNotStartWithinTheTimeoutAndNeverRunThem() throws Exception {
+        AtomicInteger hashed = new AtomicInteger();
+        encoder = new OffloadingPasswordEncoder(new Reversing(release, hashed), 1, 1, 50, registry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("running"));
+        awaitQueued(0);
+
+        assertThatThrownBy(() -> encoder.encode("queued")).isInstanceOf(HashingCapacityException.class);
+        assertThat(registry.get("auth.hashing.queue").gauge().value()).isZero();
+
+        release.countDown();
+        assertThat(running.get(1, TimeUnit.SECONDS)).isEqualTo("gninnur");
+        encoder.close();
+        assertThat(hashed).hasValue(1);
+    }
+
+    @Test
+    void waitsForHashesThatAlreadyStarted() throws Exception {
+        encoder = new OffloadingPasswordEncoder(new Reversing(release), 1, 1, 50, registry);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> encoder.encode("slow"));
+        awaitQueued(0);
+        Thread.sleep(100);
+
+        release.countDown();
+
+        assertThat(slow.get(1, TimeUnit.SECONDS)).isEqualTo("wols");
+        assertThat(registry.get("auth.hashing.rejected").counter().count()).isZero();
+    }
+
+    private void awaitQueued(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (registry.get("auth.hashing.queue").gauge().value() < depth
+                || registry.get("auth.hashing.active").gauge().value() < 1) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Stand-in for BCrypt that optionally blocks until released
+     */
+    private record Reversing(CountDownLatch gate, AtomicInteger hashed) implements PasswordEncoder {
+
+        Reversing(CountDownLatch gate) {
+            this(gate, new AtomicInteger());
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashed.incrementAndGet();
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new StringBuilder(rawPassword).reverse().toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.abovesky.calendar.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limit checks per second under contention: the previous synchronized token bucket against the GCRA
+ * {@link LocalRateLimiter}, with all threads on one hot key and spread over many keys. Limits are set high enough
+ * that every check is admitted, so both measure the steady-state update path.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.abovesky.calendar.security.RateLimiterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private final String[] keys = new String[KEYS];
+    private LocalRateLimiter limiter;
+    private ConcurrentHashMap<String, LegacyTokenBucket> buckets;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+        limiter = new LocalRateLimiter(Integer.MAX_VALUE, Duration.ofMinutes(1));
+        buckets = new ConcurrentHashMap<>();
+    }
+
+    @Benchmark
+    public boolean legacyHotKey() {
+        return buckets.computeIfAbsent(keys[0], k -> new LegacyTokenBucket(Integer.MAX_VALUE)).tryConsume();
+    }
+
+    @Benchmark
+    public boolean gcraHotKey() {
+        return limiter.tryAcquire(keys[0]).allowed();
+    }
+
+    @Benchmark
+    public boolean legacyManyKeys() {
+        String key = keys[ThreadLocalRandom.current().nextInt(KEYS)];
+        return buckets.computeIfAbsent(key, k -> new LegacyTokenBucket(Integer.MAX_VALUE)).tryConsume();
+    }
+
+    @Benchmark
+    public boolean gcraManyKeys() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]).allowed();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * The bucket RateLimitingFilter used before, kept here as the baseline
+     */
+    private static class LegacyTokenBucket {
+        private static final long REFILL_INTERVAL = 60000;
+        private final int capacity;
+        private final AtomicInteger tokens;
+        private long lastRefill;
+
+        LegacyTokenBucket(int capacity) {
+            this.capacity = capacity;
+            this.tokens = new AtomicInteger(capacity);
+            this.lastRefill = System.currentTimeMillis();
+        }
+
+        synchronized boolean tryConsume() {
+            long now = System.currentTimeMillis();
+            if (now - lastRefill >= REFILL_INTERVAL) {
+                tokens.set(capacity);
+                lastRefill = now;
+            }
+            if (tokens.get() > 0) {
+                tokens.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
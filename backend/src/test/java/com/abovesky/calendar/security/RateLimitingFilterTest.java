@@ -0,0 +1,29 @@
+package com.abovesky.calendar.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"rate-limit.mode=local", "rate-limit.general.permits=2"})
+@AutoConfigureMockMvc
+class RateLimitingFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void limitsRequestsTheSecurityChainRejects() throws Exception {
+        mockMvc.perform(get("/api/events").header("Authorization", "Bearer forged"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/events").header("Authorization", "Bearer forged"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/events").header("Authorization", "Bearer forged"))
+                .andExpect(status().isTooManyRequests());
+    }
+}
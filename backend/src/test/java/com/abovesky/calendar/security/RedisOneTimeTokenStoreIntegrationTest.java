@@ -0,0 +1,151 @@
+package com.abovesky.calendar.security;
+
+import com.abovesky.calendar.security.OneTimeTokenStore.Outcome;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the check scripts against a real Redis, with two stores standing in for two nodes
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisOneTimeTokenStoreIntegrationTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    @Test
+    void aSecretPutOnOneNodeIsConsumedOnAnother() {
+        store().put("otp:alice", "123456", "alice@example.com", Duration.ofMinutes(10));
+        RedisOneTimeTokenStore other = store();
+
+        assertThat(redisTemplate.opsForHash().get("ot:otp:alice", "secret"))
+                .isEqualTo(OneTimeTokenStore.digest("123456"));
+        assertThat(redisTemplate.getExpire("ot:otp:alice")).isPositive();
+        assertThat(other.verify("otp:alice", "123456").value()).isEqualTo("alice@example.com");
+        assertThat(other.consume("otp:alice", "123456").value()).isEqualTo("alice@example.com");
+        assertThat(other.consume("otp:alice", "123456").outcome()).isEqualTo(Outcome.NOT_FOUND);
+        assertThat(redisTemplate.hasKey("ot:otp:alice")).isFalse();
+    }
+
+    @Test
+    void entriesWithoutAValueComeBackWithNone() {
+        store().put("reset:bob", "token", null, Duration.ofMinutes(10));
+
+        OneTimeTokenStore.Verification verification = store().consume("reset:bob", "token");
+
+        assertThat(verification.isValid()).isTrue();
+        assertThat(verification.value()).isNull();
+    }
+
+    @Test
+    void wrongGuessesAcrossNodesShareOneAttemptLimit() {
+        RedisOneTimeTokenStore first = store();
+        RedisOneTimeTokenStore second = store();
+        first.put("otp:alice", "123456", null, Duration.ofMinutes(10));
+
+        assertThat(first.verify("otp:alice", "000000").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(second.verify("otp:alice", "1234567").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(first.verify("otp:alice", "111111").outcome()).isEqualTo(Outcome.INVALID);
+
+        assertThat(second.consume("otp:alice", "123456").outcome()).isEqualTo(Outcome.NOT_FOUND);
+        assertThat(redisTemplate.hasKey("ot:otp:alice")).isFalse();
+    }
+
+    @Test
+    void puttingAgainReplacesTheSecretAndResetsAttempts() {
+        RedisOneTimeTokenStore store = store();
+        store.put("otp:alice", "123456", null, Duration.ofMinutes(10));
+        store.verify("otp:alice", "000000");
+        store.verify("otp:alice", "000000");
+
+        store.put("otp:alice", "654321", null, Duration.ofMinutes(10));
+
+        assertThat(store.verify("otp:alice", "123456").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(store.verify("otp:alice", "000000").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(store.consume("otp:alice", "654321").isValid()).isTrue();
+    }
+
+    @Test
+    void redisExpiresSecrets() throws InterruptedException {
+        store().put("otp:alice", "123456", null, Duration.ofMillis(50));
+
+        Thread.sleep(200);
+
+        assertThat(store().consume("otp:alice", "123456").outcome()).isEqualTo(Outcome.NOT_FOUND);
+        assertThat(redisTemplate.hasKey("ot:otp:alice")).isFalse();
+    }
+
+    @Test
+    void concurrentConsumesOnManyNodesSucceedOnce() throws Exception {
+        store().put("otp:alice", "123456", null, Duration.ofMinutes(10));
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                RedisOneTimeTokenStore node = store();
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return node.consume("otp:alice", "123456").isValid();
+                }));
+            }
+            start.countDown();
+
+            int valid = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    valid++;
+                }
+            }
+            assertThat(valid).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RedisOneTimeTokenStore store() {
+        return new RedisOneTimeTokenStore(redisTemplate, "ot:", 3);
+    }
+}
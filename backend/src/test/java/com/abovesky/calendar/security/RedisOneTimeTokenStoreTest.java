@@ -0,0 +1,56 @@
+package com.abovesky.calendar.security;
+
+import com.abovesky.calendar.security.OneTimeTokenStore.Outcome;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisOneTimeTokenStoreTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisOneTimeTokenStore store = new RedisOneTimeTokenStore(redisTemplate, "auth:one-time:", 5);
+
+    @Test
+    void storesOnlyTheDigestOfTheSecretWithItsTtl() {
+        store.put("otp:alice", "123456", "alice@example.com", Duration.ofMinutes(10));
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("auth:one-time:otp:alice")),
+                eq(OneTimeTokenStore.digest("123456")), eq("alice@example.com"), eq("600000"));
+    }
+
+    @Test
+    void passesTheDigestAndConsumeFlagToTheScript() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenReturn(List.of(1L, "alice@example.com"));
+
+        OneTimeTokenStore.Verification verification = store.consume("otp:alice", "123456");
+
+        assertThat(verification.isValid()).isTrue();
+        assertThat(verification.value()).isEqualTo("alice@example.com");
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("auth:one-time:otp:alice")),
+                eq(OneTimeTokenStore.digest("123456")), eq("5"), eq("1"));
+    }
+
+    @Test
+    void mapsScriptResults() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenReturn(List.of(2L), List.of(0L), List.of(1L, ""));
+
+        assertThat(store.verify("otp:alice", "000000").outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(store.verify("otp:alice", "000000").outcome()).isEqualTo(Outcome.NOT_FOUND);
+        OneTimeTokenStore.Verification valid = store.verify("otp:alice", "123456");
+        assertThat(valid.isValid()).isTrue();
+        assertThat(valid.value()).isNull();
+    }
+}
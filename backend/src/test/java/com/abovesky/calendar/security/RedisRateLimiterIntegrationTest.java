@@ -0,0 +1,107 @@
+package com.abovesky.calendar.security;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the lease script against a real Redis, with two limiters standing in for two nodes
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisRateLimiterIntegrationTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    @Test
+    void nodesShareOneLimit() {
+        RedisRateLimiter first = limiter(8, Duration.ofMinutes(1));
+        RedisRateLimiter second = limiter(8, Duration.ofMinutes(1));
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (first.tryAcquire("ip").allowed()) {
+                allowed++;
+            }
+            if (second.tryAcquire("ip").allowed()) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(10);
+        assertThat(redisTemplate.getExpire("rl:ip")).isPositive();
+    }
+
+    @Test
+    void refusesWithARetryTimeOnceTheLimitIsSpent() {
+        RedisRateLimiter limiter = limiter(1, Duration.ofMinutes(1));
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("ip").allowed()).isTrue();
+        }
+
+        RateLimitDecision refused = limiter.tryAcquire("ip");
+
+        assertThat(refused.allowed()).isFalse();
+        assertThat(refused.retryAfterNanos()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(6).toNanos());
+    }
+
+    @Test
+    void permitsLeftInExpiredLeasesGoBackToTheOtherNodes() throws Exception {
+        RedisRateLimiter busy = limiter(8, Duration.ofMillis(50));
+        RedisRateLimiter other = limiter(1, Duration.ofMinutes(1));
+        // Leases of 1, 2 and 4: seven permits taken from Redis, four of them used
+        for (int i = 0; i < 4; i++) {
+            assertThat(busy.tryAcquire("ip").allowed()).isTrue();
+        }
+        Thread.sleep(100);
+
+        assertThat(busy.sweep()).isEqualTo(1);
+
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (other.tryAcquire("ip").allowed()) {
+                allowed++;
+            }
+        }
+        assertThat(allowed).isEqualTo(6);
+    }
+
+    private static RedisRateLimiter limiter(int maxLease, Duration leaseDuration) {
+        return new RedisRateLimiter(redisTemplate, "rl:", 10, Duration.ofMinutes(1), maxLease, leaseDuration,
+                Duration.ofMinutes(1));
+    }
+}
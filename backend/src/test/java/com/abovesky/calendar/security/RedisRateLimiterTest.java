@@ -0,0 +1,121 @@
+package com.abovesky.calendar.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisRateLimiterTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final List<Integer> requestedLeases = new ArrayList<>();
+
+    @Test
+    void growsLeasesForBusyKeysSoMostChecksSkipRedis() {
+        grantEverything();
+        RedisRateLimiter limiter = limiter(8);
+
+        for (int i = 0; i < 15; i++) {
+            assertThat(limiter.tryAcquire("ip").allowed()).isTrue();
+        }
+
+        // 1 + 2 + 4 + 8 permits cover the 15 requests in four round trips
+        assertThat(requestedLeases).containsExactly(1, 2, 4, 8);
+    }
+
+    @Test
+    void remembersRefusalsUntilTheRetryTime() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    requestedLeases.add(Integer.parseInt(invocation.getArgument(4)));
+                    return List.of(0L, 60_000_000L, 0L);
+                });
+        RedisRateLimiter limiter = limiter(8);
+
+        RateLimitDecision first = limiter.tryAcquire("ip");
+        RateLimitDecision second = limiter.tryAcquire("ip");
+
+        assertThat(first.allowed()).isFalse();
+        assertThat(second.allowed()).isFalse();
+        assertThat(second.retryAfterNanos()).isPositive();
+        assertThat(requestedLeases).hasSize(1);
+    }
+
+    @Test
+    void limitsLocallyWhileRedisIsUnavailable() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        RedisRateLimiter limiter = limiter(8);
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (limiter.tryAcquire("ip").allowed()) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(10);
+    }
+
+    @Test
+    void returnsPermitsLeftInAnExpiredLease() throws Exception {
+        List<Integer> returned = new ArrayList<>();
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    int requested = Integer.parseInt(invocation.getArgument(4));
+                    requestedLeases.add(requested);
+                    returned.add(Integer.parseInt(invocation.getArgument(5)));
+                    return List.of((long) requested, 1_000_000L, 1000L);
+                });
+        RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate, "rl:", 10, Duration.ofMinutes(1), 8,
+                Duration.ofMillis(50), Duration.ofMinutes(1));
+        limiter.tryAcquire("ip");
+        limiter.tryAcquire("ip"); // leases 2, uses 1
+        Thread.sleep(60);
+
+        limiter.tryAcquire("ip");
+
+        assertThat(requestedLeases).containsExactly(1, 2, 1);
+        assertThat(returned).containsExactly(0, 0, 1);
+    }
+
+    @Test
+    void sweepReturnsPermitsOfQuietKeys() throws Exception {
+        grantEverything();
+        RedisRateLimiter limiter = new RedisRateLimiter(redisTemplate, "rl:", 10, Duration.ofMinutes(1), 8,
+                Duration.ofMillis(50), Duration.ofMinutes(1));
+        limiter.tryAcquire("ip");
+        limiter.tryAcquire("ip");
+        Thread.sleep(60);
+
+        assertThat(limiter.sweep()).isEqualTo(1);
+
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), any(), any(), eq("0"), eq("1"));
+    }
+
+    private void grantEverything() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    int requested = Integer.parseInt(invocation.getArgument(4));
+                    requestedLeases.add(requested);
+                    return List.of((long) requested, 1_000_000L, 1000L);
+                });
+    }
+
+    private RedisRateLimiter limiter(int maxLease) {
+        return new RedisRateLimiter(redisTemplate, "rl:", 10, Duration.ofMinutes(1), maxLease,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+}
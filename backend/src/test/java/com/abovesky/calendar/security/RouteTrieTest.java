@@ -0,0 +1,40 @@
+package com.abovesky.calendar.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTrieTest {
+
+    private final RouteTrie<String> routes = new RouteTrie<>();
+
+    @Test
+    void matchesTheLongestPrefixAtSegmentBoundaries() {
+        routes.put("/api", "api");
+        routes.put("/api/auth/", "auth");
+        routes.put("/api/auth/login", "login");
+
+        assertThat(routes.match("/api/auth/login")).isEqualTo("login");
+        assertThat(routes.match("/api/auth/login/")).isEqualTo("login");
+        assertThat(routes.match("/api/auth/logout")).isEqualTo("auth");
+        assertThat(routes.match("/api/auth")).isEqualTo("auth");
+        assertThat(routes.match("/api/events/1")).isEqualTo("api");
+    }
+
+    @Test
+    void doesNotMatchAPrefixInTheMiddleOfASegment() {
+        routes.put("/api/auth/login", "login");
+
+        assertThat(routes.match("/api/auth/loginx")).isNull();
+        assertThat(routes.match("/api/auth")).isNull();
+        assertThat(routes.match("/other")).isNull();
+    }
+
+    @Test
+    void rootMatchesEveryPath() {
+        routes.put("/", "root");
+
+        assertThat(routes.match("/")).isEqualTo("root");
+        assertThat(routes.match("/api/events")).isEqualTo("root");
+    }
+}
@@ -0,0 +1,58 @@
+package com.abovesky.calendar.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationListTest {
+
+    private final TokenRevocationList revocationList = new TokenRevocationList(
+            mock(StringRedisTemplate.class, RETURNS_DEEP_STUBS), "revoked", "revocations", 1000, 0.01);
+
+    @Test
+    void reportsRevokedTokensOnly() {
+        revocationList.revoke("a", Instant.now().plusSeconds(60));
+
+        assertThat(revocationList.isRevoked("a")).isTrue();
+        assertThat(revocationList.isRevoked("b")).isFalse();
+        assertThat(revocationList.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void ignoresTokensThatAlreadyExpired() {
+        revocationList.revoke("expired", Instant.now().minusSeconds(1));
+
+        assertThat(revocationList.isRevoked("expired")).isFalse();
+        assertThat(revocationList.size()).isZero();
+    }
+
+    @Test
+    void appliesRevocationsPublishedByOtherNodes() {
+        long expiresAt = Instant.now().plusSeconds(60).toEpochMilli();
+        revocationList.onMessage(new DefaultMessage("revocations".getBytes(StandardCharsets.UTF_8),
+                ("other-node|remote|" + expiresAt).getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(revocationList.isRevoked("remote")).isTrue();
+    }
+
+    @Test
+    void pruneKeepsRevocationsStillInForce() {
+        for (int i = 0; i < 500; i++) {
+            revocationList.revoke("token-" + i, Instant.now().plusSeconds(60));
+        }
+
+        revocationList.prune();
+
+        for (int i = 0; i < 500; i++) {
+            assertThat(revocationList.isRevoked("token-" + i)).isTrue();
+        }
+        assertThat(revocationList.size()).isEqualTo(500);
+    }
+}
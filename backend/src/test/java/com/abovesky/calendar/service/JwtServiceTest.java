@@ -0,0 +1,60 @@
+package com.abovesky.calendar.service;
+
+import com.abovesky.calendar.entity.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "NDA0RTYzNTI2NjU1NkE1ODZFMzI3MjM1NzUzODc4MkY0MTNGNDQyODQ3MkI0QjYyNTA2NDUzNjc1NjZCNTk3MA==";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", TimeUnit.HOURS.toMillis(1));
+        jwtService.init();
+    }
+
+    @Test
+    void buildsPrincipalFromTokenClaims() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("parent");
+        user.setRoles("ROLE_USER,ROLE_ADMIN");
+        user.setIsParentMode(true);
+
+        AuthenticatedUser principal = jwtService.principalOf(jwtService.verify(jwtService.generateToken(user)));
+
+        assertThat(principal.id()).isEqualTo(42L);
+        assertThat(principal.getUsername()).isEqualTo("parent");
+        assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(principal.parentMode()).isTrue();
+        assertThat(principal.tokenId()).isNotNull();
+    }
+
+    @Test
+    void returnsNoPrincipalForTokensWithoutUserClaims() {
+        // Issued the way tokens were before they carried the user claims
+        String token = Jwts.builder()
+                .subject("parent")
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+
+        assertThat(jwtService.principalOf(jwtService.verify(token))).isNull();
+    }
+}
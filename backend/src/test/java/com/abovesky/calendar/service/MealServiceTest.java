@@ -0,0 +1,58 @@
+package com.abovesky.calendar.service;
+
+import com.abovesky.calendar.counter.DashboardCounters;
+import com.abovesky.calendar.dto.MealDto;
+import com.abovesky.calendar.entity.Meal;
+import com.abovesky.calendar.repository.MealRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MealServiceTest {
+
+    private final MealRepository mealRepository = mock(MealRepository.class);
+    private final MealService mealService = new MealService(mealRepository, mock(DashboardCounters.class));
+
+    @Test
+    void updatingWithoutARecipeClearsIt() {
+        Meal meal = meal();
+
+        MealDto updated = mealService.updateMeal(7L, update(null));
+
+        assertThat(meal.getRecipe()).isNull();
+        assertThat(updated.getRecipe()).isNull();
+    }
+
+    @Test
+    void updatingWithARecipeReplacesIt() {
+        Meal meal = meal();
+
+        mealService.updateMeal(7L, update("Bake for an hour."));
+
+        assertThat(meal.getRecipe()).isEqualTo("Bake for an hour.");
+    }
+
+    private Meal meal() {
+        Meal meal = new Meal();
+        meal.setId(7L);
+        meal.setName("Lentil soup");
+        meal.setCategory("dinner");
+        meal.setRecipe("Simmer for twenty minutes.");
+        when(mealRepository.findById(7L)).thenReturn(Optional.of(meal));
+        when(mealRepository.save(any(Meal.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return meal;
+    }
+
+    private static MealDto update(String recipe) {
+        MealDto dto = new MealDto();
+        dto.setName("Lentil soup");
+        dto.setCategory("dinner");
+        dto.setRecipe(recipe);
+        return dto;
+    }
+}
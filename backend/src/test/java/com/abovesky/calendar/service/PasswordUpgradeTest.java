@@ -0,0 +1,64 @@
+package com.abovesky.calendar.service;
+
+import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PasswordUpgradeTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserService userService = new UserService(userRepository, new ConcurrentMapCacheManager(),
+            new TokenAuthenticationCache(100, 300));
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(5);
+    private final DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+
+    PasswordUpgradeTest() {
+        provider.setUserDetailsService(userService);
+        provider.setUserDetailsPasswordService(userService);
+        provider.setPasswordEncoder(encoder);
+    }
+
+    @Test
+    void rehashesPasswordsStoredAtALowerStrengthOnLogin() {
+        User user = user(new BCryptPasswordEncoder(4).encode("secret"));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("parent", "secret"));
+
+        assertThat(user.getPassword()).startsWith("$2a$05$");
+        assertThat(encoder.matches("secret", user.getPassword())).isTrue();
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void leavesPasswordsAtTheConfiguredStrengthAlone() {
+        User user = user(encoder.encode("secret"));
+        String stored = user.getPassword();
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("parent", "secret"));
+
+        assertThat(user.getPassword()).isEqualTo(stored);
+        verify(userRepository, never()).save(any());
+    }
+
+    private User user(String passwordHash) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("parent");
+        user.setPassword(passwordHash);
+        when(userRepository.findByUsername("parent")).thenReturn(Optional.of(user));
+        return user;
+    }
+}
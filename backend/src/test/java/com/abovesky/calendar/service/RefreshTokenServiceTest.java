@@ -0,0 +1,126 @@
+package com.abovesky.calendar.service;
+
+import com.abovesky.calendar.entity.RefreshToken;
+import com.abovesky.calendar.entity.User;
+import com.abovesky.calendar.exception.InvalidTokenException;
+import com.abovesky.calendar.repository.RefreshTokenRepository;
+import com.abovesky.calendar.repository.UserRepository;
+import com.abovesky.calendar.security.TokenRevocationList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "jwt.secret=NDA0RTYzNTI2NjU1NkE1ODZFMzI3MjM1NzUzODc4MkY0MTNGNDQyODQ3MkI0QjYyNTA2NDUzNjc1NjZCNTk3MA==",
+        "jwt.expiration=900000"
+})
+@Import({RefreshTokenService.class, JwtService.class, RefreshTokenServiceTest.Config.class})
+class RefreshTokenServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        TokenRevocationList tokenRevocationList() {
+            return new TokenRevocationList(mock(StringRedisTemplate.class, RETURNS_DEEP_STUBS), "revoked",
+                    "revocations", 1000, 0.01);
+        }
+    }
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("parent");
+        user.setEmail("parent@example.com");
+        user.setPassword("$2a$10$hashedpassword");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void rotationReplacesTheRefreshTokenWithinTheSameFamily() {
+        RefreshTokenService.TokenPair login = refreshTokenService.issue(user);
+
+        RefreshTokenService.TokenPair rotated = refreshTokenService.rotate(login.refreshToken());
+
+        assertThat(rotated.refreshToken()).isNotEqualTo(login.refreshToken());
+        assertThat(jwtService.verify(rotated.accessToken()).subject()).isEqualTo("parent");
+        assertThat(refreshTokenRepository.findAll()).hasSize(2);
+        assertThat(refreshTokenRepository.findAll().stream().map(RefreshToken::getFamilyId).distinct()).hasSize(1);
+        assertThat(refreshTokenService.rotate(rotated.refreshToken()).user().getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        RefreshTokenService.TokenPair login = refreshTokenService.issue(user);
+        RefreshTokenService.TokenPair rotated = refreshTokenService.rotate(login.refreshToken());
+        RefreshTokenService.TokenPair otherDevice = refreshTokenService.issue(user);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(login.refreshToken()))
+                .isInstanceOf(InvalidTokenException.class);
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(rotated.refreshToken()))
+                .isInstanceOf(InvalidTokenException.class);
+        assertThat(revocationList.isRevoked(tokenId(rotated.accessToken()))).isTrue();
+        assertThat(revocationList.isRevoked(tokenId(otherDevice.accessToken()))).isFalse();
+        assertThat(refreshTokenService.rotate(otherDevice.refreshToken())).isNotNull();
+    }
+
+    @Test
+    void revokeAllEndsEverySessionOfTheUser() {
+        RefreshTokenService.TokenPair phone = refreshTokenService.issue(user);
+        RefreshTokenService.TokenPair laptop = refreshTokenService.rotate(refreshTokenService.issue(user).refreshToken());
+
+        refreshTokenService.revokeAll(user.getId());
+
+        assertThat(revocationList.isRevoked(tokenId(phone.accessToken()))).isTrue();
+        assertThat(revocationList.isRevoked(tokenId(laptop.accessToken()))).isTrue();
+        assertThatThrownBy(() -> refreshTokenService.rotate(phone.refreshToken()))
+                .isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> refreshTokenService.rotate(laptop.refreshToken()))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void revokingOneTokenLeavesOtherFamiliesAlone() {
+        RefreshTokenService.TokenPair phone = refreshTokenService.issue(user);
+        RefreshTokenService.TokenPair laptop = refreshTokenService.issue(user);
+
+        refreshTokenService.revoke(phone.refreshToken());
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(phone.refreshToken()))
+                .isInstanceOf(InvalidTokenException.class);
+        assertThat(refreshTokenService.rotate(laptop.refreshToken())).isNotNull();
+    }
+
+    private String tokenId(String accessToken) {
+        return jwtService.verify(accessToken).claims().getId();
+    }
+}
@@ -0,0 +1,51 @@
+package com.abovesky.calendar.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenAuthenticationCacheTest {
+
+    private final TokenAuthenticationCache cache = new TokenAuthenticationCache(100, 300);
+
+    @Test
+    void returnsPrincipalOfCachedTokenUntilInvalidated() {
+        UserDetails alice = user("alice");
+        cache.put("token-a", alice, Instant.now().plusSeconds(3600));
+
+        assertThat(cache.get("token-a")).isSameAs(alice);
+        assertThat(cache.get("token-b")).isNull();
+
+        cache.invalidate("token-a");
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void skipsTokensThatAlreadyExpired() {
+        cache.put("expired", user("alice"), Instant.now().minusSeconds(1));
+
+        assertThat(cache.get("expired")).isNull();
+    }
+
+    @Test
+    void invalidatesEveryTokenOfAUser() {
+        cache.put("a1", user("alice"), Instant.now().plusSeconds(3600));
+        cache.put("a2", user("alice"), Instant.now().plusSeconds(3600));
+        cache.put("b1", user("bob"), Instant.now().plusSeconds(3600));
+
+        cache.invalidateUser("alice");
+
+        assertThat(cache.get("a1")).isNull();
+        assertThat(cache.get("a2")).isNull();
+        assertThat(cache.get("b1")).isNotNull();
+    }
+
+    private static UserDetails user(String name) {
+        return new User(name, "hash", List.of());
+    }
+}
@@ -166,9 +166,16 @@ export class MealsComponent implements OnInit {
     }
   }
 
-  editMeal(meal: Meal): void {
-    this.editingMeal.set({ ...meal }); // Create a copy to edit
-    this.showEditModal.set(true);
+  async editMeal(meal: Meal): Promise<void> {
+    try {
+      // Meal lists come without the recipe, so load the full meal to edit
+      const full = meal.id ? await this.mealsApi.getMealById(meal.id) : meal;
+      this.editingMeal.set({ ...full }); // Create a copy to edit
+      this.showEditModal.set(true);
+    } catch (error) {
+      console.error('Error loading meal:', error);
+      alert('Failed to load meal');
+    }
   }
 
   closeEditModal(): void {
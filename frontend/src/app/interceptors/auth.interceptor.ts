@@ -1,17 +1,35 @@
-import { HttpInterceptorFn } from '@angular/common/http';
+import { HttpErrorResponse, HttpInterceptorFn, HttpRequest } from '@angular/common/http';
 import { inject } from '@angular/core';
+import { catchError, switchMap, throwError } from 'rxjs';
 import { AuthService } from '../services/auth.service';
 
+const withToken = (req: HttpRequest<unknown>, token: string | null) =>
+  token ? req.clone({ headers: req.headers.set('Authorization', `Bearer ${token}`) }) : req;
+
+/**
+ * Adds the access token to every request. Access tokens are short-lived: on a 401 the refresh token is exchanged
+ * for a new pair once and the request retried with the new access token; if that fails too, the user is signed out.
+ */
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
   const authService = inject(AuthService);
-  const token = authService.getToken();
 
-  if (token) {
-    const clonedReq = req.clone({
-      headers: req.headers.set('Authorization', `Bearer ${token}`)
-    });
-    return next(clonedReq);
+  // The auth endpoints themselves are never retried, a failed refresh must not trigger another one
+  if (req.url.includes('/auth/')) {
+    return next(withToken(req, authService.getToken()));
   }
 
-  return next(req);
+  return next(withToken(req, authService.getToken())).pipe(
+    catchError((error: unknown) => {
+      if (!(error instanceof HttpErrorResponse) || error.status !== 401 || !authService.getRefreshToken()) {
+        return throwError(() => error);
+      }
+      return authService.refreshToken().pipe(
+        catchError(refreshError => {
+          authService.logout();
+          return throwError(() => refreshError);
+        }),
+        switchMap(response => next(withToken(req, response.token)))
+      );
+    })
+  );
 };
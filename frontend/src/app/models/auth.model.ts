@@ -15,4 +15,5 @@ export interface AuthResponse {
   id: number;
   username: string;
   email: string;
+  refreshToken?: string;
 }
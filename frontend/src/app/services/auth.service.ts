@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { Router } from '@angular/router';
-import { Observable, tap } from 'rxjs';
+import { Observable, finalize, shareReplay, tap } from 'rxjs';
 import { ApiService } from './api.service';
 import { AuthResponse, LoginRequest, RegisterRequest } from '../models/auth.model';
 import { User } from '../models/user.model';
@@ -11,8 +11,12 @@ import { ModeService } from './mode.service';
 })
 export class AuthService {
   private readonly TOKEN_KEY = 'auth_token';
+  private readonly REFRESH_TOKEN_KEY = 'refresh_token';
   private readonly USER_KEY = 'current_user';
 
+  // Refresh in progress, shared by every request that hit a 401 meanwhile: a refresh token can only be used once
+  private refreshInFlight: Observable<AuthResponse> | null = null;
+
   constructor(
     private apiService: ApiService,
     private router: Router,
@@ -37,11 +41,42 @@ export class AuthService {
     );
   }
 
+  /**
+   * Exchange the stored refresh token for a new access token and a new refresh token
+   */
+  refreshToken(): Observable<AuthResponse> {
+    if (!this.refreshInFlight) {
+      this.refreshInFlight = this.apiService
+        .post<AuthResponse>('/auth/refresh-token', { refreshToken: this.getRefreshToken() })
+        .pipe(
+          tap(response => this.storeTokens(response)),
+          finalize(() => this.refreshInFlight = null),
+          shareReplay(1)
+        );
+    }
+    return this.refreshInFlight;
+  }
+
   logout(): void {
+    const refreshToken = this.getRefreshToken();
+    if (this.getToken() || refreshToken) {
+      // Revoke the session on the server too; the local sign-out does not wait for it
+      this.apiService.post<void>('/auth/logout', { refreshToken }).subscribe({
+        error: (err) => console.error('Failed to revoke session', err)
+      });
+    }
+    this.clearSession();
+    this.router.navigate(['/login']);
+  }
+
+  /**
+   * Drop the stored session without contacting the server, e.g. once the refresh token was rejected
+   */
+  clearSession(): void {
     localStorage.removeItem(this.TOKEN_KEY);
+    localStorage.removeItem(this.REFRESH_TOKEN_KEY);
     localStorage.removeItem(this.USER_KEY);
     this.modeService.clearMode();
-    this.router.navigate(['/login']);
   }
 
   isAuthenticated(): boolean {
@@ -52,13 +87,17 @@ export class AuthService {
     return localStorage.getItem(this.TOKEN_KEY);
   }
 
+  getRefreshToken(): string | null {
+    return localStorage.getItem(this.REFRESH_TOKEN_KEY);
+  }
+
   getCurrentUser(): User | null {
     const userStr = localStorage.getItem(this.USER_KEY);
     return userStr ? JSON.parse(userStr) : null;
   }
 
   private handleAuthResponse(response: AuthResponse): void {
-    localStorage.setItem(this.TOKEN_KEY, response.token);
+    this.storeTokens(response);
     const user: User = {
       id: response.id,
       username: response.username,
@@ -66,4 +105,11 @@ export class AuthService {
     };
     localStorage.setItem(this.USER_KEY, JSON.stringify(user));
   }
+
+  private storeTokens(response: AuthResponse): void {
+    localStorage.setItem(this.TOKEN_KEY, response.token);
+    if (response.refreshToken) {
+      localStorage.setItem(this.REFRESH_TOKEN_KEY, response.refreshToken);
+    }
+  }
 }